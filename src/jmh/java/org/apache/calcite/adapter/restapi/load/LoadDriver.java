@@ -0,0 +1,206 @@
+package org.apache.calcite.adapter.restapi.load;
+
+import org.apache.calcite.adapter.restapi.rest.RestSchemaFactory;
+import org.apache.calcite.adapter.restapi.rest.metrics.LatencyHistogram;
+import org.apache.calcite.jdbc.CalciteConnection;
+import org.apache.calcite.schema.SchemaPlus;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Runs concurrent SQL workloads through {@link RestSchemaFactory} against a {@link StubRestServer}
+ * and reports throughput, latency percentiles, the heap high-water mark and upstream requests.
+ *
+ * <pre>
+ * mvn -Pjmh compile exec:exec -Djmh.main=org.apache.calcite.adapter.restapi.load.LoadDriver \
+ *     -Djmh.args="--threads 8 --seconds 30 --rows 20000 --page-size 500 --latency-ms 5 --gzip true"
+ * </pre>
+ *
+ * Options: {@code --threads}, {@code --seconds}, {@code --warmup-seconds}, {@code --rows},
+ * {@code --page-size}, {@code --payload-bytes}, {@code --latency-ms}, {@code --jitter-ms},
+ * {@code --error-rate}, {@code --gzip}, {@code --request-data} (extra {@code requestData} XML
+ * elements, e.g. {@code <scanReplay>memory</scanReplay>}) and {@code --query} (repeatable).
+ */
+public class LoadDriver {
+
+    private static final String SCHEMA = "rest";
+    private static final List<String> DEFAULT_QUERIES = List.of(
+            "select count(*) from rest.users",
+            "select id, name, score from rest.users where name = 'user-7'",
+            "select name, avg(age) from rest.users group by name order by 2 desc limit 5");
+
+    private static final String SERVICE_XML = "<service>\n"
+            + "  <dataSourceName>stub</dataSourceName>\n"
+            + "  <requestData>\n"
+            + "    <addresses>%s</addresses>\n"
+            + "    <method>GET</method>\n"
+            + "    <url><![CDATA[/users?offset=${offset}&limit=${limit}<#if filters?has_content && (filters?size == 1)><#list filters[0] as c><#if c.name == 'name' && c.operator == '='>&name=${c.value}</#if></#list></#if>]]></url>\n"
+            + "    <pageStart>0</pageStart>\n"
+            + "    <pageSize>%d</pageSize>\n"
+            + "    %s\n"
+            + "  </requestData>\n"
+            + "  <tables>\n"
+            + "    <table>\n"
+            + "      <name>users</name>\n"
+            + "      <rootJsonpath>$.data</rootJsonpath>\n"
+            + "      <parameters>\n"
+            + "        <parameter><name>id</name><dbType>long</dbType><jsonpath>id</jsonpath><type>RESPONSE</type></parameter>\n"
+            + "        <parameter><name>name</name><dbType>string</dbType><jsonpath>name</jsonpath><type>BOTH</type></parameter>\n"
+            + "        <parameter><name>age</name><dbType>int</dbType><jsonpath>age</jsonpath><type>RESPONSE</type></parameter>\n"
+            + "        <parameter><name>score</name><dbType>double</dbType><jsonpath>score</jsonpath><type>RESPONSE</type></parameter>\n"
+            + "        <parameter><name>active</name><dbType>boolean</dbType><jsonpath>active</jsonpath><type>RESPONSE</type></parameter>\n"
+            + "        <parameter><name>born</name><dbType>date</dbType><jsonpath>born</jsonpath><type>RESPONSE</type></parameter>\n"
+            + "        <parameter><name>payload</name><dbType>string</dbType><jsonpath>payload</jsonpath><type>RESPONSE</type></parameter>\n"
+            + "      </parameters>\n"
+            + "    </table>\n"
+            + "  </tables>\n"
+            + "</service>\n";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, List<String>> options = parse(args);
+        int threads = intOption(options, "threads", 4);
+        int seconds = intOption(options, "seconds", 20);
+        int warmupSeconds = intOption(options, "warmup-seconds", 5);
+        List<String> queries = options.getOrDefault("query", DEFAULT_QUERIES);
+
+        try (StubRestServer server = new StubRestServer(
+                intOption(options, "rows", 10000),
+                intOption(options, "payload-bytes", 64),
+                intOption(options, "latency-ms", 5),
+                intOption(options, "jitter-ms", 0),
+                Double.parseDouble(option(options, "error-rate", "0")),
+                Boolean.parseBoolean(option(options, "gzip", "false")))) {
+
+            Path directory = Files.createTempDirectory("calcite-rest-load");
+            Files.write(directory.resolve("stub.xml"), String.format(Locale.ROOT, SERVICE_XML,
+                    server.getAddress(), intOption(options, "page-size", 500), option(options, "request-data", "")).getBytes(StandardCharsets.UTF_8));
+            System.setProperty("calcite.rest", directory.toString());
+
+            List<Connection> connections = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                connections.add(connect());
+            }
+
+            System.out.printf(Locale.ROOT, "Warming up for %d s with %d threads%n", warmupSeconds, threads);
+            run(connections, queries, warmupSeconds);
+
+            long requestsBefore = server.getRequestCount();
+            long bytesBefore = server.getBytesSent();
+            System.out.printf(Locale.ROOT, "Measuring for %d s with %d threads%n", seconds, threads);
+            Result result = run(connections, queries, seconds);
+
+            long upstream = server.getRequestCount() - requestsBefore;
+            System.out.printf(Locale.ROOT, "queries:            %d (%d failed)%n", result.latency.getCount(), result.failures.get());
+            System.out.printf(Locale.ROOT, "throughput:         %.1f queries/s%n", result.latency.getCount() / result.seconds);
+            System.out.printf(Locale.ROOT, "latency ms:         mean %.1f, p50 %.1f, p95 %.1f, p99 %.1f, max %.1f%n",
+                    result.latency.getMeanMillis(), result.latency.getPercentileMillis(50), result.latency.getPercentileMillis(95),
+                    result.latency.getPercentileMillis(99), result.latency.getMaxMillis());
+            System.out.printf(Locale.ROOT, "upstream requests:  %d (%.1f per query, %d failed in total)%n",
+                    upstream, result.latency.getCount() == 0 ? 0d : (double) upstream / result.latency.getCount(), server.getErrorCount());
+            System.out.printf(Locale.ROOT, "upstream bytes:     %d%n", server.getBytesSent() - bytesBefore);
+            System.out.printf(Locale.ROOT, "heap high-water:    %.1f MB%n", result.heapHighWater / 1024d / 1024d);
+
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    private static Result run(List<Connection> connections, List<String> queries, int seconds) throws Exception {
+        Result result = new Result();
+        ExecutorService workers = Executors.newFixedThreadPool(connections.size());
+        ScheduledExecutorService heapSampler = Executors.newSingleThreadScheduledExecutor();
+        Runtime runtime = Runtime.getRuntime();
+        heapSampler.scheduleAtFixedRate(() -> result.heapHighWaterAccumulator.accumulate(runtime.totalMemory() - runtime.freeMemory()), 0, 20, TimeUnit.MILLISECONDS);
+
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < connections.size(); i++) {
+            Connection connection = connections.get(i);
+            int first = i;
+            futures.add(workers.submit(() -> {
+                for (int n = first; System.nanoTime() < deadline; n++) {
+                    long queryStarted = System.nanoTime();
+                    try (Statement statement = connection.createStatement();
+                         ResultSet resultSet = statement.executeQuery(queries.get(n % queries.size()))) {
+                        while (resultSet.next()) {
+                            resultSet.getObject(1);
+                        }
+                        result.latency.record(System.nanoTime() - queryStarted);
+                    } catch (SQLException | RuntimeException e) {
+                        result.failures.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        result.seconds = (System.nanoTime() - started) / 1e9;
+        workers.shutdown();
+        heapSampler.shutdown();
+        result.heapHighWater = result.heapHighWaterAccumulator.get();
+        return result;
+    }
+
+    private static Connection connect() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("lex", "JAVA");
+        properties.setProperty("fun", "all");
+        Connection connection = DriverManager.getConnection("jdbc:calcite:", properties);
+        CalciteConnection calciteConnection = connection.unwrap(CalciteConnection.class);
+        SchemaPlus rootSchema = calciteConnection.getRootSchema();
+        rootSchema.add(SCHEMA, new RestSchemaFactory().create(rootSchema, SCHEMA, new HashMap<>()));
+        return connection;
+    }
+
+    private static Map<String, List<String>> parse(String[] args) {
+        Map<String, List<String>> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an option instead of '" + args[i] + "'");
+            }
+            options.computeIfAbsent(args[i].substring(2), key -> new ArrayList<>()).add(args[i + 1]);
+        }
+        return options;
+    }
+
+    private static String option(Map<String, List<String>> options, String name, String defaultValue) {
+        List<String> values = options.get(name);
+        return values != null ? values.get(values.size() - 1) : defaultValue;
+    }
+
+    private static int intOption(Map<String, List<String>> options, String name, int defaultValue) {
+        return Integer.parseInt(option(options, name, String.valueOf(defaultValue)));
+    }
+
+    private static class Result {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong failures = new AtomicLong();
+        private final LongAccumulator heapHighWaterAccumulator = new LongAccumulator(Math::max, 0);
+        private double seconds;
+        private long heapHighWater;
+    }
+
+}
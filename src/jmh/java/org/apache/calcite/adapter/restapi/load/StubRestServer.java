@@ -0,0 +1,171 @@
+package org.apache.calcite.adapter.restapi.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process REST service on the JDK HTTP server serving a synthetic {@code users} dataset.
+ * {@code GET /users?offset=&limit=[&name=]} answers {@code {"data": [...]}} with the page of rows,
+ * optionally filtered by name, after the configured latency. A share of requests fails with
+ * {@code 500}, and bodies are gzipped when the client accepts it and {@code gzip} is on.
+ */
+public class StubRestServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int rows;
+    private final int payloadBytes;
+    private final long latencyMillis;
+    private final long latencyJitterMillis;
+    private final double errorRate;
+    private final boolean gzip;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    /**
+     * @param payloadBytes length of a padding text field added to every row
+     * @param errorRate    share of requests answered with {@code 500}, from 0 to 1
+     */
+    public StubRestServer(int rows, int payloadBytes, long latencyMillis, long latencyJitterMillis, double errorRate, boolean gzip) throws IOException {
+        this.rows = rows;
+        this.payloadBytes = payloadBytes;
+        this.latencyMillis = latencyMillis;
+        this.latencyJitterMillis = latencyJitterMillis;
+        this.errorRate = errorRate;
+        this.gzip = gzip;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-rest-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/users", this::handle);
+        server.start();
+    }
+
+    public String getAddress() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getErrorCount() {
+        return errors.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            sleep();
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                errors.incrementAndGet();
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            int offset = Integer.parseInt(query.getOrDefault("offset", "0"));
+            int limit = Integer.parseInt(query.getOrDefault("limit", "0"));
+            byte[] body = page(offset, limit > 0 ? limit : rows, query.get("name"));
+
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            if (gzip && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                    out.write(body);
+                }
+                body = compressed.toByteArray();
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            bytesSent.addAndGet(body.length);
+        }
+    }
+
+    private byte[] page(int offset, int limit, String name) {
+        String padding = "x".repeat(payloadBytes);
+        StringBuilder json = new StringBuilder("{\"data\":[");
+        int matched = 0;
+        int written = 0;
+        for (int i = 0; i < rows && written < limit; i++) {
+            if (name != null && !name.equals(name(i))) {
+                continue;
+            }
+            if (matched++ < offset) {
+                continue;
+            }
+            if (written++ > 0) {
+                json.append(',');
+            }
+            json.append(String.format(Locale.ROOT,
+                    "{\"id\":%d,\"name\":\"%s\",\"age\":%d,\"score\":%.2f,\"active\":%b,\"born\":\"19%02d-0%d-1%d\",\"payload\":\"%s\"}",
+                    i, name(i), 20 + i % 50, i * 0.75, i % 2 == 0, 50 + i % 50, 1 + i % 9, i % 10, padding));
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static String name(int row) {
+        return "user-" + row % 100;
+    }
+
+    private void sleep() {
+        long delay = latencyMillis + (latencyJitterMillis > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMillis + 1) : 0);
+        if (delay <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+}
@@ -0,0 +1,33 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Synthetic payloads shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * A {@code {"data": [...]}} document of {@code rows} user objects with a nested, unselected object each.
+     */
+    static byte[] users(int rows) {
+        StringBuilder json = new StringBuilder("{\"data\":[");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format(Locale.ROOT,
+                    "{\"id\":%d,\"name\":\"user-%d\",\"age\":%d,\"score\":%.2f,\"active\":%b,\"born\":\"19%02d-0%d-1%d\","
+                            + "\"created\":\"2023-0%d-1%dT10:%02d:00\",\"uuid\":\"00000000-0000-0000-0000-%012d\","
+                            + "\"address\":{\"city\":\"city-%d\",\"geo\":{\"lat\":%d.5,\"lng\":%d.25}}}",
+                    i, i, 20 + i % 50, i * 0.75, i % 2 == 0, 50 + i % 50, 1 + i % 9, i % 10,
+                    1 + i % 9, i % 10, i % 60, i, i % 100, i % 90, i % 180));
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,113 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONValue;
+import org.apache.calcite.adapter.restapi.rest.interfaces.RestIterator;
+import org.apache.calcite.adapter.restapi.rest.page.ColumnarPage;
+import org.apache.calcite.adapter.restapi.rest.page.PageLayout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of JSON values into a page column, and reading the rows back through {@link RestDataEnumerator}, per field type.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnConversionBenchmark {
+
+    private static final int ROWS = 1000;
+
+    @Param({"string", "int", "long", "double", "boolean", "date", "timestamp", "uuid"})
+    public String type;
+
+    private PageLayout layout;
+    private ArrayParamReaderImpl[] readers;
+    private ColumnarPage page;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String jsonpath;
+        switch (type) {
+            case "string": jsonpath = "$.name"; break;
+            case "int": jsonpath = "$.age"; break;
+            case "long": jsonpath = "$.id"; break;
+            case "double": jsonpath = "$.score"; break;
+            case "boolean": jsonpath = "$.active"; break;
+            case "date": jsonpath = "$.born"; break;
+            case "timestamp": jsonpath = "$.created"; break;
+            default: jsonpath = "$.uuid"; break;
+        }
+        Field field = new Field("value", RestFieldType.of(type), null);
+        field.setJsonpath(jsonpath);
+        field.setResponseParameter(true);
+        layout = new PageLayout(List.of(field));
+
+        JSONArray rows = (JSONArray) ((java.util.Map<?, ?>) JSONValue.parse(BenchmarkData.users(ROWS))).get("data");
+        readers = rows.stream().map(ArrayParamReaderImpl::new).toArray(ArrayParamReaderImpl[]::new);
+        page = fill();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        page.close();
+    }
+
+    @Benchmark
+    public int convert() {
+        try (ColumnarPage converted = fill()) {
+            return converted.size();
+        }
+    }
+
+    @Benchmark
+    public void enumerate(Blackhole blackhole) {
+        RestDataEnumerator enumerator = new RestDataEnumerator(new RestIterator() {
+            private boolean done;
+
+            @Override
+            public ColumnarPage getMore() {
+                if (done) {
+                    return ColumnarPage.empty();
+                }
+                done = true;
+                return page;
+            }
+
+            @Override
+            public void release(ColumnarPage released) {
+            }
+        });
+        while (enumerator.moveNext()) {
+            blackhole.consume(enumerator.current());
+        }
+        enumerator.close();
+    }
+
+    private ColumnarPage fill() {
+        ColumnarPage filled = new ColumnarPage(layout, Long.MAX_VALUE);
+        for (ArrayParamReaderImpl reader : readers) {
+            filled.append(reader);
+        }
+        return filled;
+    }
+
+}
@@ -0,0 +1,47 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Field reads of {@link ArrayParamReaderImpl} from a decoded element.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonPathReadBenchmark {
+
+    @Param({"$.id", "$.name", "$.address.city", "$.address.geo.lat", "$['address']['geo']['lng']", "$.address", "$.missing"})
+    public String path;
+
+    private ArrayParamReaderImpl reader;
+
+    @Setup
+    public void setup() {
+        JSONArray rows = (JSONArray) ((Map<?, ?>) JSONValue.parse(BenchmarkData.users(1))).get("data");
+        reader = new ArrayParamReaderImpl(rows.get(0));
+    }
+
+    @Benchmark
+    public Object read() {
+        return reader.read(0, path);
+    }
+
+}
@@ -0,0 +1,86 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.rest.page.ColumnarPage;
+import org.apache.calcite.adapter.restapi.rest.page.PageLayout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A response body decoded into a page, as {@code PageFetcher} does it: buffered and parsed as a
+ * whole, or streamed element by element when {@code scanMemoryBudget} is set.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageDecodingBenchmark {
+
+    private static final String ROOT_JSONPATH = "$.data";
+
+    @Param({"100", "1000", "10000"})
+    public int rows;
+
+    private byte[] body;
+    private PageLayout layout;
+    private JsonArrayStreamDecoder streamDecoder;
+
+    @Setup
+    public void setup() {
+        body = BenchmarkData.users(rows);
+
+        List<Field> fields = new ArrayList<>();
+        fields.add(field("id", "long", "$.id"));
+        fields.add(field("name", "string", "$.name"));
+        fields.add(field("score", "double", "$.score"));
+        fields.add(field("active", "boolean", "$.active"));
+        fields.add(field("born", "date", "$.born"));
+        fields.add(field("city", "string", "$.address.city"));
+        layout = new PageLayout(fields);
+        streamDecoder = JsonArrayStreamDecoder.of(ROOT_JSONPATH);
+    }
+
+    @Benchmark
+    public int buffered() throws IOException {
+        try (ResponseBuffer buffer = ResponseBuffer.acquire();
+             ColumnarPage page = new ColumnarPage(layout, Long.MAX_VALUE)) {
+            buffer.readFrom(new ByteArrayInputStream(body), body.length);
+            for (Object element : new ArrayReaderImpl(buffer).read(ROOT_JSONPATH)) {
+                page.append(new ArrayParamReaderImpl(element));
+            }
+            return page.size();
+        }
+    }
+
+    @Benchmark
+    public int streamed() throws IOException {
+        try (ColumnarPage page = new ColumnarPage(layout, Long.MAX_VALUE)) {
+            streamDecoder.decode(new ByteArrayInputStream(body), element -> page.append(new ArrayParamReaderImpl(element)));
+            return page.size();
+        }
+    }
+
+    private static Field field(String name, String type, String jsonpath) {
+        Field field = new Field(name, RestFieldType.of(type), null);
+        field.setJsonpath(jsonpath);
+        field.setResponseParameter(true);
+        return field;
+    }
+
+}
@@ -0,0 +1,147 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import freemarker.template.SimpleNumber;
+import freemarker.template.SimpleScalar;
+import freemarker.template.TemplateModel;
+import org.apache.calcite.adapter.restapi.freemarker.FreeMarkerEngine;
+import org.apache.calcite.adapter.restapi.model.JsonBody;
+import org.apache.calcite.jdbc.JavaTypeFactoryImpl;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a request: DNF conversion of nested predicates, rendering the README's DNF body template,
+ * and writing the same body from a {@code jsonBody} spec, once per pass and per page.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestRenderingBenchmark {
+
+    private static final String DNF_TEMPLATE = "{\n"
+            + "    \"name\": \"${name}\",\n"
+            + "    \"page\": ${(offset / limit)?int},\n"
+            + "    \"limit\": ${limit}<#if filters?has_content>,\n"
+            + "        \"where\": [\n"
+            + "            <#list filters[0] as criterion>\n"
+            + "                {\n"
+            + "                    \"name\": \"${criterion.name}\",\n"
+            + "                    \"operator\": \"${criterion.operator}\",\n"
+            + "                    \"value\": \"${criterion.value}\"\n"
+            + "                }<#if criterion?has_next>,</#if>\n"
+            + "            </#list>\n"
+            + "        ]\n"
+            + "        <#if (filters?size > 1)>,\n"
+            + "        \"or\": [\n"
+            + "            <#list filters[1..] as orGroup>\n"
+            + "                [\n"
+            + "                    <#list orGroup as criterion>\n"
+            + "                        {\n"
+            + "                            \"name\": \"${criterion.name}\",\n"
+            + "                            \"operator\": \"${criterion.operator}\",\n"
+            + "                            \"value\": \"${criterion.value}\"\n"
+            + "                        }<#if criterion?has_next>,</#if>\n"
+            + "                    </#list>\n"
+            + "                ]<#if orGroup?has_next>,</#if>\n"
+            + "            </#list>\n"
+            + "        ]\n"
+            + "        </#if></#if>\n"
+            + "}";
+
+    /** Number of {@code (a OR b)} conjuncts; the DNF has {@code 2^depth} groups. */
+    @Param({"2", "4", "6"})
+    public int depth;
+
+    private RexBuilder rexBuilder;
+    private List<RexNode> filters;
+    private Map<String, TemplateModel> context;
+    private List<List<Map<String, TemplateModel>>> groups;
+    private JsonRequestBody jsonBody;
+    private JsonRequestBody.Prepared preparedBody;
+
+    @Setup
+    public void setup() throws Exception {
+        rexBuilder = new RexBuilder(new JavaTypeFactoryImpl());
+        RelDataType intType = rexBuilder.getTypeFactory().createSqlType(SqlTypeName.INTEGER);
+        filters = new ArrayList<>();
+        for (int i = 0; i < depth; i++) {
+            filters.add(rexBuilder.makeCall(SqlStdOperatorTable.OR,
+                    rexBuilder.makeCall(SqlStdOperatorTable.EQUALS, rexBuilder.makeInputRef(intType, 2 * i), rexBuilder.makeExactLiteral(BigDecimal.valueOf(i))),
+                    rexBuilder.makeCall(SqlStdOperatorTable.GREATER_THAN_OR_EQUAL, rexBuilder.makeInputRef(intType, 2 * i + 1), rexBuilder.makeExactLiteral(BigDecimal.valueOf(i)))));
+        }
+
+        FreeMarkerEngine.init();
+        groups = new ArrayList<>();
+        for (List<RexNode> group : RestTable.convertToDnf(rexBuilder, filters)) {
+            List<Map<String, TemplateModel>> criteria = new ArrayList<>();
+            for (int i = 0; i < group.size(); i++) {
+                criteria.add(Map.of(
+                        "name", new SimpleScalar("field" + i),
+                        "operator", new SimpleScalar(i % 2 == 0 ? "=" : ">="),
+                        "value", new SimpleNumber(i)));
+            }
+            groups.add(criteria);
+        }
+        context = new HashMap<>();
+        context.put("name", new SimpleScalar("users"));
+        context.put("offset", new SimpleNumber(100));
+        context.put("limit", new SimpleNumber(100));
+        context.put("filters", FreeMarkerEngine.convert(groups));
+
+        JsonBody spec = new JsonBody();
+        spec.setNameKey("name");
+        spec.setPageKey("page");
+        spec.setLimitKey("limit");
+        spec.setWhereKey("where");
+        spec.setOrKey("or");
+        spec.setQuoteValues(true);
+        jsonBody = new JsonRequestBody(spec);
+        preparedBody = jsonBody.prepare("users", 100, groups, Collections.emptyList(), Collections.emptySet());
+    }
+
+    @Benchmark
+    public List<List<RexNode>> convertToDnf() {
+        return RestTable.convertToDnf(rexBuilder, filters);
+    }
+
+    @Benchmark
+    public String renderDnfBody() throws Exception {
+        return FreeMarkerEngine.getInstance().process(DNF_TEMPLATE, context);
+    }
+
+    @Benchmark
+    public String prepareJsonBody() {
+        return jsonBody.prepare("users", 100, groups, Collections.emptyList(), Collections.emptySet()).render(100);
+    }
+
+    @Benchmark
+    public String renderJsonBodyPage() {
+        return preparedBody.render(100);
+    }
+
+}
@@ -10,14 +10,19 @@ import lombok.Getter;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class FreeMarkerEngine {
 
     @Getter
     private static final FreeMarkerEngine instance = new FreeMarkerEngine();
     private static final Configuration cfg = new Configuration(new Version("2.3.28"));
+    /** Parsed templates of the loaded services by their text, with the number of services using each. */
+    private static final Map<String, CachedTemplate> templates = new ConcurrentHashMap<>();
 
     private String fmFunctions;
 
@@ -57,7 +62,44 @@ public class FreeMarkerEngine {
         return stringWriter.toString().trim();
     }
 
+    /**
+     * @return the cached template of a loaded service, or the text parsed anew if no service retains it
+     */
     public Template getTemplate(String templateText) {
+        CachedTemplate cached = templates.get(templateText);
+        return cached != null ? cached.template : parse(templateText);
+    }
+
+    /**
+     * Parses the templates of a service into the cache, where they stay until the service releases them.
+     * Nothing is retained if one of them fails to parse.
+     */
+    public static void retain(Collection<String> templateTexts) {
+        synchronized (templates) {
+            Map<String, Template> parsed = new LinkedHashMap<>();
+            for (String templateText : templateTexts) {
+                CachedTemplate cached = templates.get(templateText);
+                parsed.put(templateText, cached != null ? cached.template : parse(templateText));
+            }
+            parsed.forEach((templateText, template) -> templates.computeIfAbsent(templateText, text -> new CachedTemplate(template)).references++);
+        }
+    }
+
+    /**
+     * Drops the templates of a replaced or removed service from the cache, unless another service uses them.
+     */
+    public static void release(Collection<String> templateTexts) {
+        synchronized (templates) {
+            for (String templateText : templateTexts) {
+                CachedTemplate cached = templates.get(templateText);
+                if (cached != null && --cached.references == 0) {
+                    templates.remove(templateText);
+                }
+            }
+        }
+    }
+
+    private static Template parse(String templateText) {
         try {
             return new Template("freemarker", templateText, cfg);
         } catch (IOException e) {
@@ -65,6 +107,15 @@ public class FreeMarkerEngine {
         }
     }
 
+    private static class CachedTemplate {
+        private final Template template;
+        private int references;
+
+        CachedTemplate(Template template) {
+            this.template = template;
+        }
+    }
+
     public static TemplateModel convert(Object value) throws ConvertException {
         try {
             return cfg.getObjectWrapper().wrap(value);
@@ -0,0 +1,29 @@
+package org.apache.calcite.adapter.restapi.model;
+
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class Aggregation {
+
+    @JacksonXmlProperty
+    private String method;
+
+    @JacksonXmlProperty
+    private String url;
+
+    @JacksonXmlProperty
+    private String body;
+
+    @JacksonXmlProperty
+    private String rootJsonpath;
+
+    @JacksonXmlProperty
+    private List<String> groupBy;
+
+    @JacksonXmlProperty
+    private List<String> functions;
+
+}
@@ -0,0 +1,39 @@
+package org.apache.calcite.adapter.restapi.model;
+
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
+import lombok.Data;
+
+@Data
+public class JsonBody {
+
+    @JacksonXmlProperty
+    private String filterLayout;
+
+    @JacksonXmlProperty
+    private String nameKey;
+
+    @JacksonXmlProperty
+    private String pageKey;
+
+    @JacksonXmlProperty
+    private String offsetKey;
+
+    @JacksonXmlProperty
+    private String limitKey;
+
+    @JacksonXmlProperty
+    private String projectsKey;
+
+    @JacksonXmlProperty
+    private String whereKey;
+
+    @JacksonXmlProperty
+    private String orKey;
+
+    @JacksonXmlProperty
+    private String sortKey;
+
+    @JacksonXmlProperty
+    private boolean quoteValues;
+
+}
@@ -18,4 +18,13 @@ public class Parameter {
     @JacksonXmlProperty
     private Direction type;
 
+    @JacksonXmlProperty
+    private String format;
+
+    @JacksonXmlProperty
+    private Double selectivity;
+
+    @JacksonXmlProperty
+    private boolean sortable;
+
 }
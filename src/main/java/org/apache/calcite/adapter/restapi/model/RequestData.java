@@ -26,6 +26,9 @@ public class RequestData {
     @JacksonXmlProperty
     private String body;
 
+    @JacksonXmlProperty
+    private JsonBody jsonBody;
+
     @JacksonXmlProperty
     private int pageStart;
 
@@ -35,4 +38,34 @@ public class RequestData {
     @JacksonXmlProperty
     private List<Header> headers;
 
+    @JacksonXmlProperty
+    private String acceptEncoding;
+
+    @JacksonXmlProperty
+    private int requestCompressionThreshold;
+
+    @JacksonXmlProperty
+    private int scanMemoryBudget;
+
+    @JacksonXmlProperty
+    private String scanReplay;
+
+    @JacksonXmlProperty
+    private int revalidationCacheSize;
+
+    @JacksonXmlProperty
+    private String diskCacheDirectory;
+
+    @JacksonXmlProperty
+    private int diskCacheTtl;
+
+    @JacksonXmlProperty
+    private int diskCacheSize;
+
+    @JacksonXmlProperty
+    private String responseFormat;
+
+    @JacksonXmlProperty
+    private WarmUp warmUp;
+
 }
@@ -0,0 +1,32 @@
+package org.apache.calcite.adapter.restapi.model;
+
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class Snapshot {
+
+    @JacksonXmlProperty
+    private int refreshInterval;
+
+    @JacksonXmlProperty
+    private int fullRefreshInterval;
+
+    @JacksonXmlProperty
+    private String storage;
+
+    @JacksonXmlProperty
+    private List<String> indexes;
+
+    @JacksonXmlProperty
+    private String watermark;
+
+    @JacksonXmlProperty
+    private String key;
+
+    @JacksonXmlProperty
+    private List<Property> properties;
+
+}
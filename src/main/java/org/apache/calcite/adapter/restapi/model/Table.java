@@ -17,4 +17,31 @@ public class Table {
     @JacksonXmlProperty
     private List<Parameter> parameters;
 
+    @JacksonXmlProperty
+    private TableStatistics statistics;
+
+    @JacksonXmlProperty
+    private Snapshot snapshot;
+
+    @JacksonXmlProperty
+    private Aggregation aggregation;
+
+    @JacksonXmlProperty
+    private Partitioning partitioning;
+
+    @JacksonXmlProperty
+    private String fetchGroup;
+
+    @JacksonXmlProperty
+    private String parent;
+
+    @JacksonXmlProperty
+    private String responseFormat;
+
+    @JacksonXmlProperty
+    private String protoDescriptorSet;
+
+    @JacksonXmlProperty
+    private String protoMessageType;
+
 }
@@ -0,0 +1,23 @@
+package org.apache.calcite.adapter.restapi.model;
+
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class TableStatistics {
+
+    @JacksonXmlProperty
+    private Double rowCount;
+
+    @JacksonXmlProperty
+    private List<String> keys;
+
+    @JacksonXmlProperty
+    private String countUrl;
+
+    @JacksonXmlProperty
+    private String countJsonpath;
+
+}
@@ -0,0 +1,18 @@
+package org.apache.calcite.adapter.restapi.model;
+
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
+import lombok.Data;
+
+@Data
+public class WarmUp {
+
+    @JacksonXmlProperty
+    private String healthUrl;
+
+    @JacksonXmlProperty
+    private int connections;
+
+    @JacksonXmlProperty
+    private int interval;
+
+}
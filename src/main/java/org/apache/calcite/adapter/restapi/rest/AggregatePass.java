@@ -0,0 +1,117 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.model.Aggregation;
+import org.apache.calcite.adapter.restapi.model.RequestData;
+import org.apache.calcite.adapter.restapi.rest.interfaces.ArrayParamReader;
+import org.apache.calcite.adapter.restapi.rest.interfaces.RestIterator;
+import org.apache.calcite.adapter.restapi.rest.metrics.RequestEvent;
+import org.apache.calcite.adapter.restapi.rest.page.ColumnarPage;
+import org.apache.calcite.adapter.restapi.rest.page.PageLayout;
+import org.apache.calcite.adapter.restapi.rest.profile.ScanProfile;
+import freemarker.template.TemplateModel;
+import net.minidev.json.JSONArray;
+import org.apache.calcite.rex.RexNode;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The single request of an aggregation, sent to the first address that answers. An aggregation
+ * without GROUP BY has one row even over no rows: a service answering with no groups yields
+ * COUNT 0 and null for the other functions, as SQL requires.
+ */
+class AggregatePass implements RestIterator {
+    private static final Set<RestFieldType> INTEGRAL_TYPES = EnumSet.of(RestFieldType.BYTE, RestFieldType.SHORT, RestFieldType.INT, RestFieldType.LONG);
+
+    private final RestTable restTable;
+    private final Aggregation aggregation;
+    private final List<List<RexNode>> filters;
+    private final Map<String, TemplateModel> macros;
+    private final Properties properties;
+    private final Set<String> selectedFields;
+    private final PageLayout layout;
+    /** Row of an aggregation without GROUP BY over no rows, {@code null} if grouped. */
+    private final Object[] emptyRow;
+    private boolean exhausted;
+
+    AggregatePass(RestTable restTable, Aggregation aggregation, List<List<RexNode>> filters, Map<String, TemplateModel> macros, Properties properties, Set<String> selectedFields, PageLayout layout, Object[] emptyRow) {
+        this.restTable = restTable;
+        this.aggregation = aggregation;
+        this.filters = filters;
+        this.macros = macros;
+        this.properties = properties;
+        this.selectedFields = selectedFields;
+        this.layout = layout;
+        this.emptyRow = emptyRow;
+    }
+
+    @Override
+    public ColumnarPage getMore() {
+        if (exhausted) {
+            return ColumnarPage.empty();
+        }
+        exhausted = true;
+        ScanProfile profile = restTable.startAggregationProfile(filters);
+        restTable.logProfile(profile);
+
+        return restTable.getExecutor().failover((address, failover) -> {
+            try (ResponseBuffer buffer = ResponseBuffer.acquire()) {
+                return requestAggregates(address, buffer, failover, profile);
+            }
+        });
+    }
+
+    /**
+     * Aggregation responses are JSON documents with the groups in the array at the {@code rootJsonpath}
+     * of {@code aggregation}. They are small, so they are neither streamed nor cached. Services often
+     * compute sums and averages as decimals, so values of integer columns are truncated, as Calcite
+     * does with the average of integers.
+     */
+    private ColumnarPage requestAggregates(String address, ResponseBuffer buffer, boolean failover, ScanProfile profile) throws IOException {
+        RequestData connectionData = restTable.getConnectionData();
+        RequestExecutor executor = restTable.getExecutor();
+        HttpUriRequestBase request = restTable.getRenderer().render(address,
+                aggregation.getMethod() != null ? aggregation.getMethod() : connectionData.getMethod(),
+                aggregation.getUrl() != null ? aggregation.getUrl() : connectionData.getUrl(),
+                aggregation.getBody(), null, filters, macros, 0, properties, selectedFields).request;
+        RequestEvent event = executor.newEvent(request, failover);
+
+        Set<String> integralPaths = layout.getFields().stream()
+                .filter(field -> INTEGRAL_TYPES.contains(field.getRestFieldType()))
+                .map(Field::getJsonpath)
+                .collect(Collectors.toSet());
+        ColumnarPage page = new ColumnarPage(layout, Long.MAX_VALUE);
+        try {
+            executor.execute(request, buffer::readFrom, event);
+            long started = System.nanoTime();
+            JSONArray jsonArray = new ArrayReaderImpl(buffer).read(aggregation.getRootJsonpath() != null ? aggregation.getRootJsonpath() : "$");
+            if (jsonArray != null) {
+                for (Object o : jsonArray) {
+                    ArrayParamReader group = new ArrayParamReaderImpl(o);
+                    page.append((index, path) -> {
+                        Object value = group.read(index, path);
+                        return value instanceof Number && integralPaths.contains(path) ? (Object) ((Number) value).longValue() : value;
+                    });
+                }
+            }
+            if (page.size() == 0 && emptyRow != null) {
+                page.append(emptyRow);
+            }
+            event.setParseNanos(System.nanoTime() - started);
+        } catch (IOException | RuntimeException e) {
+            page.close();
+            event.setError(e);
+            executor.record(request, event, profile);
+            throw e;
+        }
+        event.setRows(page.size());
+        executor.record(request, event, profile);
+        return page;
+    }
+}
@@ -0,0 +1,36 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.rest.interfaces.ArrayParamReader;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
+import net.minidev.json.JSONValue;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the fields of one decoded JSON element by jsonpath; objects and arrays are read as their JSON text.
+ */
+class ArrayParamReaderImpl implements ArrayParamReader {
+
+    private final Object object;
+
+    public ArrayParamReaderImpl(Object object) {
+        this.object = object;
+    }
+
+    @Override
+    public Object read(int index, String path) {
+        if (object == null) {
+            return null;
+        }
+
+        try {
+            Object value = JsonPath.read(object, path);
+            return value instanceof Map || value instanceof List ? JSONValue.toJSONString(value) : value;
+        } catch (PathNotFoundException e) {
+            return null;
+        }
+    }
+
+}
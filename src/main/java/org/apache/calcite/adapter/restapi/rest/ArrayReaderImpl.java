@@ -0,0 +1,63 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.rest.interfaces.ArrayReader;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
+import net.minidev.json.JSONArray;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the array of rows from a JSON response held in a {@link ResponseBuffer}.
+ */
+class ArrayReaderImpl implements ArrayReader {
+
+    private static final Configuration JSON_CONFIGURATION = Configuration.defaultConfiguration();
+
+    private final ResponseBuffer buffer;
+
+    public ArrayReaderImpl(ResponseBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public JSONArray read(String path) {
+        if (buffer == null || buffer.isEmpty()) {
+            return null;
+        }
+
+        try (InputStream is = buffer.getInputStream()) {
+            return readArray(parse(is), path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Object parse(InputStream is) {
+        return JSON_CONFIGURATION.jsonProvider().parse(is, StandardCharsets.UTF_8.name());
+    }
+
+    /**
+     * @return the array at the path, or {@code null} if the document is empty or has nothing there
+     */
+    static JSONArray readArray(Object json, String path) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            Object responseObj = JsonPath.read(json, path);
+            if (responseObj instanceof JSONArray) {
+                return (JSONArray) responseObj;
+            } else {
+                throw new RuntimeException("Response Failed, at jsonpath = " + path + " should be a json array or absent");
+            }
+        } catch (PathNotFoundException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,25 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.rest.interfaces.ArrayParamReader;
+
+/**
+ * Row of a child table: jsonpaths starting with {@code ../} are read from the parent element.
+ */
+class ChildParamReader implements ArrayParamReader {
+
+    static final String PARENT = "../";
+
+    private final ArrayParamReader parent;
+    private final ArrayParamReader row;
+
+    public ChildParamReader(ArrayParamReader parent, ArrayParamReader row) {
+        this.parent = parent;
+        this.row = row;
+    }
+
+    @Override
+    public Object read(int index, String path) {
+        return path != null && path.startsWith(PARENT) ? parent.read(index, path.substring(PARENT.length())) : row.read(index, path);
+    }
+
+}
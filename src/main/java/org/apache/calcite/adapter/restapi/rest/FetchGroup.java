@@ -0,0 +1,109 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Responses shared by the tables of a service that declare the same {@code fetchGroup}, and by child
+ * tables with their parent. Within one query, a request rendered identically by several of them is
+ * sent once, and its parsed document is read by each. Each scan of a table of the group registers
+ * as a reader of the query, and a document is dropped once as many reads of it were made, so that
+ * the documents held are those still to be read. A query scanning only one table of the group
+ * fetches without sharing.
+ */
+public class FetchGroup {
+
+    private final String name;
+    /** Documents of a query by its {@code DataContext}; kept at most until the query is no longer referenced. */
+    private final Map<Object, Query> queries = new WeakHashMap<>();
+
+    public FetchGroup(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Called by each scan of a table of the group in the query, before it reads a page.
+     */
+    public void addReader(Object query) {
+        synchronized (queries) {
+            queries.computeIfAbsent(query, key -> new Query()).readers++;
+        }
+    }
+
+    /**
+     * Document of the request in the query, fetched by the first table asking for it while the others
+     * wait. A failed fetch is not kept, so the next table asking sends the request again.
+     *
+     * @param query query the document is shared within, or {@code null} to fetch without sharing
+     * @return the document, {@code null} for an empty response, and whether it was fetched by this call
+     */
+    public Map.Entry<Object, Boolean> get(Object query, String request, Fetch fetch) throws IOException {
+        Query fetched;
+        Shared document;
+        boolean fetching = false;
+        synchronized (queries) {
+            fetched = query != null ? queries.get(query) : null;
+            if (fetched == null || fetched.readers < 2) {
+                document = null;
+            } else {
+                document = fetched.documents.get(request);
+                if (document == null) {
+                    document = new Shared();
+                    fetched.documents.put(request, document);
+                    fetching = true;
+                }
+                if (++document.reads >= fetched.readers) {
+                    fetched.documents.remove(request);
+                }
+            }
+        }
+        if (document == null) {
+            return new AbstractMap.SimpleImmutableEntry<>(fetch.fetch(), true);
+        }
+
+        if (fetching) {
+            try {
+                document.future.complete(fetch.fetch());
+            } catch (IOException | RuntimeException e) {
+                synchronized (queries) {
+                    fetched.documents.remove(request, document);
+                }
+                document.future.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            return new AbstractMap.SimpleImmutableEntry<>(document.future.join(), fetching);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private static class Query {
+        private final Map<String, Shared> documents = new HashMap<>();
+        private int readers;
+    }
+
+    private static class Shared {
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+        private int reads;
+    }
+
+    public interface Fetch {
+        Object fetch() throws IOException;
+    }
+
+}
@@ -1,6 +1,5 @@
 package org.apache.calcite.adapter.restapi.rest;
 
-import freemarker.template.TemplateModel;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.calcite.rel.type.RelDataType;
@@ -15,7 +14,9 @@ public class Field {
     private boolean isRequestParameter;
     private boolean isResponseParameter;
     private String jsonpath;
-    private TemplateModel requestValue;
+    private String format;
+    private Double selectivity;
+    private boolean sortable;
 
     public Field(String name, RestFieldType restFieldType, RelDataType relDataType) {
         this.name = name;
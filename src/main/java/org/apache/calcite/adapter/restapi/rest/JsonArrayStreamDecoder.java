@@ -0,0 +1,93 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decodes the elements of the array addressed by a plain {@code rootJsonpath} ({@code $}, {@code $.a.b},
+ * {@code $['a']}, optionally ending with {@code [*]}) one at a time, without building the whole document.
+ */
+public class JsonArrayStreamDecoder {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Pattern ROOT_PATH = Pattern.compile("\\$((?:\\.[A-Za-z_$][\\w$-]*|\\['[^']+'])*)(?:\\[\\*])?");
+    private static final Pattern SEGMENT = Pattern.compile("\\.([A-Za-z_$][\\w$-]*)|\\['([^']+)']");
+
+    private final String rootJsonpath;
+    private final List<String> segments;
+
+    private JsonArrayStreamDecoder(String rootJsonpath, List<String> segments) {
+        this.rootJsonpath = rootJsonpath;
+        this.segments = segments;
+    }
+
+    /**
+     * Returns a decoder for the path, or {@code null} if the path uses filters, wildcards or
+     * other features that require the full document.
+     */
+    public static JsonArrayStreamDecoder of(String rootJsonpath) {
+        if (rootJsonpath == null) {
+            return null;
+        }
+        Matcher matcher = ROOT_PATH.matcher(rootJsonpath.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        List<String> segments = new ArrayList<>();
+        Matcher segment = SEGMENT.matcher(matcher.group(1));
+        while (segment.find()) {
+            segments.add(segment.group(1) != null ? segment.group(1) : segment.group(2));
+        }
+        return new JsonArrayStreamDecoder(rootJsonpath, Collections.unmodifiableList(segments));
+    }
+
+    public void decode(InputStream inputStream, Consumer<Object> elementConsumer) throws IOException {
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() == null) {
+                return;
+            }
+            for (String segment : segments) {
+                if (!moveToField(parser, segment)) {
+                    return;
+                }
+            }
+
+            if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                return;
+            }
+            if (parser.currentToken() != JsonToken.START_ARRAY) {
+                throw new RuntimeException("Response Failed, at jsonpath = " + rootJsonpath + " should be a json array or absent");
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                elementConsumer.accept(OBJECT_MAPPER.readValue(parser, Object.class));
+            }
+        }
+    }
+
+    private static boolean moveToField(JsonParser parser, String name) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            if (name.equals(fieldName)) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,234 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.model.JsonBody;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import freemarker.template.TemplateBooleanModel;
+import freemarker.template.TemplateDateModel;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateNumberModel;
+import freemarker.template.TemplateScalarModel;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request body declared by {@code jsonBody}, written with a streaming JSON generator instead of a
+ * FreeMarker template. The part of the body that is the same for every page is written once per
+ * pass by {@link #prepare}; each page only prepends its {@code pageKey} and {@code offsetKey} fields.
+ */
+public class JsonRequestBody {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonBody spec;
+    private final boolean flat;
+    private final String pagePrefix;
+    private final String offsetPrefix;
+
+    public JsonRequestBody(JsonBody spec) {
+        String layout = spec.getFilterLayout() == null ? "dnf" : spec.getFilterLayout().trim().toLowerCase();
+        if (!layout.equals("dnf") && !layout.equals("flat")) {
+            throw new IllegalArgumentException("Unknown jsonBody filterLayout '" + spec.getFilterLayout() + "', expected flat or dnf");
+        }
+        this.spec = spec;
+        this.flat = layout.equals("flat");
+        this.pagePrefix = spec.getPageKey() != null ? quote(spec.getPageKey()) + ":" : null;
+        this.offsetPrefix = spec.getOffsetKey() != null ? quote(spec.getOffsetKey()) + ":" : null;
+    }
+
+    /**
+     * @return whether a criterion with the operator is written into the body when the filters have
+     *         {@code groups} OR groups; those that are not are left to Calcite
+     */
+    public boolean writes(String operator, int groups) {
+        if (flat) {
+            return groups == 1 && "=".equals(operator);
+        }
+        return groups == 1 ? spec.getWhereKey() != null || spec.getOrKey() != null : spec.getOrKey() != null;
+    }
+
+    /**
+     * Writes the fields that don't depend on the page.
+     *
+     * @param filters pushed criteria in disjunctive normal form, maps of {@code name}, {@code operator}
+     *                and {@code value}, as passed to templates as {@code filters}
+     * @param sort    sort keys, maps of {@code name}, {@code direction} and {@code nulls}, as passed to templates as {@code sort}
+     */
+    public Prepared prepare(String tableName, int limit, List<List<Map<String, TemplateModel>>> filters, List<Map<String, String>> sort, Collection<String> projects) {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            generator.writeStartObject();
+            if (spec.getNameKey() != null) {
+                generator.writeStringField(spec.getNameKey(), tableName);
+            }
+            if (spec.getLimitKey() != null) {
+                generator.writeNumberField(spec.getLimitKey(), limit);
+            }
+            if (spec.getProjectsKey() != null && !projects.isEmpty()) {
+                generator.writeArrayFieldStart(spec.getProjectsKey());
+                for (String project : projects.stream().sorted().toArray(String[]::new)) {
+                    generator.writeString(project);
+                }
+                generator.writeEndArray();
+            }
+            if (spec.getSortKey() != null && !sort.isEmpty()) {
+                generator.writeArrayFieldStart(spec.getSortKey());
+                for (Map<String, String> key : sort) {
+                    generator.writeStartObject();
+                    generator.writeStringField("name", key.get("name"));
+                    generator.writeStringField("direction", key.get("direction"));
+                    generator.writeStringField("nulls", key.get("nulls"));
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+            }
+            if (flat) {
+                writeFlat(generator, filters);
+            } else {
+                writeDnf(generator, filters);
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Prepared(writer.toString(), limit);
+    }
+
+    /**
+     * Equality criteria of a single group as fields of the body. Other criteria and alternatives
+     * can't be expressed and are left to Calcite, which evaluates all filters on the rows anyway.
+     */
+    private void writeFlat(JsonGenerator generator, List<List<Map<String, TemplateModel>>> filters) throws IOException {
+        if (filters.size() != 1) {
+            return;
+        }
+        for (Map<String, TemplateModel> criterion : filters.get(0)) {
+            if ("=".equals(text(criterion.get("operator")))) {
+                generator.writeFieldName(text(criterion.get("name")));
+                writeValue(generator, criterion.get("value"));
+            }
+        }
+    }
+
+    /**
+     * The first group under {@code whereKey} and the others under {@code orKey}, or all groups under
+     * {@code orKey} if there is no {@code whereKey}. Alternatives without an {@code orKey} are not pushed.
+     */
+    private void writeDnf(JsonGenerator generator, List<List<Map<String, TemplateModel>>> filters) throws IOException {
+        if (filters.isEmpty() || filters.size() > 1 && spec.getOrKey() == null) {
+            return;
+        }
+        int first = 0;
+        if (spec.getWhereKey() != null) {
+            generator.writeFieldName(spec.getWhereKey());
+            writeGroup(generator, filters.get(0));
+            first = 1;
+        }
+        if (spec.getOrKey() != null && filters.size() > first) {
+            generator.writeArrayFieldStart(spec.getOrKey());
+            for (List<Map<String, TemplateModel>> group : filters.subList(first, filters.size())) {
+                writeGroup(generator, group);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private void writeGroup(JsonGenerator generator, List<Map<String, TemplateModel>> group) throws IOException {
+        generator.writeStartArray();
+        for (Map<String, TemplateModel> criterion : group) {
+            generator.writeStartObject();
+            generator.writeStringField("name", text(criterion.get("name")));
+            generator.writeStringField("operator", text(criterion.get("operator")));
+            generator.writeFieldName("value");
+            writeValue(generator, criterion.get("value"));
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Numbers and booleans are written as JSON numbers and booleans unless {@code quoteValues} is set;
+     * dates and times as in templates.
+     */
+    private void writeValue(JsonGenerator generator, TemplateModel value) throws IOException {
+        try {
+            if (value instanceof TemplateBooleanModel) {
+                boolean bool = ((TemplateBooleanModel) value).getAsBoolean();
+                if (spec.isQuoteValues()) {
+                    generator.writeString(Boolean.toString(bool));
+                } else {
+                    generator.writeBoolean(bool);
+                }
+            } else if (value instanceof TemplateNumberModel) {
+                Number number = ((TemplateNumberModel) value).getAsNumber();
+                String text = number instanceof BigDecimal ? ((BigDecimal) number).toPlainString() : number.toString();
+                if (spec.isQuoteValues()) {
+                    generator.writeString(text);
+                } else {
+                    generator.writeNumber(text);
+                }
+            } else if (value instanceof TemplateDateModel) {
+                generator.writeString(value.toString());
+            } else if (value != null) {
+                generator.writeString(text(value));
+            } else {
+                generator.writeNull();
+            }
+        } catch (TemplateModelException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private static String text(TemplateModel model) {
+        try {
+            return model instanceof TemplateScalarModel ? ((TemplateScalarModel) model).getAsString() : String.valueOf(model);
+        } catch (TemplateModelException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private static String quote(String text) {
+        return "\"" + new String(JsonStringEncoder.getInstance().quoteAsString(text)) + "\"";
+    }
+
+    /**
+     * Body of the pages of one pass.
+     */
+    public class Prepared {
+        private final String fixed;
+        private final int limit;
+
+        private Prepared(String fixed, int limit) {
+            this.fixed = fixed;
+            this.limit = limit;
+        }
+
+        public String render(int offset) {
+            if (pagePrefix == null && offsetPrefix == null) {
+                return fixed;
+            }
+            StringBuilder body = new StringBuilder(fixed.length() + 32).append('{');
+            if (pagePrefix != null) {
+                body.append(pagePrefix).append(limit > 0 ? offset / limit : 0);
+            }
+            if (offsetPrefix != null) {
+                body.append(pagePrefix != null ? "," : "").append(offsetPrefix).append(offset);
+            }
+            if (fixed.length() > 2) {
+                body.append(',').append(fixed, 1, fixed.length());
+            } else {
+                body.append('}');
+            }
+            return body.toString();
+        }
+    }
+
+}
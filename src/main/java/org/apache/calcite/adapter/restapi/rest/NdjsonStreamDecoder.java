@@ -0,0 +1,28 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Decodes newline-delimited JSON (JSON Lines) one record at a time, reading the stream only as far as the records are taken.
+ */
+public final class NdjsonStreamDecoder {
+
+    private static final ObjectReader READER = new ObjectMapper().readerFor(Object.class);
+
+    private NdjsonStreamDecoder() {
+    }
+
+    /**
+     * Records are maps and lists, as read by {@link JsonArrayStreamDecoder}. The iterator throws an
+     * unchecked exception if the stream fails or is not valid JSON.
+     */
+    public static Iterator<Object> records(InputStream inputStream) throws IOException {
+        return READER.readValues(inputStream);
+    }
+
+}
@@ -0,0 +1,284 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.freemarker.exception.ConvertException;
+import org.apache.calcite.adapter.restapi.model.Parameter;
+import org.apache.calcite.adapter.restapi.model.RequestData;
+import org.apache.calcite.adapter.restapi.model.Table;
+import org.apache.calcite.adapter.restapi.rest.cache.DiskResponseCache;
+import org.apache.calcite.adapter.restapi.rest.interfaces.ResponseBodyHandler;
+import org.apache.calcite.adapter.restapi.rest.interfaces.ResponseDecoder;
+import org.apache.calcite.adapter.restapi.rest.metrics.RequestEvent;
+import org.apache.calcite.adapter.restapi.rest.page.ColumnarPage;
+import org.apache.calcite.adapter.restapi.rest.page.MemoryBudget;
+import org.apache.calcite.adapter.restapi.rest.page.PageLayout;
+import org.apache.calcite.adapter.restapi.rest.profile.ScanProfile;
+import freemarker.template.TemplateModel;
+import net.minidev.json.JSONArray;
+import org.apache.calcite.rex.RexNode;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Fetches the pages of a table: renders the request of a page, sends it, or reads its response
+ * from the caches or the fetch group of the table, and decodes the rows of the response.
+ */
+class PageFetcher {
+
+    private static final int DEFAULT_DISK_CACHE_SIZE = 256;
+
+    private final Logger logger = LoggerFactory.getLogger(PageFetcher.class);
+
+    private final Table table;
+    private final Table parent;
+    private final FetchGroup fetchGroup;
+    private final RequestData connectionData;
+    private final RequestRenderer renderer;
+    private final RequestExecutor executor;
+    private final RevalidationCache revalidationCache;
+    private final DiskResponseCache diskCache;
+    private final ResponseDecoder responseDecoder;
+
+    PageFetcher(Table table, Table parent, FetchGroup fetchGroup, RequestData connectionData, ResponseFormat responseFormat, RequestRenderer renderer, RequestExecutor executor) {
+        this.table = table;
+        this.parent = parent;
+        this.fetchGroup = fetchGroup;
+        this.connectionData = connectionData;
+        this.renderer = renderer;
+        this.executor = executor;
+        this.revalidationCache = connectionData.getRevalidationCacheSize() > 0 ? new RevalidationCache(connectionData.getRevalidationCacheSize()) : null;
+        this.diskCache = connectionData.getDiskCacheDirectory() != null && !connectionData.getDiskCacheDirectory().isBlank()
+                ? DiskResponseCache.open(connectionData.getDiskCacheDirectory(), (connectionData.getDiskCacheSize() > 0 ? connectionData.getDiskCacheSize() : DEFAULT_DISK_CACHE_SIZE) * 1024L * 1024)
+                : null;
+        this.responseDecoder = newResponseDecoder(responseFormat);
+    }
+
+    /**
+     * Decoder of the rows of a response as it is read, or {@code null} if JSON responses are
+     * buffered and read with {@link ArrayReaderImpl}, or parsed once for a fetch group.
+     */
+    private ResponseDecoder newResponseDecoder(ResponseFormat responseFormat) {
+        if (fetchGroup != null) {
+            return null;
+        }
+        List<String> fieldPaths = table.getParameters() == null ? Collections.emptyList() : table.getParameters().stream()
+                .filter(parameter -> parameter.getType() != null && parameter.getType().isResponseParam())
+                .map(Parameter::getJsonpath)
+                .collect(Collectors.toList());
+        if (responseFormat == ResponseFormat.XML) {
+            return XmlStreamDecoder.of(table.getRootJsonpath(), fieldPaths);
+        }
+        if (responseFormat == ResponseFormat.PROTOBUF) {
+            return ProtobufStreamDecoder.of(table.getProtoDescriptorSet(), table.getProtoMessageType(), table.getRootJsonpath(), fieldPaths);
+        }
+        JsonArrayStreamDecoder streamDecoder = connectionData.getScanMemoryBudget() > 0 ? JsonArrayStreamDecoder.of(table.getRootJsonpath()) : null;
+        if (streamDecoder == null) {
+            return null;
+        }
+        return (body, rowConsumer) -> streamDecoder.decode(body, element -> rowConsumer.accept(new ArrayParamReaderImpl(element)));
+    }
+
+    /**
+     * Fetches the page at the offset from the address, or from the first address that answers if
+     * {@code address} is {@code null}.
+     *
+     * @return the address that answered and the page
+     */
+    Map.Entry<String, ColumnarPage> fetch(Object query, String address, List<List<RexNode>> filters, Map<String, TemplateModel> macros, int offset, Properties properties, Set<String> selectedProjectFields, PageLayout layout, MemoryBudget memoryBudget, ResponseBuffer buffer, ScanProfile profile) {
+        if (address == null) {
+            return executor.failover((tryingAddress, failover) ->
+                    doRequest(query, tryingAddress, filters, macros, offset, properties, selectedProjectFields, layout, memoryBudget, buffer, failover, profile));
+        } else {
+            try {
+                return doRequest(query, address, filters, macros, offset, properties, selectedProjectFields, layout, memoryBudget, buffer, false, profile);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private Map.Entry<String, ColumnarPage> doRequest(Object query, String address, List<List<RexNode>> filters, Map<String, TemplateModel> macros, int offset, Properties properties, Set<String> selectedProjectFields, PageLayout layout, MemoryBudget memoryBudget, ResponseBuffer buffer, boolean failover, ScanProfile profile) throws ConvertException, IOException {
+        RenderedRequest rendered = renderer.render(address, filters, macros, offset, properties, selectedProjectFields);
+        HttpUriRequestBase request = rendered.request;
+
+        if (table.getParameters() == null || table.getParameters().isEmpty()) {
+            return new AbstractMap.SimpleImmutableEntry<>(address, new ColumnarPage(layout, memoryBudget));
+        }
+        if (fetchGroup != null) {
+            return new AbstractMap.SimpleImmutableEntry<>(address, readShared(query, rendered, layout, memoryBudget, buffer, failover, profile));
+        }
+
+        ColumnarPage page = new ColumnarPage(layout, memoryBudget);
+
+        String cacheKey = revalidationCache != null ? revalidationKey(rendered, layout) : null;
+        RevalidationCache.Entry cached = cacheKey != null ? revalidationCache.get(cacheKey) : null;
+        if (cached != null) {
+            cached.applyTo(request);
+        }
+
+        RequestEvent event = executor.newEvent(request, failover);
+
+        byte[] stored = diskCache != null ? diskCache.get(rendered.key) : null;
+        DiskResponseCache.Capture capture = diskCache != null && stored == null ? diskCache.capture(rendered.key, connectionData.getDiskCacheTtl() * 1000L) : null;
+
+        HttpResponse response = null;
+        try {
+            ResponseBodyHandler bodyHandler = responseDecoder != null
+                    ? (body, contentLength) -> responseDecoder.decode(body, page::append)
+                    : buffer::readFrom;
+            if (stored != null) {
+                logger.debug("Response of '{}' found in the disk cache", request.getRequestUri());
+                event.setSource(RequestEvent.Source.DISK_CACHE);
+                event.setBytes(stored.length);
+                long started = System.nanoTime();
+                bodyHandler.handle(new ByteArrayInputStream(stored), stored.length);
+                event.setParseNanos(System.nanoTime() - started);
+            } else if (capture != null) {
+                response = executor.execute(request, (body, contentLength) -> bodyHandler.handle(capture.wrap(body), contentLength), event);
+            } else {
+                response = executor.execute(request, bodyHandler, event);
+            }
+            if (responseDecoder == null && (response == null || response.getCode() != HttpStatus.SC_NOT_MODIFIED)) {
+                long started = System.nanoTime();
+                JSONArray jsonArray = new ArrayReaderImpl(buffer).read(table.getRootJsonpath());
+                if (jsonArray != null) {
+                    for (Object o : jsonArray) {
+                        page.append(new ArrayParamReaderImpl(o));
+                    }
+                }
+                event.setParseNanos(System.nanoTime() - started);
+            }
+        } catch (IOException | RuntimeException e) {
+            page.close();
+            if (capture != null) {
+                capture.close();
+            }
+            event.setError(e);
+            executor.record(request, event, profile);
+            throw e;
+        }
+        if (response != null && response.getCode() == HttpStatus.SC_NOT_MODIFIED) {
+            page.close();
+            logger.debug("Response of '{}' not modified, reusing {} rows", request.getRequestUri(), cached.getPage().size());
+            event.setSource(RequestEvent.Source.NOT_MODIFIED);
+            event.setRows(cached.getPage().size());
+            executor.record(request, event, profile);
+            return new AbstractMap.SimpleImmutableEntry<>(address, cached.getPage().share(memoryBudget));
+        }
+        if (page.isSpilled()) {
+            logger.debug("Response of '{}' exceeded the scan memory budget, {} rows spilled to disk", request.getRequestUri(), page.size());
+        }
+        if (cacheKey != null && response != null) {
+            revalidationCache.put(cacheKey, response, page);
+        }
+        if (capture != null) {
+            capture.commit();
+        }
+        event.setRows(page.size());
+        executor.record(request, event, profile);
+
+        return new AbstractMap.SimpleImmutableEntry<>(address, page);
+    }
+
+    /**
+     * Key of a page kept by {@code revalidationCacheSize}: the request, with the digest of its
+     * rendered headers, so that a page fetched with one user's credentials is not revalidated, and
+     * reused, for another, and the columns the page holds.
+     */
+    static String revalidationKey(RenderedRequest rendered, PageLayout layout) {
+        return rendered.key + "\n" + layout.getFields().stream().map(Field::getName).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Rows of a fetch group table, read from the document of the request. The document is fetched
+     * once per query by the first table of the group rendering the request, and parsed once. Rows of
+     * a child table are read from the array at its {@code rootJsonpath} in each element of its parent.
+     * Shared documents are not kept by {@code revalidationCacheSize}.
+     */
+    private ColumnarPage readShared(Object query, RenderedRequest rendered, PageLayout layout, MemoryBudget memoryBudget, ResponseBuffer buffer, boolean failover, ScanProfile profile) throws IOException {
+        HttpUriRequestBase request = rendered.request;
+        RequestEvent event = executor.newEvent(request, failover);
+
+        ColumnarPage page = new ColumnarPage(layout, memoryBudget);
+        try {
+            Map.Entry<Object, Boolean> document = fetchGroup.get(query, rendered.key, () -> fetchDocument(rendered, buffer, event));
+            if (!document.getValue()) {
+                logger.debug("Response of '{}' shared in fetch group '{}'", request.getRequestUri(), fetchGroup.getName());
+                event.setSource(RequestEvent.Source.SHARED);
+            }
+            long started = System.nanoTime();
+            if (parent == null) {
+                JSONArray rows = ArrayReaderImpl.readArray(document.getKey(), table.getRootJsonpath());
+                if (rows != null) {
+                    for (Object o : rows) {
+                        page.append(new ArrayParamReaderImpl(o));
+                    }
+                }
+            } else {
+                JSONArray elements = ArrayReaderImpl.readArray(document.getKey(), parent.getRootJsonpath());
+                if (elements != null) {
+                    for (Object element : elements) {
+                        JSONArray rows = ArrayReaderImpl.readArray(element, table.getRootJsonpath());
+                        if (rows != null) {
+                            for (Object o : rows) {
+                                page.append(new ChildParamReader(new ArrayParamReaderImpl(element), new ArrayParamReaderImpl(o)));
+                            }
+                        }
+                    }
+                    page.setElements(elements.size());
+                }
+            }
+            event.setParseNanos(System.nanoTime() - started);
+        } catch (IOException | RuntimeException e) {
+            page.close();
+            event.setError(e);
+            executor.record(request, event, profile);
+            throw e;
+        }
+        event.setRows(page.size());
+        executor.record(request, event, profile);
+        return page;
+    }
+
+    /**
+     * @return the parsed response document, or {@code null} if the response is empty
+     */
+    private Object fetchDocument(RenderedRequest rendered, ResponseBuffer buffer, RequestEvent event) throws IOException {
+        byte[] stored = diskCache != null ? diskCache.get(rendered.key) : null;
+        if (stored != null) {
+            logger.debug("Response of '{}' found in the disk cache", rendered.request.getRequestUri());
+            event.setSource(RequestEvent.Source.DISK_CACHE);
+            event.setBytes(stored.length);
+            return ArrayReaderImpl.parse(new ByteArrayInputStream(stored));
+        }
+
+        if (diskCache != null) {
+            try (DiskResponseCache.Capture capture = diskCache.capture(rendered.key, connectionData.getDiskCacheTtl() * 1000L)) {
+                executor.execute(rendered.request, (body, contentLength) -> buffer.readFrom(capture.wrap(body), contentLength), event);
+                capture.commit();
+            }
+        } else {
+            executor.execute(rendered.request, buffer::readFrom, event);
+        }
+        if (buffer.isEmpty()) {
+            return null;
+        }
+        try (InputStream is = buffer.getInputStream()) {
+            return ArrayReaderImpl.parse(is);
+        }
+    }
+
+}
@@ -0,0 +1,129 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.rest.interfaces.RestIterator;
+import org.apache.calcite.adapter.restapi.rest.page.ColumnarPage;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pass over a scan split into sub-ranges: the pass of every sub-range pages through the service
+ * on its own thread, and their pages are handed out in the order they arrive. At most two pages
+ * per sub-range wait to be read, so a slow reader holds the passes back instead of letting pages
+ * pile up. Nothing is requested until the first page is asked for.
+ */
+public class PartitionedPass implements RestIterator {
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "rest-partitioned-scan");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final List<RestIterator> passes;
+    private final BlockingQueue<Item> queue;
+    private int running;
+    private boolean started;
+    private volatile boolean closed;
+
+    public PartitionedPass(List<RestIterator> passes) {
+        this.passes = passes;
+        this.queue = new ArrayBlockingQueue<>(passes.size() * 2);
+        this.running = passes.size();
+    }
+
+    @Override
+    public ColumnarPage getMore() {
+        if (!started) {
+            started = true;
+            passes.forEach(pass -> EXECUTOR.execute(() -> read(pass)));
+        }
+        while (running > 0 && !closed) {
+            Item item;
+            try {
+                item = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new RuntimeException("Interrupted while waiting for a partition of the scan", e);
+            }
+            if (item.error != null) {
+                close();
+                throw item.error;
+            }
+            if (item.page == null) {
+                running--;
+                continue;
+            }
+            return item.page;
+        }
+        return ColumnarPage.empty();
+    }
+
+    /**
+     * Stops the passes once their current requests complete and closes the pages not read yet.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        drain();
+    }
+
+    private void read(RestIterator pass) {
+        try {
+            ColumnarPage page;
+            while (!closed && (page = pass.getMore()).size() > 0) {
+                if (!offer(new Item(page, null))) {
+                    page.close();
+                    return;
+                }
+            }
+            offer(new Item(null, null));
+        } catch (RuntimeException e) {
+            offer(new Item(null, e));
+        } finally {
+            pass.close();
+        }
+    }
+
+    private boolean offer(Item item) {
+        try {
+            while (!closed) {
+                if (queue.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (closed) {
+                        drain();
+                    }
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private void drain() {
+        Item item;
+        while ((item = queue.poll()) != null) {
+            if (item.page != null) {
+                item.page.close();
+            }
+        }
+    }
+
+    private static class Item {
+        private final ColumnarPage page;
+        private final RuntimeException error;
+
+        Item(ColumnarPage page, RuntimeException error) {
+            this.page = page;
+            this.error = error;
+        }
+    }
+
+}
@@ -0,0 +1,272 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.rest.interfaces.ArrayParamReader;
+import org.apache.calcite.adapter.restapi.rest.interfaces.ResponseDecoder;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.DescriptorValidationException;
+import com.google.protobuf.Descriptors.EnumValueDescriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Descriptors.FileDescriptor;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.Message;
+import com.google.protobuf.TextFormat;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Decodes binary protobuf responses described by a descriptor set file
+ * ({@code protoc --include_imports --descriptor_set_out=...}).
+ * The response is a message of {@code messageType} with the rows in the repeated message field at
+ * {@code rowPath} ({@code items}, {@code data.items}), or, if {@code rowPath} is empty or {@code $},
+ * a sequence of length-delimited row messages of {@code messageType}. Row messages are read one at a
+ * time from the stream and discarded once their fields are read; the enclosing messages are never built.
+ * Fields are dotted paths within the row message ({@code id}, {@code address.city}).
+ */
+public class ProtobufStreamDecoder implements ResponseDecoder {
+
+    /** Message types of the descriptor sets by file, until a service using the file is released. */
+    private static final Map<String, Map<String, Descriptor>> DESCRIPTOR_SETS = new HashMap<>();
+
+    private final FieldDescriptor[] rowPath;
+    private final Descriptor rowType;
+    private final Map<String, FieldDescriptor[]> fields;
+
+    private ProtobufStreamDecoder(FieldDescriptor[] rowPath, Descriptor rowType, Map<String, FieldDescriptor[]> fields) {
+        this.rowPath = rowPath;
+        this.rowType = rowType;
+        this.fields = fields;
+    }
+
+    public static ProtobufStreamDecoder of(String descriptorSetFile, String messageType, String rowPath, Collection<String> fieldPaths) {
+        if (descriptorSetFile == null || descriptorSetFile.isBlank() || messageType == null || messageType.isBlank()) {
+            throw new IllegalArgumentException("protobuf tables require protoDescriptorSet and protoMessageType");
+        }
+        Descriptor messageDescriptor = loadMessageTypes(descriptorSetFile.trim()).get(messageType.trim());
+        if (messageDescriptor == null) {
+            throw new IllegalArgumentException("Message type '" + messageType + "' not found in " + descriptorSetFile);
+        }
+
+        List<FieldDescriptor> path = new ArrayList<>();
+        Descriptor rowType = messageDescriptor;
+        for (String name : segments(rowPath)) {
+            FieldDescriptor field = rowType.findFieldByName(name);
+            if (field == null || field.getJavaType() != FieldDescriptor.JavaType.MESSAGE) {
+                throw new IllegalArgumentException("rootJsonpath '" + rowPath + "' should be a path of message fields of " + messageType);
+            }
+            path.add(field);
+            rowType = field.getMessageType();
+        }
+        if (!path.isEmpty() && !path.get(path.size() - 1).isRepeated()) {
+            throw new IllegalArgumentException("rootJsonpath '" + rowPath + "' should end with a repeated message field of " + messageType);
+        }
+
+        Map<String, FieldDescriptor[]> fields = new HashMap<>();
+        for (String fieldPath : fieldPaths) {
+            if (fieldPath == null) {
+                continue;
+            }
+            List<FieldDescriptor> chain = new ArrayList<>();
+            Descriptor type = rowType;
+            for (String name : segments(fieldPath)) {
+                FieldDescriptor field = type != null ? type.findFieldByName(name) : null;
+                if (field == null) {
+                    throw new IllegalArgumentException("Field '" + fieldPath + "' not found in " + rowType.getFullName());
+                }
+                chain.add(field);
+                type = field.getJavaType() == FieldDescriptor.JavaType.MESSAGE ? field.getMessageType() : null;
+            }
+            fields.put(fieldPath, chain.toArray(new FieldDescriptor[0]));
+        }
+        return new ProtobufStreamDecoder(path.toArray(new FieldDescriptor[0]), rowType, fields);
+    }
+
+    @Override
+    public void decode(InputStream body, Consumer<ArrayParamReader> rowConsumer) throws IOException {
+        CodedInputStream input = CodedInputStream.newInstance(body);
+        if (rowPath.length == 0) {
+            while (!input.isAtEnd()) {
+                int limit = input.pushLimit(input.readRawVarint32());
+                rowConsumer.accept(readRow(input));
+                input.popLimit(limit);
+            }
+            return;
+        }
+        decode(input, 0, rowConsumer);
+    }
+
+    private void decode(CodedInputStream input, int depth, Consumer<ArrayParamReader> rowConsumer) throws IOException {
+        FieldDescriptor target = rowPath[depth];
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            if (WireFormat.getTagFieldNumber(tag) != target.getNumber() || WireFormat.getTagWireType(tag) != WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+                input.skipField(tag);
+                continue;
+            }
+            int limit = input.pushLimit(input.readRawVarint32());
+            if (depth == rowPath.length - 1) {
+                rowConsumer.accept(readRow(input));
+            } else {
+                decode(input, depth + 1, rowConsumer);
+            }
+            input.popLimit(limit);
+        }
+    }
+
+    private ArrayParamReader readRow(CodedInputStream input) throws IOException {
+        Message row = DynamicMessage.newBuilder(rowType).mergeFrom(input).build();
+        return (index, path) -> {
+            FieldDescriptor[] chain = fields.get(path);
+            return chain != null ? value(row, chain) : null;
+        };
+    }
+
+    /**
+     * Value of the field, or {@code null} if it or a message on its path is not set. Scalar fields
+     * without presence read as their default value, as protobuf does not tell them apart.
+     */
+    private static Object value(Message row, FieldDescriptor[] chain) {
+        Message message = row;
+        for (int i = 0; i < chain.length - 1; i++) {
+            if (chain[i].isRepeated() || !message.hasField(chain[i])) {
+                return null;
+            }
+            message = (Message) message.getField(chain[i]);
+        }
+        FieldDescriptor leaf = chain[chain.length - 1];
+        if (leaf.isRepeated()) {
+            List<?> values = (List<?>) message.getField(leaf);
+            return values.isEmpty() ? null : values.stream().map(ProtobufStreamDecoder::toValue).map(String::valueOf).collect(Collectors.joining(",", "[", "]"));
+        }
+        if (leaf.hasPresence() && !message.hasField(leaf)) {
+            return null;
+        }
+        return toValue(message.getField(leaf));
+    }
+
+    /**
+     * Enums read as their names, bytes as base64, {@code google.protobuf.Timestamp} as epoch
+     * milliseconds, wrapper types as the wrapped value and other messages as text format.
+     */
+    private static Object toValue(Object value) {
+        if (value instanceof EnumValueDescriptor) {
+            return ((EnumValueDescriptor) value).getName();
+        }
+        if (value instanceof ByteString) {
+            return Base64.getEncoder().encodeToString(((ByteString) value).toByteArray());
+        }
+        if (value instanceof Message) {
+            Message message = (Message) value;
+            Descriptor type = message.getDescriptorForType();
+            if (type.getFullName().equals("google.protobuf.Timestamp")) {
+                long seconds = (Long) message.getField(type.findFieldByName("seconds"));
+                int nanos = (Integer) message.getField(type.findFieldByName("nanos"));
+                return seconds * 1000 + nanos / 1_000_000;
+            }
+            if (type.getFile().getPackage().equals("google.protobuf") && type.getName().endsWith("Value") && type.getFields().size() == 1) {
+                return toValue(message.getField(type.getFields().get(0)));
+            }
+            return TextFormat.shortDebugString(message);
+        }
+        return value;
+    }
+
+    private static List<String> segments(String path) {
+        String trimmed = path == null ? "" : path.trim();
+        if (trimmed.startsWith("$")) {
+            trimmed = trimmed.substring(1);
+        }
+        List<String> segments = new ArrayList<>();
+        for (String segment : trimmed.split("\\.")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Drops the loaded descriptor sets of the files, e.g. those of a service replaced by a reload; a
+     * later decoder of the same file reads it again.
+     */
+    public static synchronized void evict(Collection<String> descriptorSetFiles) {
+        descriptorSetFiles.forEach(file -> DESCRIPTOR_SETS.remove(file.trim()));
+    }
+
+    /**
+     * Message types of the descriptor set by their full names, loaded once per file.
+     */
+    private static synchronized Map<String, Descriptor> loadMessageTypes(String descriptorSetFile) {
+        Map<String, Descriptor> messageTypes = DESCRIPTOR_SETS.get(descriptorSetFile);
+        if (messageTypes != null) {
+            return messageTypes;
+        }
+
+        FileDescriptorSet descriptorSet;
+        try {
+            descriptorSet = FileDescriptorSet.parseFrom(Files.readAllBytes(Paths.get(descriptorSetFile)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read protobuf descriptor set " + descriptorSetFile, e);
+        }
+        Map<String, FileDescriptorProto> protos = new HashMap<>();
+        for (FileDescriptorProto proto : descriptorSet.getFileList()) {
+            protos.put(proto.getName(), proto);
+        }
+
+        Map<String, FileDescriptor> built = new HashMap<>();
+        messageTypes = new HashMap<>();
+        for (FileDescriptorProto proto : descriptorSet.getFileList()) {
+            for (Descriptor descriptor : build(proto, protos, built).getMessageTypes()) {
+                addMessageTypes(descriptor, messageTypes);
+            }
+        }
+        DESCRIPTOR_SETS.put(descriptorSetFile, messageTypes);
+        return messageTypes;
+    }
+
+    private static FileDescriptor build(FileDescriptorProto proto, Map<String, FileDescriptorProto> protos, Map<String, FileDescriptor> built) {
+        FileDescriptor file = built.get(proto.getName());
+        if (file != null) {
+            return file;
+        }
+        List<FileDescriptor> dependencies = new ArrayList<>();
+        for (String dependency : proto.getDependencyList()) {
+            FileDescriptorProto dependencyProto = protos.get(dependency);
+            if (dependencyProto == null) {
+                throw new IllegalArgumentException("Protobuf descriptor set misses " + dependency + ", imported by " + proto.getName() + "; generate it with --include_imports");
+            }
+            dependencies.add(build(dependencyProto, protos, built));
+        }
+        try {
+            file = FileDescriptor.buildFrom(proto, dependencies.toArray(new FileDescriptor[0]));
+        } catch (DescriptorValidationException e) {
+            throw new IllegalArgumentException("Invalid protobuf descriptor " + proto.getName() + ": " + e.getMessage(), e);
+        }
+        built.put(proto.getName(), file);
+        return file;
+    }
+
+    private static void addMessageTypes(Descriptor descriptor, Map<String, Descriptor> messageTypes) {
+        messageTypes.put(descriptor.getFullName(), descriptor);
+        for (Descriptor nested : descriptor.getNestedTypes()) {
+            addMessageTypes(nested, messageTypes);
+        }
+    }
+
+}
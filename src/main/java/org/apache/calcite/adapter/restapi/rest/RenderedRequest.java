@@ -0,0 +1,22 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+
+/**
+ * A request rendered from the templates of a table, with the key identifying it in caches.
+ */
+class RenderedRequest {
+
+    final HttpUriRequestBase request;
+    /**
+     * Method, URI, a SHA-256 digest of the rendered headers and body; identical requests have
+     * identical keys, and requests sent with other credentials in their headers have other keys.
+     */
+    final String key;
+
+    RenderedRequest(HttpUriRequestBase request, String key) {
+        this.request = request;
+        this.key = key;
+    }
+
+}
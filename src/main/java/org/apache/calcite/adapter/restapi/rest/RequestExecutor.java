@@ -0,0 +1,148 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.rest.interfaces.ResponseBodyHandler;
+import org.apache.calcite.adapter.restapi.rest.metrics.RequestEvent;
+import org.apache.calcite.adapter.restapi.rest.metrics.RestMetrics;
+import org.apache.calcite.adapter.restapi.rest.profile.ScanProfile;
+import com.google.common.base.Joiner;
+import com.google.common.io.CountingInputStream;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends the requests of a table over the connections of its service, and records them in the
+ * metrics of the table and the profile of the scan.
+ */
+class RequestExecutor {
+
+    /**
+     * One attempt of a request at an address; an {@link IOException} makes the next address be tried.
+     */
+    interface Attempt<T> {
+        T attempt(String address, boolean failover) throws IOException;
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(RequestExecutor.class);
+
+    private final ServiceConnections connections;
+    private final RestMetrics metrics;
+    private final String tableName;
+
+    RequestExecutor(ServiceConnections connections, RestMetrics metrics, String tableName) {
+        this.connections = connections;
+        this.metrics = metrics;
+        this.tableName = tableName;
+    }
+
+    ServiceConnections getConnections() {
+        return connections;
+    }
+
+    /**
+     * Tries the addresses of the service in turn until one answers.
+     */
+    <T> T failover(Attempt<T> attempt) {
+        List<String> errors = new ArrayList<>();
+        for (String address : connections.getAddresses()) {
+            try {
+                T result = attempt.attempt(address, !errors.isEmpty());
+                connections.succeeded(address);
+                return result;
+            } catch (IOException e) {
+                connections.failed(address);
+                errors.add(e.getMessage());
+                logger.warn(e.getMessage());
+            }
+        }
+        throw new RuntimeException("All requests attempts are failed. \n" + Joiner.on(", \n").join(errors));
+    }
+
+    RequestEvent newEvent(HttpUriRequestBase request, boolean failover) {
+        RequestEvent event = new RequestEvent(metrics.getService(), tableName, getUri(request));
+        event.setFailover(failover);
+        return event;
+    }
+
+    void record(HttpUriRequestBase request, RequestEvent event, ScanProfile profile) {
+        metrics.record(event);
+        if (profile != null) {
+            profile.add(request, event);
+        }
+    }
+
+    /**
+     * Executes the request and hands a successful response body to {@code bodyHandler}.
+     * A {@code 304 Not Modified} answer to a conditional request has no body and is returned as is.
+     * Timings, status and the number of body bytes are recorded in {@code event}.
+     */
+    HttpResponse execute(HttpUriRequestBase request, ResponseBodyHandler bodyHandler, RequestEvent event) throws IOException {
+        logger.debug("Trying: '{}'", request.getRequestUri());
+        boolean conditional = request.containsHeader(HttpHeaders.IF_NONE_MATCH) || request.containsHeader(HttpHeaders.IF_MODIFIED_SINCE);
+
+        long started = System.nanoTime();
+        HttpClientContext context = HttpClientContext.create();
+        connections.begin();
+        try {
+            return connections.getHttpClient().execute(request, context, response -> {
+                event.setFirstByteNanos(System.nanoTime() - started);
+                Long connected = (Long) context.getAttribute(ServiceConnections.CONNECTED_AT);
+                if (connected != null) {
+                    event.setConnectNanos(connected - started);
+                }
+
+                int statusCode = response.getCode();
+                event.setStatusCode(statusCode);
+                if (conditional && statusCode == HttpStatus.SC_NOT_MODIFIED) {
+                    return response;
+                }
+                if (!isSuccessfulResponse(statusCode)) {
+                    throw new RuntimeException("Request Failed, status code (" + statusCode + ")");
+                }
+
+                HttpEntity entity = response.getEntity();
+                if (entity == null) {
+                    throw new IOException("Empty response entity");
+                }
+
+                try (CountingInputStream is = new CountingInputStream(entity.getContent())) {
+                    long bodyStarted = System.nanoTime();
+                    bodyHandler.handle(is, entity.getContentLength());
+                    event.setParseNanos(System.nanoTime() - bodyStarted);
+                    event.setBytes(is.getCount());
+                }
+                return response;
+            });
+        } finally {
+            connections.end();
+            event.setTotalNanos(System.nanoTime() - started);
+        }
+    }
+
+    HttpResponse execute(HttpUriRequestBase request, ResponseBodyHandler bodyHandler) throws IOException {
+        return execute(request, bodyHandler, newEvent(request, false));
+    }
+
+    static String getUri(HttpUriRequestBase request) {
+        try {
+            return request.getUri().toString();
+        } catch (URISyntaxException e) {
+            return request.getRequestUri();
+        }
+    }
+
+    static boolean isSuccessfulResponse(int statusCode) {
+        return (statusCode - 200 >= 0) && (statusCode - 200 < 100);
+    }
+
+}
@@ -0,0 +1,359 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.freemarker.CalendarDate;
+import org.apache.calcite.adapter.restapi.freemarker.FreeMarkerEngine;
+import org.apache.calcite.adapter.restapi.freemarker.exception.ConvertException;
+import org.apache.calcite.adapter.restapi.model.Aggregation;
+import org.apache.calcite.adapter.restapi.model.Header;
+import org.apache.calcite.adapter.restapi.model.RequestData;
+import org.apache.calcite.adapter.restapi.rest.exception.ConvertFiltersException;
+import com.google.common.hash.Hashing;
+import freemarker.template.SimpleNumber;
+import freemarker.template.SimpleScalar;
+import freemarker.template.TemplateBooleanModel;
+import freemarker.template.TemplateDateModel;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.utility.DeepUnwrap;
+import org.apache.calcite.config.CalciteConnectionProperty;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.SqlOperator;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.entity.GzipCompressingEntity;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.Method;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Renders the requests of a table from the templates of its service. The template context is
+ * shared by the tables of a schema, and snapshot refreshes build requests from a background
+ * thread, so a request is rendered while holding the context.
+ */
+class RequestRenderer {
+
+    /** A FreeMarker interpolation or directive using the {@code sort} macro. */
+    private static final Pattern SORT_REFERENCE = reference("sort");
+    /** A FreeMarker interpolation or directive using the {@code filters} macro. */
+    private static final Pattern FILTERS_REFERENCE = reference("filters");
+
+    private final Map<String, TemplateModel> commonContext;
+    private final RequestData connectionData;
+    private final JsonRequestBody jsonBody;
+    private final String requestName;
+    private final Function<RexNode, Field> pushableField;
+    /** Body of the latest pass, reused by its pages; guarded by {@code commonContext}. */
+    private PreparedBody preparedBody;
+
+    /**
+     * @param requestName   name the requests are rendered with
+     * @param pushableField request parameter a condition is rendered for, or {@code null}
+     */
+    RequestRenderer(Map<String, TemplateModel> commonContext, RequestData connectionData, String requestName, Function<RexNode, Field> pushableField) {
+        this.commonContext = commonContext;
+        this.connectionData = connectionData;
+        this.jsonBody = connectionData.getJsonBody() != null ? new JsonRequestBody(connectionData.getJsonBody()) : null;
+        this.requestName = requestName;
+        this.pushableField = pushableField;
+    }
+
+    /**
+     * @return whether the requests render the {@code sort} macro: {@code sortKey} of {@code jsonBody},
+     *         or a use of it in the URL, body or header templates
+     */
+    boolean rendersSort() {
+        if (jsonBody != null && connectionData.getJsonBody().getSortKey() != null) {
+            return true;
+        }
+        return references(connectionData, SORT_REFERENCE, connectionData.getUrl(), jsonBody == null ? connectionData.getBody() : null);
+    }
+
+    /**
+     * @return whether the requests render a pushable criterion with the operator when the filters have
+     *         {@code groups} OR groups: {@code jsonBody} writes it in its layout, or the URL, body or a
+     *         header template uses the {@code filters} macro
+     */
+    boolean rendersCriterion(String operator, int groups) {
+        return rendersCriterion(connectionData, jsonBody, operator, groups);
+    }
+
+    /**
+     * @return whether the requests render the bounds of a range, as a partitioned scan requests each
+     *         sub-range with its own bounds
+     */
+    static boolean rendersRanges(RequestData connectionData) {
+        JsonRequestBody jsonBody = connectionData.getJsonBody() != null ? new JsonRequestBody(connectionData.getJsonBody()) : null;
+        return Stream.of(">", ">=", "<", "<=").allMatch(operator -> rendersCriterion(connectionData, jsonBody, operator, 1));
+    }
+
+    private static boolean rendersCriterion(RequestData connectionData, JsonRequestBody jsonBody, String operator, int groups) {
+        if (jsonBody != null && jsonBody.writes(operator, groups)) {
+            return true;
+        }
+        return references(connectionData, FILTERS_REFERENCE, connectionData.getUrl(), jsonBody == null ? connectionData.getBody() : null);
+    }
+
+    /**
+     * @return whether the requests of the {@code aggregation} endpoint render the {@code filters}
+     *         macro in its URL or body, or in a header template
+     */
+    boolean rendersAggregationFilters(Aggregation aggregation) {
+        return references(connectionData, FILTERS_REFERENCE, aggregation.getUrl() != null ? aggregation.getUrl() : connectionData.getUrl(), aggregation.getBody());
+    }
+
+    private static boolean references(RequestData connectionData, Pattern macro, String url, String body) {
+        List<String> templates = new ArrayList<>();
+        templates.add(url);
+        templates.add(body);
+        if (connectionData.getHeaders() != null) {
+            connectionData.getHeaders().forEach(header -> templates.add(header.getValue()));
+        }
+        return templates.stream().anyMatch(template -> template != null && macro.matcher(template).find());
+    }
+
+    private static Pattern reference(String macro) {
+        return Pattern.compile("(\\$\\{|<#)[^}>]*\\b" + macro + "\\b");
+    }
+
+    /**
+     * {@code macros} are only visible to this request.
+     */
+    RenderedRequest render(String address, List<List<RexNode>> filters, Map<String, TemplateModel> macros, int offset, Properties properties, Set<String> selectedProjectFields) throws ConvertException {
+        return render(address, connectionData.getMethod(), connectionData.getUrl(), connectionData.getBody(), jsonBody, filters, macros, offset, properties, selectedProjectFields);
+    }
+
+    RenderedRequest render(String address, String method, String url, String bodyTemplate, JsonRequestBody jsonBody, List<List<RexNode>> filters, Map<String, TemplateModel> macros, int offset, Properties properties, Set<String> selectedProjectFields) throws ConvertException {
+        synchronized (commonContext) {
+            List<List<Map<String, TemplateModel>>> criteria = fillCommonContext(filters, offset, properties, selectedProjectFields);
+            commonContext.putAll(macros);
+            try {
+                HttpUriRequestBase request;
+                String URI = address + FreeMarkerEngine.getInstance().process(url, commonContext);
+                if (Objects.requireNonNull(Method.normalizedValueOf(method)) == Method.POST) {
+                    request = new HttpPost(URI);
+                } else {
+                    request = new HttpGet(URI);
+                }
+
+                request.setHeader("Content-type", "application/json");
+                String body = null;
+                if (jsonBody != null) {
+                    body = renderJsonBody(jsonBody, filters, criteria, macros, selectedProjectFields, offset);
+                } else if (bodyTemplate != null) {
+                    body = FreeMarkerEngine.getInstance().process(bodyTemplate, commonContext);
+                }
+                if (body != null) {
+                    request.setEntity(buildEntity(body));
+                }
+                String headers = configure(request);
+
+                return new RenderedRequest(request, request.getMethod() + " " + URI
+                        + (headers.isEmpty() ? "" : "\nheaders " + Hashing.sha256().hashString(headers, StandardCharsets.UTF_8))
+                        + (body != null ? "\n" + body : ""));
+            } finally {
+                commonContext.keySet().removeAll(macros.keySet());
+            }
+        }
+    }
+
+    /**
+     * GET request of the url, rendered with {@code name} and the values left in the context.
+     */
+    HttpGet renderGet(String address, String url, String name) {
+        synchronized (commonContext) {
+            commonContext.put("name", new SimpleScalar(name));
+            HttpGet request = new HttpGet(address + FreeMarkerEngine.getInstance().process(url, commonContext));
+            configure(request);
+            return request;
+        }
+    }
+
+    /**
+     * The pages of a pass are requested with the same filter and projection lists, so the body
+     * prepared for them is kept until a request with other lists is built.
+     */
+    @SuppressWarnings("unchecked")
+    private String renderJsonBody(JsonRequestBody jsonBody, List<List<RexNode>> filters, List<List<Map<String, TemplateModel>>> criteria, Map<String, TemplateModel> macros, Set<String> selectedProjectFields, int offset) {
+        if (preparedBody == null || preparedBody.filters != filters || preparedBody.macros != macros || preparedBody.projects != selectedProjectFields) {
+            List<Map<String, String>> sort;
+            try {
+                sort = macros.containsKey("sort") ? (List<Map<String, String>>) DeepUnwrap.unwrap(macros.get("sort")) : Collections.emptyList();
+            } catch (TemplateModelException e) {
+                throw ConvertException.buildConvertException(e);
+            }
+            preparedBody = new PreparedBody(filters, macros, selectedProjectFields,
+                    jsonBody.prepare(requestName, connectionData.getPageSize(), criteria, sort, selectedProjectFields));
+        }
+        return preparedBody.body.render(offset);
+    }
+
+    private static class PreparedBody {
+        private final List<List<RexNode>> filters;
+        private final Map<String, TemplateModel> macros;
+        private final Set<String> projects;
+        private final JsonRequestBody.Prepared body;
+
+        PreparedBody(List<List<RexNode>> filters, Map<String, TemplateModel> macros, Set<String> projects, JsonRequestBody.Prepared body) {
+            this.filters = filters;
+            this.macros = macros;
+            this.projects = projects;
+            this.body = body;
+        }
+    }
+
+    /**
+     * @return the rendered headers, one {@code name: value} line each
+     */
+    private String configure(HttpUriRequestBase request) {
+        request.setConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(connectionData.getConnectionTimeout(), TimeUnit.SECONDS)
+                .setResponseTimeout(connectionData.getResponseTimeout(), TimeUnit.SECONDS).build());
+
+        StringBuilder headers = new StringBuilder();
+        if (connectionData.getHeaders() != null) {
+            for (Header header : connectionData.getHeaders()) {
+                String value = FreeMarkerEngine.getInstance().process(header.getValue(), commonContext);
+                request.setHeader(header.getKey(), value);
+                headers.append(header.getKey()).append(": ").append(value).append('\n');
+            }
+        }
+        return headers.toString();
+    }
+
+    private HttpEntity buildEntity(String body) {
+        HttpEntity entity = new StringEntity(body);
+        int threshold = connectionData.getRequestCompressionThreshold();
+        if (threshold > 0 && entity.getContentLength() >= threshold) {
+            return new GzipCompressingEntity(entity);
+        }
+        return entity;
+    }
+
+    /**
+     * @return the pushed criteria, as put into the context as {@code filters}
+     */
+    private List<List<Map<String, TemplateModel>>> fillCommonContext(List<List<RexNode>> filters, int offset, Properties properties, Set<String> selectedProjectFields) {
+        commonContext.put("offset", new SimpleNumber(offset));
+        commonContext.put("limit", new SimpleNumber(connectionData.getPageSize()));
+        commonContext.put("name", new SimpleScalar(requestName));
+
+        addPropertiesToCommonContext(properties);
+        if (!selectedProjectFields.isEmpty()) {
+            addSelectedFieldsToCommonContext(selectedProjectFields);
+        }
+        if (!filters.isEmpty()) {
+            return addFiltersToCommonContext(filters);
+        }
+        commonContext.remove("filters");
+        return Collections.emptyList();
+    }
+
+    private void addPropertiesToCommonContext(Properties properties) {
+        for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+            if (!entry.getKey().toString().equals(CalciteConnectionProperty.MODEL.camelName()) &&
+                    !entry.getKey().toString().equals(CalciteConnectionProperty.FUN.camelName()) &&
+                    !entry.getKey().toString().equals(CalciteConnectionProperty.CASE_SENSITIVE.camelName()) &&
+                    !entry.getKey().toString().equals(CalciteConnectionProperty.QUOTED_CASING.camelName()) &&
+                    !entry.getKey().toString().equals(CalciteConnectionProperty.UNQUOTED_CASING.camelName())) {
+                commonContext.put(entry.getKey().toString(), new SimpleScalar(entry.getValue().toString()));
+            }
+        }
+    }
+
+    private void addSelectedFieldsToCommonContext(Set<String> selectedProjectFields) throws ConvertException{
+        commonContext.put("projects", FreeMarkerEngine.convert(selectedProjectFields
+                .stream()
+                .collect(Collectors.toMap(Function.identity(), Function.identity()))));
+    }
+
+    private List<List<Map<String, TemplateModel>>> addFiltersToCommonContext(List<List<RexNode>> filters) throws ConvertException {
+        List<List<Map<String, TemplateModel>>> list = filters
+                .stream()
+                .map(group -> group.stream()
+                        .map(this::convertToMap)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList()))
+                .filter(group -> !group.isEmpty())
+                .collect(Collectors.toList());
+
+        commonContext.put("filters", FreeMarkerEngine.convert(list));
+        return list;
+    }
+
+    private Map<String, TemplateModel> convertToMap(RexNode node) throws ConvertFiltersException {
+        Field field = pushableField.apply(node);
+        if (field == null) {
+            return null;
+        }
+        RexCall call = (RexCall) node;
+        SqlOperator operator = call.getOperator();
+        RexLiteral literal = (RexLiteral) call.getOperands().get(1);
+
+        try {
+            TemplateModel value = getTemplateModel(literal);
+            putRequestValue(field, value);
+            return Map.of(
+                    "name", new SimpleScalar(field.getName()),
+                    "operator", new SimpleScalar(operator.getName()),
+                    "value", value
+            );
+        } catch (TemplateModelException e) {
+            throw ConvertFiltersException.buildConvertFiltersException(e);
+        }
+    }
+
+    private void putRequestValue(Field field, TemplateModel value) {
+        if (field == null || !field.isRequestParameter()) return;
+
+        commonContext.put(field.getName(), value);
+    }
+
+    static TemplateModel getTemplateModel(RexLiteral rexLiteral) throws TemplateModelException {
+        switch (rexLiteral.getTypeName()) {
+            case BOOLEAN:
+                return Boolean.TRUE.equals(rexLiteral.getValueAs(Boolean.class)) ? TemplateBooleanModel.TRUE : TemplateBooleanModel.FALSE;
+            case CHAR:
+            case VARCHAR:
+                return new SimpleScalar(rexLiteral.getValueAs(String.class));
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+            case DECIMAL:
+            case FLOAT:
+            case REAL:
+            case DOUBLE:
+                return new SimpleNumber(rexLiteral.getValueAs(Number.class));
+            case DATE:
+                return new CalendarDate(rexLiteral.getValueAs(Calendar.class), TemplateDateModel.DATE);
+            case TIME:
+            case TIME_WITH_LOCAL_TIME_ZONE:
+                return new CalendarDate(rexLiteral.getValueAs(Calendar.class), TemplateDateModel.TIME);
+            case TIMESTAMP:
+            case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
+                return new CalendarDate(rexLiteral.getValueAs(Calendar.class), TemplateDateModel.DATETIME);
+            default:
+                throw new IllegalStateException("Unexpected type: " + rexLiteral.getTypeName());
+        }
+    }
+
+}
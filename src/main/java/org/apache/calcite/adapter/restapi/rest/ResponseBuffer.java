@@ -0,0 +1,90 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Reusable byte buffer holding the raw body of one REST response.
+ * Every page request acquires a buffer from a small shared pool and returns it once the page is
+ * decoded, so consecutive pages reuse the same byte array; the body is read once into it and
+ * parsed from it without decoding into an intermediate {@code String}.
+ */
+public class ResponseBuffer implements AutoCloseable {
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final int MAX_POOLED_CAPACITY = 16 * 1024 * 1024;
+    private static final ArrayBlockingQueue<ResponseBuffer> POOL = new ArrayBlockingQueue<>(8);
+
+    private byte[] bytes;
+    private int size;
+    private boolean released;
+
+    private ResponseBuffer() {
+        this.bytes = new byte[INITIAL_CAPACITY];
+    }
+
+    public static ResponseBuffer acquire() {
+        ResponseBuffer buffer = POOL.poll();
+        if (buffer == null) {
+            return new ResponseBuffer();
+        }
+        buffer.released = false;
+        return buffer;
+    }
+
+    public void readFrom(InputStream inputStream, long contentLength) throws IOException {
+        size = 0;
+        if (contentLength > 0) {
+            ensureCapacity(contentLength);
+        }
+
+        int read;
+        while ((read = inputStream.read(bytes, size, bytes.length - size)) != -1) {
+            size += read;
+            if (size == bytes.length) {
+                ensureCapacity((long) size + 1);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public InputStream getInputStream() {
+        return new ByteArrayInputStream(bytes, 0, size);
+    }
+
+    private void ensureCapacity(long capacity) {
+        if (capacity > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Response body is too large: " + capacity + " bytes");
+        }
+        if (capacity > bytes.length) {
+            byte[] newBytes = new byte[(int) Math.min(Math.max(capacity, (long) bytes.length << 1), Integer.MAX_VALUE - 8)];
+            System.arraycopy(bytes, 0, newBytes, 0, size);
+            bytes = newBytes;
+        }
+    }
+
+    /**
+     * Returns the buffer to the pool; closing it again does nothing, so it is never pooled twice.
+     */
+    @Override
+    public void close() {
+        if (released) {
+            return;
+        }
+        released = true;
+        size = 0;
+        if (bytes.length <= MAX_POOLED_CAPACITY) {
+            POOL.offer(this);
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Format of the response bodies of a table, set by {@code responseFormat} of the table or of its {@code requestData}.
+ */
+public enum ResponseFormat {
+
+    /** A JSON document with the rows in the array at {@code rootJsonpath}, requested page by page. */
+    JSON("json"),
+    /** Newline-delimited JSON, one row per line, decoded from a single open response as the rows are read. */
+    NDJSON("ndjson"),
+    /** XML with the rows in the elements at {@code rootJsonpath}, decoded with StAX as the response is read. */
+    XML("xml"),
+    /** Binary protobuf of {@code protoMessageType}, decoded one row message at a time. */
+    PROTOBUF("protobuf");
+
+    private final String token;
+
+    private static final Map<String, ResponseFormat> MAP = new HashMap<>();
+
+    static {
+        for (ResponseFormat value : values()) {
+            MAP.put(value.token, value);
+        }
+    }
+
+    ResponseFormat(String token) {
+        this.token = token;
+    }
+
+    public static ResponseFormat of(String token) {
+        if (token == null || token.isBlank()) {
+            return JSON;
+        }
+        ResponseFormat format = MAP.get(token.trim().toLowerCase());
+        if (format == null) {
+            throw new IllegalArgumentException("Unknown responseFormat '" + token + "', expected one of " + String.join(", ", MAP.keySet()));
+        }
+        return format;
+    }
+
+}
@@ -1,13 +0,0 @@
-package org.apache.calcite.adapter.restapi.rest;
-
-import org.apache.calcite.adapter.restapi.rest.interfaces.ArrayParamReader;
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-
-@AllArgsConstructor
-@Getter
-public class ResponseRowReader {
-
-    private ArrayParamReader arrayParamReader;
-
-}
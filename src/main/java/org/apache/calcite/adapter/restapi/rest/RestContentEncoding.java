@@ -0,0 +1,100 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.hc.client5.http.entity.BrotliDecompressingEntity;
+import org.apache.hc.client5.http.entity.BrotliInputStreamFactory;
+import org.apache.hc.client5.http.entity.DeflateInputStreamFactory;
+import org.apache.hc.client5.http.entity.GZIPInputStreamFactory;
+import org.apache.hc.client5.http.entity.InputStreamFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Response content codings the adapter can decode. Brotli and zstd are only
+ * offered when their decoder libraries are present on the classpath.
+ */
+public enum RestContentEncoding {
+
+    GZIP("gzip", GZIPInputStreamFactory.getInstance()),
+    X_GZIP("x-gzip", GZIPInputStreamFactory.getInstance()),
+    DEFLATE("deflate", DeflateInputStreamFactory.getInstance()),
+    BROTLI("br", BrotliDecompressingEntity.isAvailable() ? BrotliInputStreamFactory.getInstance() : null),
+    ZSTD("zstd", zstdInputStreamFactory());
+
+    public static final String NONE = "none";
+
+    private static final String ZSTD_INPUT_STREAM_CLASS = "com.github.luben.zstd.ZstdInputStream";
+
+    private final String token;
+    private final InputStreamFactory inputStreamFactory;
+
+    private static final Map<String, RestContentEncoding> MAP = new HashMap<>();
+
+    static {
+        for (RestContentEncoding value : values()) {
+            MAP.put(value.token, value);
+        }
+    }
+
+    RestContentEncoding(String token, InputStreamFactory inputStreamFactory) {
+        this.token = token;
+        this.inputStreamFactory = inputStreamFactory;
+    }
+
+    public boolean isAvailable() {
+        return inputStreamFactory != null;
+    }
+
+    public static RestContentEncoding of(String token) {
+        return MAP.get(token.trim().toLowerCase());
+    }
+
+    /**
+     * Builds the decoder registry for a comma separated {@code acceptEncoding} list.
+     * Returns {@code null} when the list is empty, which keeps the HTTP client defaults,
+     * and an empty map for {@code none}, which switches response decoding off.
+     */
+    public static LinkedHashMap<String, InputStreamFactory> decoderRegistry(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return null;
+        }
+
+        LinkedHashMap<String, InputStreamFactory> registry = new LinkedHashMap<>();
+        for (String token : acceptEncoding.split(",")) {
+            if (token.isBlank() || token.trim().equalsIgnoreCase(NONE)) {
+                continue;
+            }
+            RestContentEncoding encoding = of(token);
+            if (encoding == null) {
+                throw new IllegalArgumentException("Unsupported content encoding: '" + token.trim() + "'");
+            }
+            if (encoding.isAvailable()) {
+                registry.put(encoding.token, encoding.inputStreamFactory);
+            }
+        }
+        return registry;
+    }
+
+    private static InputStreamFactory zstdInputStreamFactory() {
+        try {
+            Constructor<?> constructor = Class.forName(ZSTD_INPUT_STREAM_CLASS).getConstructor(InputStream.class);
+            return inputStream -> {
+                try {
+                    return (InputStream) constructor.newInstance(inputStream);
+                } catch (InvocationTargetException e) {
+                    throw new IOException(e.getCause());
+                } catch (ReflectiveOperationException e) {
+                    throw new IOException(e);
+                }
+            };
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+}
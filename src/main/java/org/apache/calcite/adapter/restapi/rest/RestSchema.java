@@ -1,8 +1,16 @@
 package org.apache.calcite.adapter.restapi.rest;
 
+import org.apache.calcite.adapter.restapi.freemarker.FreeMarkerEngine;
+import org.apache.calcite.adapter.restapi.model.Aggregation;
+import org.apache.calcite.adapter.restapi.model.Header;
+import org.apache.calcite.adapter.restapi.model.Parameter;
 import org.apache.calcite.adapter.restapi.model.RequestData;
 import org.apache.calcite.adapter.restapi.model.Service;
+import org.apache.calcite.adapter.restapi.model.TableStatistics;
+import org.apache.calcite.adapter.restapi.rest.profile.QueryLog;
+import org.apache.calcite.adapter.restapi.rest.profile.QueryLogTable;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.jayway.jsonpath.JsonPath;
 import freemarker.template.TemplateModel;
 import org.apache.calcite.schema.Table;
 import org.apache.calcite.schema.impl.AbstractSchema;
@@ -11,21 +19,56 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Tables of the service files in the {@code calcite.rest} directory. The files are parsed in
+ * parallel on first access, and the tables of a service are built when one of them is first
+ * looked up. A file that fails to parse is skipped. With the {@code watch} operand, changed files
+ * are parsed again and their services replaced; queries already running keep the tables they use.
+ */
 public class RestSchema extends AbstractSchema {
     Logger logger = LoggerFactory.getLogger(RestSchema.class);
 
+    /** Time without further file events before the changed files are reloaded, as editors write in several steps. */
+    private static final long WATCH_SETTLE_MILLIS = 200;
+
     private final String group;
     private final Map<String, TemplateModel> context = new HashMap<>();
+    private final QueryLog queryLog;
+    private final QueryLogTable queryLogTable;
+    /** Whether {@code rest_query_log} is exposed; its profiles show the requests of every user of the schema. */
+    private final boolean queryLogEnabled;
+    private final boolean watch;
 
-    private Map<String, Table> tableMap;
+    /** Parsed services by the path of their file, replaced as a whole on reload. */
+    private volatile Map<Path, ServiceEntry> services;
+    private volatile Map<String, Table> tableMap;
     private final XmlMapper xmlMapper = new XmlMapper();
 
     @SuppressWarnings("unchecked")
@@ -35,46 +78,414 @@ public class RestSchema extends AbstractSchema {
             Object contextObject = map.get("context");
             if (contextObject != null)
                 this.context.putAll((Map<String, TemplateModel>) contextObject);
+            Object queryLogObject = map.get("queryLog");
+            this.queryLogEnabled = queryLogObject != null && Boolean.parseBoolean(queryLogObject.toString());
+            Object queryLogSize = map.get("queryLogSize");
+            this.queryLog = new QueryLog(!queryLogEnabled ? 0 : queryLogSize != null ? Integer.parseInt(queryLogSize.toString()) : QueryLog.DEFAULT_SIZE);
+            Object watchObject = map.get("watch");
+            this.watch = watchObject != null && Boolean.parseBoolean(watchObject.toString());
         } else {
             this.group = "";
+            this.queryLogEnabled = false;
+            this.queryLog = new QueryLog(0);
+            this.watch = false;
         }
+        this.queryLogTable = new QueryLogTable(queryLog);
     }
 
     @Override
     protected Map<String, Table> getTableMap() {
+        if (tableMap == null) {
+            synchronized (this) {
+                if (tableMap == null) {
+                    String calciteRestDirectory = System.getProperty("calcite.rest");
+                    if (calciteRestDirectory == null) {
+                        calciteRestDirectory = System.getProperty("catalina.base") + File.separator + "calcite" + File.separator + "rest";
+                    }
+                    Path directory = Paths.get(calciteRestDirectory).toAbsolutePath().normalize();
+                    try {
+                        publish(new TreeMap<>(loadServices(listServiceFiles(directory))));
+                    } catch (IOException e) {
+                        logger.error("Xml files processing exception: {}", e.getMessage());
+                        throw new RuntimeException(e);
+                    }
+                    if (watch) {
+                        startWatching(directory);
+                    }
+                }
+            }
+        }
+        return tableMap;
+    }
+
+    private static List<Path> listServiceFiles(Path directory) throws IOException {
+        try (Stream<Path> stream = Files.walk(directory)) {
+            return stream.filter(RestSchema::isServiceFile)
+                    .map(path -> path.toAbsolutePath().normalize())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static boolean isServiceFile(Path path) {
+        return path.getFileName().toString().endsWith(".xml") && Files.isRegularFile(path);
+    }
+
+    /**
+     * Parses the files in parallel.
+     *
+     * @return the services of the files that parsed
+     */
+    private Map<Path, ServiceEntry> loadServices(Collection<Path> paths) {
+        return paths.parallelStream()
+                .map(this::loadService)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toMap(entry -> entry.path, Function.identity()));
+    }
+
+    /**
+     * A reloaded service keeps the connections of its previous version unless its connection
+     * settings changed.
+     *
+     * @return the service of the file, or {@code null} if it can't be parsed
+     */
+    private ServiceEntry loadService(Path path) {
         try {
-            if (tableMap == null) {
-                tableMap = new HashMap<>();
-                String calciteRestDirectory = System.getProperty("calcite.rest");
-                if (calciteRestDirectory == null) {
-                    calciteRestDirectory = System.getProperty("catalina.base") + File.separator + "calcite" + File.separator + "rest";
+            Service service = xmlMapper.readValue(path.toFile(), Service.class);
+            if (service.getTables() == null) {
+                service.setTables(Collections.emptyList());
+            }
+            Set<String> templates = prepare(service, tablesByName(service));
+
+            String serviceName = serviceName(path, service);
+            ServiceEntry previous = services != null ? services.get(path) : null;
+            ServiceConnections connections = previous != null && previous.connections.getService().equals(serviceName)
+                    && previous.connections.getRequestData().equals(service.getRequestData())
+                    ? previous.connections
+                    : new ServiceConnections(serviceName, service.getRequestData());
+            return new ServiceEntry(path, service, connections, templates);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Service file '{}' is skipped: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Compiles the jsonpaths of the JSON tables of the service and parses its templates into the
+     * template cache, so that a mistake fails the loading of the file rather than a query.
+     *
+     * @return the templates, retained in the cache until the service is released
+     */
+    private static Set<String> prepare(Service service, Map<String, org.apache.calcite.adapter.restapi.model.Table> tables) {
+        RequestData requestData = service.getRequestData();
+        if (requestData == null) {
+            throw new IllegalArgumentException("Service '" + service.getDataSourceName() + "' has no requestData");
+        }
+        Set<String> templates = Stream.of(requestData.getUrl(), requestData.getBody())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (requestData.getHeaders() != null) {
+            requestData.getHeaders().stream().map(Header::getValue).filter(Objects::nonNull).forEach(templates::add);
+        }
+        List<String> jsonpaths = new ArrayList<>();
+
+        for (org.apache.calcite.adapter.restapi.model.Table table : tables.values()) {
+            getParent(tables, table);
+            if (table.getPartitioning() != null && table.getPartitioning().getPartitions() > 1 && !RequestRenderer.rendersRanges(requestData)) {
+                throw new IllegalArgumentException("Table '" + table.getName() + "' declares partitioning, but its requests don't render range criteria:"
+                        + " use a dnf jsonBody with whereKey or orKey, or the filters macro in a template");
+            }
+            Aggregation aggregation = table.getAggregation();
+            if (aggregation != null) {
+                Stream.of(aggregation.getUrl(), aggregation.getBody()).filter(Objects::nonNull).forEach(templates::add);
+                jsonpaths.add(aggregation.getRootJsonpath());
+            }
+            TableStatistics statistics = table.getStatistics();
+            if (statistics != null) {
+                if (statistics.getCountUrl() != null) {
+                    templates.add(statistics.getCountUrl());
                 }
+                jsonpaths.add(statistics.getCountJsonpath());
+            }
+
+            ResponseFormat format = ResponseFormat.of(table.getResponseFormat() != null ? table.getResponseFormat() : requestData.getResponseFormat());
+            if (format == ResponseFormat.JSON || format == ResponseFormat.NDJSON) {
+                if (format == ResponseFormat.JSON) {
+                    jsonpaths.add(table.getRootJsonpath());
+                }
+                if (table.getParameters() != null) {
+                    table.getParameters().stream()
+                            .map(Parameter::getJsonpath)
+                            .filter(Objects::nonNull)
+                            .map(path -> path.startsWith(ChildParamReader.PARENT) ? path.substring(ChildParamReader.PARENT.length()) : path)
+                            .forEach(jsonpaths::add);
+                }
+            }
+        }
 
-                try (Stream<Path> stream = Files.walk(Paths.get(calciteRestDirectory))) {
-                    stream.filter(Files::isRegularFile)
-                            .filter(p -> p.getFileName().toString().endsWith(".xml"))
-                            .map(this::createTable)
-                            .forEach(tableMap::putAll);
+        jsonpaths.stream().filter(Objects::nonNull).forEach(JsonPath::compile);
+        FreeMarkerEngine.retain(templates);
+        return templates;
+    }
+
+    /**
+     * Makes the services visible to the following lookups: a table name declared by several files
+     * is taken from the last of them in path order. Connections of the services start warming up.
+     */
+    private void publish(Map<Path, ServiceEntry> services) {
+        Map<String, ServiceEntry> owners = new HashMap<>();
+        for (ServiceEntry entry : services.values()) {
+            for (String name : entry.getTableNames()) {
+                ServiceEntry previous = owners.put(name, entry);
+                if (previous != null) {
+                    logger.warn("Table '{}' of '{}' hides the one of '{}'", name, entry.path, previous.path);
                 }
             }
-            return tableMap;
+        }
+        this.services = services;
+        this.tableMap = new TableMap(owners);
+        services.values().forEach(entry -> entry.connections.startWarmUp());
+    }
+
+    private void startWatching(Path directory) {
+        try {
+            WatchService watchService = directory.getFileSystem().newWatchService();
+            register(watchService, directory);
+            Thread thread = new Thread(() -> watch(watchService, directory), "rest-schema-watch");
+            thread.setDaemon(true);
+            thread.start();
         } catch (IOException e) {
-            logger.error("Xml files processing exception: {}", e.getMessage());
-            throw new RuntimeException(e);
+            logger.warn("Service files in '{}' are not watched: {}", directory, e.getMessage());
         }
     }
 
-    private Map<String, Table> createTable(Path path) {
+    private static void register(WatchService watchService, Path directory) throws IOException {
+        try (Stream<Path> stream = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) stream.filter(Files::isDirectory)::iterator) {
+                path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+
+    private void watch(WatchService watchService, Path directory) {
         try {
-            Service service = xmlMapper.readValue(path.toFile(), Service.class);
-            RequestData requestData = service.getRequestData();
+            while (true) {
+                WatchKey key = watchService.take();
+                Set<Path> changed = new LinkedHashSet<>();
+                boolean rescan = false;
+                do {
+                    Path watched = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            rescan = true;
+                            continue;
+                        }
+                        Path path = watched.resolve((Path) event.context()).toAbsolutePath().normalize();
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                            register(watchService, path);
+                            changed.addAll(listServiceFiles(path));
+                        } else if (path.getFileName().toString().endsWith(".xml")) {
+                            changed.add(path);
+                        }
+                    }
+                    key.reset();
+                } while ((key = watchService.poll(WATCH_SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null);
+
+                if (rescan) {
+                    changed.addAll(services.keySet());
+                    changed.addAll(listServiceFiles(directory));
+                }
+                if (!changed.isEmpty()) {
+                    reload(changed);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // the schema is no longer watched
+        } catch (IOException | RuntimeException e) {
+            logger.error("Watching service files in '{}' stopped: {}", directory, e.getMessage());
+        }
+    }
 
+    /**
+     * Replaces the services of the changed files and drops those of deleted files. A file that fails
+     * to parse keeps its previous service. The tables of replaced services stop refreshing their
+     * snapshots once no longer visible, and their connections are closed unless kept by the new version.
+     */
+    private void reload(Set<Path> changed) {
+        Map<Path, ServiceEntry> loaded = loadServices(changed.stream().filter(Files::isRegularFile).collect(Collectors.toList()));
+        List<ServiceEntry> replaced = new ArrayList<>();
+        Set<ServiceConnections> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        synchronized (this) {
+            Map<Path, ServiceEntry> updated = new TreeMap<>(services);
+            for (Path path : changed) {
+                ServiceEntry previous = Files.isRegularFile(path)
+                        ? (loaded.containsKey(path) ? updated.put(path, loaded.get(path)) : null)
+                        : updated.remove(path);
+                if (previous != null) {
+                    replaced.add(previous);
+                }
+            }
+            publish(updated);
+            updated.values().forEach(entry -> kept.add(entry.connections));
+        }
+        for (ServiceEntry entry : replaced) {
+            entry.release();
+            if (!kept.contains(entry.connections)) {
+                entry.connections.release();
+            }
+        }
+        logger.info("Service files reloaded: {}", changed);
+    }
+
+    private static String serviceName(Path path, Service service) {
+        return service.getDataSourceName() != null ? service.getDataSourceName() : path.getFileName().toString();
+    }
+
+    private Map<String, Table> createTables(Path path, Service service, ServiceConnections connections) {
+        RequestData requestData = service.getRequestData();
+        String serviceName = serviceName(path, service);
+
+        Map<String, org.apache.calcite.adapter.restapi.model.Table> tables = tablesByName(service);
+        Map<String, FetchGroup> fetchGroups = new HashMap<>();
+
+        return service.getTables().stream()
+                .collect(Collectors.toMap(
+                        org.apache.calcite.adapter.restapi.model.Table::getName,
+                        table -> {
+                            org.apache.calcite.adapter.restapi.model.Table parent = getParent(tables, table);
+                            String fetchGroup = fetchGroupOf(tables, parent != null ? parent : table);
+                            return new RestTable(group, serviceName, requestData, table, parent,
+                                    fetchGroup != null ? fetchGroups.computeIfAbsent(fetchGroup, FetchGroup::new) : null,
+                                    connections, context, queryLog);
+                        }));
+    }
+
+    private static Map<String, org.apache.calcite.adapter.restapi.model.Table> tablesByName(Service service) {
+        return service.getTables().stream()
+                .collect(Collectors.toMap(org.apache.calcite.adapter.restapi.model.Table::getName, Function.identity(), (first, second) -> {
+                    throw new IllegalArgumentException("Table '" + first.getName() + "' is declared twice");
+                }, LinkedHashMap::new));
+    }
+
+    /**
+     * A child table reads its rows from the elements of its parent, a table of the same service.
+     */
+    private static org.apache.calcite.adapter.restapi.model.Table getParent(Map<String, org.apache.calcite.adapter.restapi.model.Table> tables,
+                                                                           org.apache.calcite.adapter.restapi.model.Table table) {
+        if (table.getParent() == null || table.getParent().isBlank()) {
+            return null;
+        }
+        org.apache.calcite.adapter.restapi.model.Table parent = tables.get(table.getParent().trim());
+        if (parent == null) {
+            throw new IllegalArgumentException("Table '" + table.getName() + "' refers to unknown parent '" + table.getParent() + "'");
+        }
+        if (parent.getParent() != null && !parent.getParent().isBlank()) {
+            throw new IllegalArgumentException("Parent '" + parent.getName() + "' of table '" + table.getName() + "' is a child table itself");
+        }
+        return parent;
+    }
+
+    /**
+     * A table with child tables shares its responses with them: in its fetch group, or in one named
+     * after the table if it declares none.
+     */
+    private static String fetchGroupOf(Map<String, org.apache.calcite.adapter.restapi.model.Table> tables,
+                                       org.apache.calcite.adapter.restapi.model.Table table) {
+        if (table.getFetchGroup() != null && !table.getFetchGroup().isBlank()) {
+            return table.getFetchGroup().trim();
+        }
+        boolean parent = tables.values().stream()
+                .anyMatch(child -> child.getParent() != null && child.getParent().trim().equals(table.getName()));
+        return parent ? table.getName() : null;
+    }
+
+    /**
+     * A parsed service file; its tables are built when one of them is first looked up.
+     */
+    private class ServiceEntry {
+        private final Path path;
+        private final Service service;
+        private final ServiceConnections connections;
+        private final Set<String> templates;
+        private Map<String, Table> tables;
+
+        ServiceEntry(Path path, Service service, ServiceConnections connections, Set<String> templates) {
+            this.path = path;
+            this.service = service;
+            this.connections = connections;
+            this.templates = templates;
+        }
+
+        List<String> getTableNames() {
             return service.getTables().stream()
-                    .collect(Collectors.toMap(
-                            org.apache.calcite.adapter.restapi.model.Table::getName,
-                            table -> new RestTable(group, requestData, table, context)));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+                    .map(org.apache.calcite.adapter.restapi.model.Table::getName)
+                    .collect(Collectors.toList());
+        }
+
+        synchronized Map<String, Table> getTables() {
+            if (tables == null) {
+                tables = createTables(path, service, connections);
+            }
+            return tables;
+        }
+
+        /**
+         * Called once the service is replaced or its file deleted: its templates leave the template
+         * cache unless another service uses them, and its protobuf descriptor sets are read again by
+         * the next table decoding them.
+         */
+        synchronized void release() {
+            if (tables != null) {
+                tables.values().forEach(table -> ((RestTable) table).release());
+            }
+            FreeMarkerEngine.release(templates);
+            ProtobufStreamDecoder.evict(service.getTables().stream()
+                    .map(org.apache.calcite.adapter.restapi.model.Table::getProtoDescriptorSet)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Tables by name, built by their service on lookup. Calcite caches the table names of a schema,
+     * so tables of files added later are found only if the schema cache is disabled.
+     */
+    private class TableMap extends AbstractMap<String, Table> {
+        private final Map<String, ServiceEntry> owners;
+
+        TableMap(Map<String, ServiceEntry> owners) {
+            this.owners = owners;
+        }
+
+        @Override
+        public Table get(Object name) {
+            ServiceEntry owner = owners.get(name);
+            if (owner != null) {
+                return owner.getTables().get(name);
+            }
+            return queryLogEnabled && QueryLogTable.NAME.equals(name) ? queryLogTable : null;
+        }
+
+        @Override
+        public boolean containsKey(Object name) {
+            return owners.containsKey(name) || queryLogEnabled && QueryLogTable.NAME.equals(name);
+        }
+
+        @Override
+        public Set<String> keySet() {
+            Set<String> names = new HashSet<>(owners.keySet());
+            if (queryLogEnabled) {
+                names.add(QueryLogTable.NAME);
+            }
+            return Collections.unmodifiableSet(names);
+        }
+
+        @Override
+        public Set<Entry<String, Table>> entrySet() {
+            return keySet().stream()
+                    .map(name -> new SimpleImmutableEntry<>(name, get(name)))
+                    .collect(Collectors.toUnmodifiableSet());
         }
     }
 }
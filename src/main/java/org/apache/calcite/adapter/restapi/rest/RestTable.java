@@ -1,72 +1,133 @@
 package org.apache.calcite.adapter.restapi.rest;
 
-import org.apache.calcite.adapter.restapi.freemarker.CalendarDate;
 import org.apache.calcite.adapter.restapi.freemarker.FreeMarkerEngine;
-import org.apache.calcite.adapter.restapi.freemarker.exception.ConvertException;
-import org.apache.calcite.adapter.restapi.model.Header;
+import org.apache.calcite.adapter.restapi.model.Aggregation;
 import org.apache.calcite.adapter.restapi.model.Parameter;
+import org.apache.calcite.adapter.restapi.model.Partitioning;
 import org.apache.calcite.adapter.restapi.model.RequestData;
+import org.apache.calcite.adapter.restapi.model.Snapshot;
 import org.apache.calcite.adapter.restapi.model.Table;
+import org.apache.calcite.adapter.restapi.model.TableStatistics;
 import org.apache.calcite.adapter.restapi.rest.exception.ConvertFiltersException;
-import org.apache.calcite.adapter.restapi.rest.interfaces.ArrayParamReader;
-import org.apache.calcite.adapter.restapi.rest.interfaces.ArrayReader;
-import com.google.common.base.Joiner;
+import org.apache.calcite.adapter.restapi.rest.interfaces.RestIterator;
+import org.apache.calcite.adapter.restapi.rest.metrics.RestMetrics;
+import org.apache.calcite.adapter.restapi.rest.profile.FilterPushdown;
+import org.apache.calcite.adapter.restapi.rest.profile.QueryLog;
+import org.apache.calcite.adapter.restapi.rest.profile.ScanProfile;
+import org.apache.calcite.adapter.restapi.rest.page.ColumnarPage;
+import org.apache.calcite.adapter.restapi.rest.page.MemoryBudget;
+import org.apache.calcite.adapter.restapi.rest.page.PageLayout;
+import org.apache.calcite.adapter.restapi.rest.page.ReplayBuffer;
+import org.apache.calcite.adapter.restapi.rest.rel.RestAggregate;
+import org.apache.calcite.adapter.restapi.rest.rel.RestTableScan;
+import org.apache.calcite.adapter.restapi.rest.snapshot.SnapshotData;
+import org.apache.calcite.adapter.restapi.rest.snapshot.TableSnapshot;
+import com.google.common.collect.ImmutableList;
 import com.jayway.jsonpath.JsonPath;
-import com.jayway.jsonpath.PathNotFoundException;
 import freemarker.template.*;
-import net.minidev.json.JSONArray;
 import org.apache.calcite.DataContext;
 import org.apache.calcite.adapter.java.JavaTypeFactory;
-import org.apache.calcite.config.CalciteConnectionProperty;
+import org.apache.calcite.jdbc.JavaTypeFactoryImpl;
 import org.apache.calcite.jdbc.CalciteConnection;
 import org.apache.calcite.linq4j.AbstractEnumerable;
 import org.apache.calcite.linq4j.Enumerable;
 import org.apache.calcite.linq4j.Enumerator;
+import org.apache.calcite.plan.RelOptTable;
 import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.rel.RelCollation;
+import org.apache.calcite.rel.RelCollations;
+import org.apache.calcite.rel.RelFieldCollation;
+import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeFactory;
 import org.apache.calcite.rel.type.RelDataTypeField;
 import org.apache.calcite.rex.*;
-import org.apache.calcite.schema.ProjectableFilterableTable;
+import org.apache.calcite.schema.Statistic;
+import org.apache.calcite.schema.Statistics;
+import org.apache.calcite.schema.TranslatableTable;
 import org.apache.calcite.schema.impl.AbstractTable;
-import org.apache.calcite.sql.SqlOperator;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.util.DateString;
+import org.apache.calcite.util.ImmutableBitSet;
 import org.apache.calcite.util.Pair;
+import org.apache.calcite.util.TimeString;
+import org.apache.calcite.util.TimestampString;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
-import org.apache.hc.client5.http.classic.methods.HttpPost;
-import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
-import org.apache.hc.client5.http.config.RequestConfig;
-import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
-import org.apache.hc.core5.http.HttpEntity;
-import org.apache.hc.core5.http.Method;
-import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.math.BigDecimal;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
-public class RestTable extends AbstractTable implements ProjectableFilterableTable {
+public class RestTable extends AbstractTable implements TranslatableTable {
+    private static final double DEFAULT_ROW_COUNT = 100d;
+    private static final ExecutorService ROW_COUNTS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "rest-row-count");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final Logger logger = LoggerFactory.getLogger(RestTable.class);
 
     private final String group;
-    private final Map<String, TemplateModel> commonContext;
 
     private final Table table;
+    /** Table whose elements hold the rows of this child table, or {@code null}. */
+    private final Table parent;
+    private final FetchGroup fetchGroup;
     private final RequestData connectionData;
+    private final ServiceConnections connections;
     private Map<String, Field> fieldsMap;
 
-    public RestTable(String group, RequestData connectionData, Table table, Map<String, TemplateModel> context) {
+    private final TableSnapshot snapshot;
+    private final RestMetrics metrics;
+    private final QueryLog queryLog;
+    private final ResponseFormat responseFormat;
+    private final RequestRenderer renderer;
+    private final RequestExecutor executor;
+    private final PageFetcher fetcher;
+
+    private final AtomicLong observedRowCount = new AtomicLong(-1);
+    private volatile Double endpointRowCount;
+    private final AtomicBoolean endpointRowCountRequested = new AtomicBoolean();
+
+    public RestTable(String group, String service, RequestData connectionData, Table table, Map<String, TemplateModel> context, QueryLog queryLog) {
+        this(group, service, connectionData, table, null, null, new ServiceConnections(service, connectionData), context, queryLog);
+    }
+
+    /**
+     * @param parent     table whose elements hold the rows of this child table, or {@code null}
+     * @param fetchGroup  responses shared with the other tables of the group, or {@code null}
+     * @param connections connections of the service, shared with its other tables
+     */
+    public RestTable(String group, String service, RequestData connectionData, Table table, Table parent, FetchGroup fetchGroup, ServiceConnections connections, Map<String, TemplateModel> context, QueryLog queryLog) {
         this.group = group;
+        this.queryLog = queryLog;
+        this.responseFormat = ResponseFormat.of(table.getResponseFormat() != null ? table.getResponseFormat() : connectionData.getResponseFormat());
+        this.metrics = RestMetrics.of(service, table.getName());
         this.connectionData = connectionData;
         this.table = table;
-        this.commonContext = context;
+        this.parent = parent;
+        this.fetchGroup = fetchGroup;
+        this.connections = connections;
+        if (fetchGroup != null && responseFormat != ResponseFormat.JSON) {
+            throw new IllegalArgumentException("Table '" + table.getName() + "' shares responses, which must be json");
+        }
+        this.renderer = new RequestRenderer(context, connectionData, getRequestName(), this::getPushableField);
+        this.executor = new RequestExecutor(connections, metrics, table.getName());
+        this.fetcher = new PageFetcher(table, parent, fetchGroup, connectionData, responseFormat, renderer, executor);
+        this.snapshot = table.getSnapshot() != null ? new TableSnapshot(table.getName(), table.getSnapshot(), this::loadSnapshot) : null;
         FreeMarkerEngine.init();
     }
 
@@ -83,7 +144,9 @@ public class RestTable extends AbstractTable implements ProjectableFilterableTab
                             RestFieldType restFieldType = RestFieldType.of(parameter.getDbType());
                             field = new Field(parameter.getName(), restFieldType, restFieldType.toType((JavaTypeFactory) typeFactory));
                             field.setJsonpath(parameter.getJsonpath());
+                            field.setFormat(parameter.getFormat());
                             field.setResponseParameter(true);
+                            field.setSortable(parameter.isSortable());
                         }
 
                         if (parameter.getType().isRequestParam()) {
@@ -92,6 +155,7 @@ public class RestTable extends AbstractTable implements ProjectableFilterableTab
                                 field = new Field(parameter.getName(), restFieldType, restFieldType.toType((JavaTypeFactory) typeFactory));
                             }
                             field.setRequestParameter(true);
+                            field.setSelectivity(parameter.getSelectivity());
                         }
                         fieldsMap.put(parameter.getName(), field);
                     }
@@ -102,236 +166,702 @@ public class RestTable extends AbstractTable implements ProjectableFilterableTab
         return getRelDataType(typeFactory);
     }
 
+    /**
+     * Called when the table is replaced by a reloaded service definition. Queries still reading it
+     * are not affected; its snapshot is no longer refreshed.
+     */
+    public void release() {
+        if (snapshot != null) {
+            snapshot.close();
+        }
+    }
+
+    @Override
+    public RelNode toRel(RelOptTable.ToRelContext context, RelOptTable relOptTable) {
+        return RestTableScan.create(context.getCluster(), relOptTable, this);
+    }
+
     @Override
+    public Statistic getStatistic() {
+        return Statistics.of(getRowCount(), getKeys(), ImmutableList.of(), ImmutableList.of());
+    }
+
+    /**
+     * Estimated number of rows the service returns for the pushed filters, using the
+     * {@code selectivity} hints declared on request parameters.
+     */
+    public double estimateRowCount(List<RexNode> filters) {
+        Double rowCount = getRowCount();
+        double estimate = rowCount != null ? rowCount : DEFAULT_ROW_COUNT;
+        for (RexNode filter : filters) {
+            estimate *= getSelectivity(filter);
+        }
+        return Math.max(estimate, 1d);
+    }
+
+    /**
+     * Called from the code generated for {@link RestTableScan}.
+     */
+    @SuppressWarnings("unused")
+    public Enumerable<Object> query(DataContext root, List<RexNode> filters, int[] projects, RelCollation collation, boolean scalar) {
+        Enumerable<Object[]> rows = scan(root, filters, projects, collation);
+        if (scalar) {
+            return rows.select(row -> row[0]);
+        }
+        return rows.select(row -> (Object) row);
+    }
+
+    /**
+     * Nothing is requested until an enumerator is first advanced. Each enumeration pages through
+     * the service on its own, unless {@code scanReplay} keeps the pages for the following ones.
+     * Snapshot tables are read from their local copy.
+     */
     public Enumerable<Object[]> scan(DataContext root, List<RexNode> filters, int[] projects) {
-        List<List<RexNode>> dnfFilters = convertToDnf(root, filters);
-        Set<String> selectedProjectFields = getSelectedProjectFields(root.getTypeFactory(), projects);
+        return scan(root, filters, projects, RelCollations.EMPTY);
+    }
+
+    /**
+     * @param collation order the service is asked to return the rows in, on columns declared
+     *                  {@code sortable}; passed to templates as the {@code sort} macro
+     */
+    public Enumerable<Object[]> scan(DataContext root, List<RexNode> filters, int[] projects, RelCollation collation) {
+        metrics.recordScan(snapshot != null);
+        if (snapshot != null) {
+            return snapshot.get().scan(filters, projects);
+        }
         Properties properties = ((CalciteConnection) root.getQueryProvider()).getProperties();
 
-        int pageSize = connectionData.getPageSize();
-        AtomicInteger offset = new AtomicInteger(pageSize * connectionData.getPageStart());
+        if (fetchGroup != null) {
+            fetchGroup.addReader(root);
+        }
+        List<List<RexNode>> dnfFilters = parent != null ? Collections.emptyList() : convertToDnf(new RexBuilder(root.getTypeFactory()), filters);
+        Set<String> selectedProjectFields = parent != null ? getParentFields() : getSelectedProjectFields(root.getTypeFactory(), projects);
+        PageLayout layout = new PageLayout(getProjectFields(projects));
+
+        ScanReplay replay = ScanReplay.of(connectionData.getScanReplay());
+        long memoryBudget = connectionData.getScanMemoryBudget() > 0 ? connectionData.getScanMemoryBudget() * 1024L * 1024L : Long.MAX_VALUE;
+        if (replay == ScanReplay.SPILL) {
+            memoryBudget = 0;
+        }
+        long passMemoryBudget = memoryBudget;
+        Map<String, TemplateModel> macros = collation.getFieldCollations().isEmpty() ? Collections.emptyMap() : Map.of("sort", FreeMarkerEngine.convert(getSort(collation)));
+        List<List<List<RexNode>>> partitions = collation.getFieldCollations().isEmpty() ? partition(new RexBuilder(root.getTypeFactory()), dnfFilters) : Collections.emptyList();
+        Supplier<RestIterator> scanPass = partitions.isEmpty()
+                ? () -> newPass(root, dnfFilters, macros, dnfFilters.isEmpty(), properties, selectedProjectFields, layout, new MemoryBudget(passMemoryBudget))
+                : () -> {
+                    MemoryBudget budget = new MemoryBudget(passMemoryBudget);
+                    return new PartitionedPass(partitions.stream()
+                            .map(partition -> newPass(root, partition, macros, false, properties, selectedProjectFields, layout, budget))
+                            .collect(Collectors.toList()));
+                };
+
+        if (replay == ScanReplay.NONE) {
+            return new AbstractEnumerable<>() {
+                public Enumerator<Object[]> enumerator() {
+                    return new RestDataEnumerator(scanPass.get());
+                }
+            };
+        }
 
-        Map.Entry<String, List<ResponseRowReader>> restResult = getRestResult(null, dnfFilters, offset.get(), properties, selectedProjectFields);
-        AtomicBoolean hasMore = new AtomicBoolean(pageSize > 0 && restResult.getValue().size() == pageSize);
+        ReplayBuffer replayBuffer = new ReplayBuffer(scanPass);
         return new AbstractEnumerable<>() {
             public Enumerator<Object[]> enumerator() {
-                return new RestDataEnumerator(restResult.getValue(), fieldsMap, projects, () -> {
-                    if (hasMore.get()) {
-                        Map.Entry<String, List<ResponseRowReader>> restResultMore = getRestResult(restResult.getKey(), dnfFilters, offset.addAndGet(pageSize), properties, selectedProjectFields);
-                        hasMore.set(pageSize > 0 && restResultMore.getValue().size() == pageSize);
-                        return restResultMore.getValue();
-                    } else {
-                        return Collections.emptyList();
-                    }
-                });
+                return new RestDataEnumerator(replayBuffer.iterator());
             }
         };
     }
 
-    public String getTableName() {
-        return this.table.getName();
-    }
+    /**
+     * Splits the range pushed on the {@code partitioning} column, a lower and an upper bound in a single
+     * group of criteria, into sub-ranges of equal width, each requested with its own bounds instead.
+     * The first and the last sub-range keep the bounds of the query, the others are half-open.
+     * The scan is split only if the requests render the bounds; otherwise every sub-range would
+     * return the rows of the whole range.
+     *
+     * @return the filters of each sub-range, or an empty list if the scan is not split
+     */
+    private List<List<List<RexNode>>> partition(RexBuilder rexBuilder, List<List<RexNode>> filters) {
+        Partitioning partitioning = table.getPartitioning();
+        if (partitioning == null || partitioning.getPartitions() < 2 || filters.size() != 1 || !RequestRenderer.rendersRanges(connectionData)) {
+            return Collections.emptyList();
+        }
+        int column = new ArrayList<>(fieldsMap.keySet()).indexOf(partitioning.getColumn() == null ? null : partitioning.getColumn().trim());
+        if (column < 0) {
+            throw new IllegalArgumentException("Partitioning of table '" + getTableName() + "' refers to unknown field '" + partitioning.getColumn() + "'");
+        }
 
-    public Map.Entry<String, List<ResponseRowReader>> getRestResult(String address, List<List<RexNode>> filters, int offset, Properties properties, Set<String> selectedProjectFields) {
-        if (address == null) {
-            List<String> errors = new ArrayList<>();
-            for (String tryingAddress : connectionData.getAddresses().split(",")) {
-                try {
-                    return doRequest(tryingAddress.trim(), filters, offset, properties, selectedProjectFields);
-                } catch (IOException e) {
-                    errors.add(e.getMessage());
-                    logger.warn(e.getMessage());
-                }
+        RexCall lower = null;
+        RexCall upper = null;
+        for (RexNode node : filters.get(0)) {
+            if (getPushableField(node) == null || ((RexInputRef) ((RexCall) node).getOperands().get(0)).getIndex() != column) {
+                continue;
             }
-            throw new RuntimeException("All requests attempts are failed. \n" + Joiner.on(", \n").join(errors));
-        } else {
-            try {
-                return doRequest(address, filters, offset, properties, selectedProjectFields);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+            if (node.isA(SqlKind.GREATER_THAN) || node.isA(SqlKind.GREATER_THAN_OR_EQUAL)) {
+                if (lower != null) {
+                    return Collections.emptyList();
+                }
+                lower = (RexCall) node;
+            } else if (node.isA(SqlKind.LESS_THAN) || node.isA(SqlKind.LESS_THAN_OR_EQUAL)) {
+                if (upper != null) {
+                    return Collections.emptyList();
+                }
+                upper = (RexCall) node;
             }
         }
-    }
-
-    private Map.Entry<String, List<ResponseRowReader>> doRequest(String address, List<List<RexNode>> filters, int offset, Properties properties, Set<String> selectedProjectFields) throws ConvertException, IOException {
-        String httpResponse = executeRequest(buildRequest(address, filters, offset, properties, selectedProjectFields));
+        Field field = getField(column);
+        Double from = lower != null ? rangeValue(field, (RexLiteral) lower.getOperands().get(1)) : null;
+        Double to = upper != null ? rangeValue(field, (RexLiteral) upper.getOperands().get(1)) : null;
+        if (from == null || to == null || from >= to) {
+            return Collections.emptyList();
+        }
 
-        List<ResponseRowReader> result = new ArrayList<>();
-        if (table.getParameters() != null && !table.getParameters().isEmpty()) {
-            JSONArray jsonArray = new ArrayReaderImpl(httpResponse).read(table.getRootJsonpath());
-            if (jsonArray != null) {
-                for (Object o : jsonArray) {
-                    result.add(new ResponseRowReader(new ArrayParamReaderImpl(o)));
-                }
+        boolean integral = field.getRestFieldType() != RestFieldType.FLOAT && field.getRestFieldType() != RestFieldType.DOUBLE;
+        List<Number> cuts = new ArrayList<>();
+        for (int i = 1; i < partitioning.getPartitions(); i++) {
+            double cut = from + (to - from) * i / partitioning.getPartitions();
+            Number value = integral ? (Number) Math.round(cut) : (Number) cut;
+            if (value.doubleValue() > from && value.doubleValue() < to && (cuts.isEmpty() || value.doubleValue() > cuts.get(cuts.size() - 1).doubleValue())) {
+                cuts.add(value);
             }
         }
+        if (cuts.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-        return new AbstractMap.SimpleImmutableEntry<>(address, result);
+        RexNode input = lower.getOperands().get(0);
+        List<RexNode> others = new ArrayList<>(filters.get(0));
+        others.remove(lower);
+        others.remove(upper);
+        List<List<List<RexNode>>> partitions = new ArrayList<>();
+        for (int i = 0; i <= cuts.size(); i++) {
+            List<RexNode> group = new ArrayList<>(others);
+            group.add(i == 0 ? lower : rexBuilder.makeCall(SqlStdOperatorTable.GREATER_THAN_OR_EQUAL, input, toLiteral(rexBuilder, field, cuts.get(i - 1))));
+            group.add(i == cuts.size() ? upper : rexBuilder.makeCall(SqlStdOperatorTable.LESS_THAN, input, toLiteral(rexBuilder, field, cuts.get(i))));
+            partitions.add(List.of(group));
+        }
+        return partitions;
     }
 
-    private String executeRequest(HttpUriRequestBase request) throws IOException {
-        logger.debug("Trying: '{}'", request.getRequestUri());
+    /**
+     * Bound of a range as stored in a page: the number, epoch days for dates, milliseconds for
+     * times and timestamps; {@code null} if the column can't be partitioned by the literal.
+     */
+    private static Double rangeValue(Field field, RexLiteral literal) {
+        SqlTypeName typeName = literal.getTypeName();
+        switch (field.getRestFieldType()) {
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                return SqlTypeName.NUMERIC_TYPES.contains(typeName) ? literal.getValueAs(BigDecimal.class).doubleValue() : null;
+            case DATE:
+                return typeName == SqlTypeName.DATE ? literal.getValueAs(Integer.class).doubleValue() : null;
+            case TIME:
+                return typeName == SqlTypeName.TIME ? literal.getValueAs(Integer.class).doubleValue() : null;
+            case TIMESTAMP:
+                return typeName == SqlTypeName.TIMESTAMP ? literal.getValueAs(Long.class).doubleValue() : null;
+            default:
+                return null;
+        }
+    }
 
-        try (var httpClient = HttpClientBuilder.create().build()) {
-            return httpClient.execute(request, response -> {
-                int statusCode = response.getCode();
-                if (!isSuccessfulResponse(statusCode)) {
-                    throw new RuntimeException("Request Failed, status code (" + statusCode + ")");
-                }
+    /**
+     * Whether the service can return the rows ordered by all of the columns: they are declared
+     * {@code sortable} and the requests render the {@code sort} macro, as otherwise the order would
+     * never reach the service. Snapshot tables are never sorted by the service, as their queries don't
+     * reach it, and child tables are read in the order of their parent.
+     */
+    public boolean isSortable(List<Integer> columns) {
+        return snapshot == null && parent == null && renderer.rendersSort() && columns.stream().allMatch(column -> getField(column).isSortable());
+    }
 
-                HttpEntity entity = response.getEntity();
-                if (entity == null) {
-                    throw new IOException("Empty response entity");
-                }
+    /**
+     * Sort keys as passed to templates: {@code name}, {@code direction} ({@code asc} or {@code desc})
+     * and {@code nulls} ({@code first} or {@code last}).
+     */
+    private List<Map<String, String>> getSort(RelCollation collation) {
+        return collation.getFieldCollations().stream()
+                .map(fieldCollation -> {
+                    RelFieldCollation.NullDirection nulls = fieldCollation.nullDirection == RelFieldCollation.NullDirection.UNSPECIFIED
+                            ? fieldCollation.direction.defaultNullDirection()
+                            : fieldCollation.nullDirection;
+                    return Map.of(
+                            "name", getField(fieldCollation.getFieldIndex()).getName(),
+                            "direction", fieldCollation.direction.isDescending() ? "desc" : "asc",
+                            "nulls", nulls == RelFieldCollation.NullDirection.FIRST ? "first" : "last");
+                })
+                .collect(Collectors.toList());
+    }
 
-                try (InputStream is = entity.getContent()) {
-                    return new String(is.readAllBytes(), StandardCharsets.UTF_8);
-                }
-            });
+    /**
+     * Whether the {@code aggregation} endpoint of the table computes the functions grouped by the
+     * columns. Snapshot tables are aggregated by Calcite.
+     */
+    public boolean isAggregatable(List<Integer> groupColumns, List<String> functions) {
+        Aggregation aggregation = table.getAggregation();
+        if (snapshot != null || aggregation == null) {
+            return false;
         }
+        Set<String> groupBy = trimmed(aggregation.getGroupBy());
+        Set<String> declared = trimmed(aggregation.getFunctions());
+        return groupColumns.stream().allMatch(column -> groupBy.contains(getField(column).getName()))
+                && declared.containsAll(functions);
     }
 
-    private HttpUriRequestBase buildRequest(String address, List<List<RexNode>> filters, int offset, Properties properties, Set<String> selectedProjectFields) throws ConvertException {
-        fillCommonContext(filters, offset, properties, selectedProjectFields);
+    private static Set<String> trimmed(List<String> values) {
+        return values == null ? Collections.emptySet() : values.stream().map(value -> value.trim().toLowerCase()).collect(Collectors.toSet());
+    }
 
-        HttpUriRequestBase request;
-        String URI = address + FreeMarkerEngine.getInstance().process(connectionData.getUrl(), commonContext);
-        if (Objects.requireNonNull(Method.normalizedValueOf(connectionData.getMethod())) == Method.POST) {
-            request = new HttpPost(URI);
-        } else {
-            request = new HttpGet(URI);
+    /**
+     * Whether every condition of the filters is rendered into the request of the {@code aggregation}
+     * endpoint, so that a service applying them leaves nothing for Calcite to filter. The conditions
+     * reach the service only through the {@code filters} macro, so its templates have to use it.
+     */
+    public boolean isFullyPushed(RexBuilder rexBuilder, List<RexNode> filters) {
+        if (filters.isEmpty()) {
+            return true;
+        }
+        if (!renderer.rendersAggregationFilters(table.getAggregation())) {
+            return false;
         }
+        FilterPushdown pushdown = describeFilters(convertToDnf(rexBuilder, filters), node -> getPushableField(node) != null);
+        return pushdown.getResidual().isEmpty() && !pushdown.getPushed().isEmpty();
+    }
 
-        request.setHeader("Content-type", "application/json");
-        if (connectionData.getBody() != null) {
-            request.setEntity(new StringEntity(FreeMarkerEngine.getInstance().process(connectionData.getBody(), commonContext)));
+    /**
+     * Called from the code generated for {@link RestAggregate}. The groups are requested from the
+     * {@code aggregation} endpoint with a single request, sent when the enumerator is first advanced.
+     *
+     * @param functions function of each aggregate: {@code count}, {@code sum}, {@code min}, {@code max} or {@code avg}
+     * @param arguments column each aggregate is computed on, or {@code -1} for {@code count(*)}
+     */
+    @SuppressWarnings("unused")
+    public Enumerable<Object> aggregate(DataContext root, List<RexNode> filters, int[] groupColumns, List<String> functions, int[] arguments, boolean scalar) {
+        Properties properties = ((CalciteConnection) root.getQueryProvider()).getProperties();
+        JavaTypeFactory typeFactory = root.getTypeFactory();
+        List<List<RexNode>> dnfFilters = convertToDnf(new RexBuilder(typeFactory), filters);
+
+        List<Field> fields = new ArrayList<>();
+        List<String> groupBy = new ArrayList<>();
+        for (int column : groupColumns) {
+            Field field = getField(column);
+            fields.add(resultField(field.getName(), field.getRestFieldType(), field.getFormat(), typeFactory));
+            groupBy.add(field.getName());
+        }
+        List<Map<String, String>> aggregates = new ArrayList<>();
+        Set<String> selectedFields = new LinkedHashSet<>(groupBy);
+        for (int i = 0; i < functions.size(); i++) {
+            String function = functions.get(i);
+            if (arguments[i] < 0) {
+                aggregates.add(Map.of("name", function, "function", function));
+                fields.add(resultField(function, RestFieldType.LONG, null, typeFactory));
+                continue;
+            }
+            Field argument = getField(arguments[i]);
+            String name = function + "_" + argument.getName();
+            aggregates.add(Map.of("name", name, "function", function, "field", argument.getName()));
+            boolean count = function.equals("count");
+            fields.add(resultField(name, count ? RestFieldType.LONG : argument.getRestFieldType(), count ? null : argument.getFormat(), typeFactory));
+            selectedFields.add(argument.getName());
         }
-        request.setConfig(RequestConfig.custom()
-                .setConnectionRequestTimeout(connectionData.getConnectionTimeout(), TimeUnit.SECONDS)
-                .setResponseTimeout(connectionData.getResponseTimeout(), TimeUnit.SECONDS).build());
+        Map<String, TemplateModel> macros = Map.of(
+                "groupBy", FreeMarkerEngine.convert(groupBy),
+                "aggregates", FreeMarkerEngine.convert(aggregates));
+        PageLayout layout = new PageLayout(fields);
+        Object[] emptyRow = null;
+        if (groupColumns.length == 0) {
+            emptyRow = new Object[functions.size()];
+            for (int i = 0; i < functions.size(); i++) {
+                emptyRow[i] = functions.get(i).equals("count") ? (Object) 0L : null;
+            }
+        }
+        Object[] globalRow = emptyRow;
 
-        if (connectionData.getHeaders() != null) {
-            for (Header header : connectionData.getHeaders()) {
-                request.setHeader(header.getKey(), FreeMarkerEngine.getInstance().process(header.getValue(), commonContext));
+        metrics.recordScan(false);
+        Enumerable<Object[]> rows = new AbstractEnumerable<>() {
+            public Enumerator<Object[]> enumerator() {
+                return new RestDataEnumerator(new AggregatePass(RestTable.this, table.getAggregation(), dnfFilters, macros, properties, selectedFields, layout, globalRow));
             }
+        };
+        if (scalar) {
+            return rows.select(row -> row[0]);
         }
+        return rows.select(row -> (Object) row);
+    }
+
+    /**
+     * Column of an aggregation response, read from the member of each group named after it.
+     */
+    private static Field resultField(String name, RestFieldType restFieldType, String format, JavaTypeFactory typeFactory) {
+        Field field = new Field(name, restFieldType, restFieldType.toType(typeFactory));
+        field.setJsonpath("$['" + name + "']");
+        field.setFormat(format);
+        field.setResponseParameter(true);
+        return field;
+    }
 
-        return request;
+    RequestData getConnectionData() {
+        return connectionData;
     }
 
-    private void fillCommonContext(List<List<RexNode>> filters, int offset, Properties properties, Set<String> selectedProjectFields) {
-        commonContext.put("offset", new SimpleNumber(offset));
-        commonContext.put("limit", new SimpleNumber(connectionData.getPageSize()));
-        commonContext.put("name", new SimpleScalar(getTableName()));
+    RequestRenderer getRenderer() {
+        return renderer;
+    }
 
-        addPropertiesToCommonContext(properties);
-        if (!selectedProjectFields.isEmpty()) {
-            addSelectedFieldsToCommonContext(selectedProjectFields);
-        }
-        if (!filters.isEmpty()) {
-            addFiltersToCommonContext(filters);
-        }
+    RequestExecutor getExecutor() {
+        return executor;
+    }
 
+    PageFetcher getFetcher() {
+        return fetcher;
     }
 
-    private void addPropertiesToCommonContext(Properties properties) {
-        for (Map.Entry<Object, Object> entry : properties.entrySet()) {
-            if (!entry.getKey().toString().equals(CalciteConnectionProperty.MODEL.camelName()) &&
-                    !entry.getKey().toString().equals(CalciteConnectionProperty.FUN.camelName()) &&
-                    !entry.getKey().toString().equals(CalciteConnectionProperty.CASE_SENSITIVE.camelName()) &&
-                    !entry.getKey().toString().equals(CalciteConnectionProperty.QUOTED_CASING.camelName()) &&
-                    !entry.getKey().toString().equals(CalciteConnectionProperty.UNQUOTED_CASING.camelName())) {
-                commonContext.put(entry.getKey().toString(), new SimpleScalar(entry.getValue().toString()));
-            }
-        }
+    /**
+     * Profile of a pass with the filters, shown in {@code rest_query_log} once the pass is logged.
+     */
+    ScanProfile startProfile(List<List<RexNode>> filters) {
+        return queryLog.start(metrics.getService(), getTableName(), describeFilters(filters));
     }
 
-    private void addSelectedFieldsToCommonContext(Set<String> selectedProjectFields) throws ConvertException{
-        commonContext.put("projects", FreeMarkerEngine.convert(selectedProjectFields
-                .stream()
-                .collect(Collectors.toMap(Function.identity(), Function.identity()))));
+    /**
+     * Profile of a request to the {@code aggregation} endpoint, which renders all of the filters.
+     */
+    ScanProfile startAggregationProfile(List<List<RexNode>> filters) {
+        return queryLog.start(metrics.getService(), getTableName(), describeFilters(filters, node -> getPushableField(node) != null));
     }
 
-    private void addFiltersToCommonContext(List<List<RexNode>> filters) throws ConvertException {
-        List<List<Map<String, TemplateModel>>> list = filters
-                .stream()
-                .map(group -> group.stream()
-                        .map(this::convertToMap)
-                        .filter(Objects::nonNull)
-                        .collect(Collectors.toList()))
-                .filter(group -> !group.isEmpty())
-                .collect(Collectors.toList());
+    void logProfile(ScanProfile profile) {
+        queryLog.add(profile);
+    }
 
-        commonContext.put("filters", FreeMarkerEngine.convert(list));
+    /**
+     * Called when a pass without filters has read the whole table.
+     */
+    void observeRowCount(long rowCount) {
+        observedRowCount.set(rowCount);
     }
 
-    private Map<String, TemplateModel> convertToMap(RexNode node) throws ConvertFiltersException {
-        if (!(node instanceof RexCall)) {
-            return null;
+    public String getTableName() {
+        return this.table.getName();
+    }
+
+    /**
+     * Name the requests of the table are rendered with: that of the parent for child tables, whose
+     * rows come with the parent's response.
+     */
+    private String getRequestName() {
+        return parent != null ? parent.getName() : getTableName();
+    }
+
+    /**
+     * Fields selected by a scan of the whole parent table, so that a child table renders the same
+     * request as the parent.
+     */
+    private Set<String> getParentFields() {
+        return parent.getParameters() == null ? Collections.emptySet() : parent.getParameters().stream()
+                .filter(parameter -> parameter.getType() != null)
+                .map(Parameter::getName)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * The planner never waits for the service: the {@code countUrl} is requested in the background
+     * the first time the table is planned, and {@code rowCount} is used until it answers.
+     */
+    private Double getRowCount() {
+        long observed = observedRowCount.get();
+        if (observed >= 0) {
+            return (double) observed;
         }
-        RexCall call = (RexCall) node;
-        SqlOperator operator = call.getOperator();
-        List<RexNode> operands = call.getOperands();
 
-        if (operands.size() != 2) {
+        TableStatistics statistics = table.getStatistics();
+        if (statistics == null) {
             return null;
         }
-        RexNode left = operands.get(0);
-        RexNode right = operands.get(1);
+        if (statistics.getCountUrl() != null && endpointRowCountRequested.compareAndSet(false, true)) {
+            ROW_COUNTS.execute(() -> endpointRowCount = fetchEndpointRowCount(statistics));
+        }
+        return endpointRowCount != null ? endpointRowCount : statistics.getRowCount();
+    }
 
-        if (!(left instanceof RexInputRef)) {
-            return null;
+    private List<ImmutableBitSet> getKeys() {
+        TableStatistics statistics = table.getStatistics();
+        if (statistics == null || statistics.getKeys() == null) {
+            return ImmutableList.of();
         }
-        Field field = getField(((RexInputRef) left).getIndex());
-        if (!field.isRequestParameter()) {
-            return null;
+
+        List<String> fieldNames = table.getParameters() == null ? List.of() : table.getParameters().stream()
+                .filter(parameter -> parameter.getType() != null)
+                .map(Parameter::getName)
+                .collect(Collectors.toList());
+        List<ImmutableBitSet> keys = new ArrayList<>();
+        for (String key : statistics.getKeys()) {
+            ImmutableBitSet.Builder columns = ImmutableBitSet.builder();
+            for (String column : key.split(",")) {
+                int index = fieldNames.indexOf(column.trim());
+                if (index < 0) {
+                    throw new IllegalArgumentException("Unknown key column '" + column.trim() + "' in table '" + getTableName() + "'");
+                }
+                columns.set(index);
+            }
+            keys.add(columns.build());
         }
+        return keys;
+    }
 
-        if (!(right instanceof RexLiteral)) {
-            return null;
+    private double getSelectivity(RexNode node) {
+        if (node.isA(SqlKind.AND)) {
+            double selectivity = 1d;
+            for (RexNode operand : ((RexCall) node).getOperands()) {
+                selectivity *= getSelectivity(operand);
+            }
+            return selectivity;
         }
-        RexLiteral literal = (RexLiteral) right;
+        if (node.isA(SqlKind.OR)) {
+            double selectivity = 0d;
+            for (RexNode operand : ((RexCall) node).getOperands()) {
+                selectivity += getSelectivity(operand);
+            }
+            return Math.min(selectivity, 1d);
+        }
+        if (!(node instanceof RexCall) || ((RexCall) node).getOperands().size() != 2
+                || !(((RexCall) node).getOperands().get(0) instanceof RexInputRef) || fieldsMap == null) {
+            return 1d;
+        }
+
+        Field field = getField(((RexInputRef) ((RexCall) node).getOperands().get(0)).getIndex());
+        return field.isRequestParameter() && field.getSelectivity() != null ? field.getSelectivity() : 1d;
+    }
+
+    private Double fetchEndpointRowCount(TableStatistics statistics) {
+        for (String address : connections.getAddresses()) {
+            try (ResponseBuffer buffer = ResponseBuffer.acquire()) {
+                HttpGet request = renderer.renderGet(address, statistics.getCountUrl(), getTableName());
+                executor.execute(request, buffer::readFrom);
 
+                Object count;
+                try (InputStream is = buffer.getInputStream()) {
+                    Object json = ArrayReaderImpl.parse(is);
+                    count = JsonPath.read(json, statistics.getCountJsonpath() != null ? statistics.getCountJsonpath() : "$");
+                }
+                return count instanceof Number ? ((Number) count).doubleValue() : Double.parseDouble(count.toString());
+            } catch (IOException e) {
+                connections.failed(address);
+                logger.warn("Row count request of table '{}' failed: {}", getTableName(), e.getMessage());
+            } catch (RuntimeException e) {
+                logger.warn("Row count request of table '{}' failed: {}", getTableName(), e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Loads the whole table, or, when the snapshot declares a watermark and {@code previous} has
+     * one, only the rows whose watermark is not below it, merged into {@code previous} by key.
+     */
+    private SnapshotData loadSnapshot(Properties properties, SnapshotData previous) {
+        Snapshot declared = table.getSnapshot();
+        List<String> fieldNames = new ArrayList<>(fieldsMap.keySet());
+        int[] indexColumns = snapshotColumns(fieldNames, declared.getIndexes(), "index");
+        int watermarkColumn = declared.getWatermark() != null ? snapshotColumns(fieldNames, List.of(declared.getWatermark()), "watermark")[0] : -1;
+        PageLayout layout = new PageLayout(getProjectFields(null));
+        long memoryBudget = snapshot.getMemoryBudget();
+
+        SnapshotData data;
+        if (previous == null || watermarkColumn < 0 || previous.getWatermark() == null) {
+            RestIterator pass = newPass(null, Collections.emptyList(), Collections.emptyMap(), true, properties, new LinkedHashSet<>(fieldNames), layout, new MemoryBudget(memoryBudget));
+            data = new SnapshotData(fetchAll(pass), indexColumns, watermarkColumn);
+        } else {
+            if (declared.getKey() == null) {
+                throw new IllegalArgumentException("Snapshot of table '" + getTableName() + "' declares a watermark but no key");
+            }
+            int[] keyColumns = snapshotColumns(fieldNames, Arrays.asList(declared.getKey().split(",")), "key");
+            Field field = getField(watermarkColumn);
+            RexBuilder rexBuilder = new RexBuilder(new JavaTypeFactoryImpl());
+            RexLiteral since = toLiteral(rexBuilder, field, previous.getWatermark());
+            RexNode filter = rexBuilder.makeCall(SqlStdOperatorTable.GREATER_THAN_OR_EQUAL, new RexInputRef(watermarkColumn, field.getRelDataType()), since);
+            Map<String, TemplateModel> macros;
+            try {
+                macros = Map.of("watermark", RequestRenderer.getTemplateModel(since));
+            } catch (TemplateModelException e) {
+                throw ConvertFiltersException.buildConvertFiltersException(e);
+            }
+
+            RestIterator pass = newPass(null, List.of(List.of(filter)), macros, false, properties, new LinkedHashSet<>(fieldNames), layout, new MemoryBudget(memoryBudget));
+            List<ColumnarPage> changes = fetchAll(pass);
+            int changed = changes.stream().mapToInt(ColumnarPage::size).sum();
+            data = previous.merge(changes, layout, memoryBudget, keyColumns);
+            logger.debug("Snapshot of table '{}' merged {} rows changed since {}", getTableName(), changed, since);
+        }
+        observedRowCount.set(data.getRowCount());
+        return data;
+    }
+
+    private static List<ColumnarPage> fetchAll(RestIterator pass) {
+        List<ColumnarPage> pages = new ArrayList<>();
         try {
-            TemplateModel value = getTemplateModel(literal);
-            setRequestValueField(field, value);
-            return Map.of(
-                    "name", new SimpleScalar(field.getName()),
-                    "operator", new SimpleScalar(operator.getName()),
-                    "value", value
-            );
-        } catch (TemplateModelException e) {
-            throw ConvertFiltersException.buildConvertFiltersException(e);
-        }
-    }
-
-    private static TemplateModel getTemplateModel(RexLiteral rexLiteral) throws TemplateModelException {
-        switch (rexLiteral.getTypeName()) {
-            case BOOLEAN:
-                return Boolean.TRUE.equals(rexLiteral.getValueAs(Boolean.class)) ? TemplateBooleanModel.TRUE : TemplateBooleanModel.FALSE;
-            case CHAR:
-            case VARCHAR:
-                return new SimpleScalar(rexLiteral.getValueAs(String.class));
-            case TINYINT:
-            case SMALLINT:
-            case INTEGER:
-            case BIGINT:
-            case DECIMAL:
+            ColumnarPage page;
+            while ((page = pass.getMore()).size() > 0) {
+                pages.add(page);
+            }
+            page.close();
+            return pages;
+        } catch (RuntimeException e) {
+            pages.forEach(ColumnarPage::close);
+            throw e;
+        }
+    }
+
+    /**
+     * Literal of a watermark value as stored in a page: epoch days for dates, milliseconds for
+     * times and timestamps.
+     */
+    private static RexLiteral toLiteral(RexBuilder rexBuilder, Field field, Object value) {
+        switch (field.getRestFieldType()) {
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+                return rexBuilder.makeExactLiteral(BigDecimal.valueOf(((Number) value).longValue()), field.getRelDataType());
             case FLOAT:
-            case REAL:
             case DOUBLE:
-                return new SimpleNumber(rexLiteral.getValueAs(Number.class));
+                return rexBuilder.makeApproxLiteral(BigDecimal.valueOf(((Number) value).doubleValue()));
             case DATE:
-                return new CalendarDate(rexLiteral.getValueAs(Calendar.class), TemplateDateModel.DATE);
+                return rexBuilder.makeDateLiteral(DateString.fromDaysSinceEpoch(((Number) value).intValue()));
             case TIME:
-            case TIME_WITH_LOCAL_TIME_ZONE:
-                return new CalendarDate(rexLiteral.getValueAs(Calendar.class), TemplateDateModel.TIME);
+                return rexBuilder.makeTimeLiteral(TimeString.fromMillisOfDay(((Number) value).intValue()), 3);
             case TIMESTAMP:
-            case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
-                return new CalendarDate(rexLiteral.getValueAs(Calendar.class), TemplateDateModel.DATETIME);
+                return rexBuilder.makeTimestampLiteral(TimestampString.fromMillisSinceEpoch(((Number) value).longValue()), 3);
+            case STRING:
+                return rexBuilder.makeLiteral(value.toString());
             default:
-                throw new IllegalStateException("Unexpected type: " + rexLiteral.getTypeName());
+                throw new IllegalArgumentException("Field '" + field.getName() + "' of type " + field.getRestFieldType() + " can not be a watermark");
+        }
+    }
+
+    private int[] snapshotColumns(List<String> fieldNames, List<String> names, String role) {
+        if (names == null) {
+            return new int[0];
+        }
+        return names.stream()
+                .mapToInt(name -> {
+                    int column = fieldNames.indexOf(name.trim());
+                    if (column < 0) {
+                        throw new IllegalArgumentException("Snapshot " + role + " of table '" + getTableName() + "' refers to unknown field '" + name + "'");
+                    }
+                    return column;
+                })
+                .toArray();
+    }
+
+    /**
+     * @param query query the pass is run for, or {@code null} for snapshot loads
+     */
+    private RestIterator newPass(Object query, List<List<RexNode>> filters, Map<String, TemplateModel> macros, boolean unfiltered, Properties properties, Set<String> selectedProjectFields, PageLayout layout, MemoryBudget memoryBudget) {
+        PageLayout passLayout = layout.withRequestValues(getRequestValues(filters));
+        if (responseFormat == ResponseFormat.NDJSON) {
+            return new StreamPass(this, filters, macros, unfiltered, properties, selectedProjectFields, passLayout, memoryBudget);
+        }
+        return new ScanPass(this, query, filters, macros, unfiltered, properties, selectedProjectFields, passLayout, memoryBudget);
+    }
+
+    /**
+     * Values the request parameters are rendered with for the filters, which are also the values of
+     * their request-only columns. As in the templates, the last condition on a field wins.
+     */
+    private Map<String, TemplateModel> getRequestValues(List<List<RexNode>> filters) {
+        Map<String, TemplateModel> values = new HashMap<>();
+        for (List<RexNode> group : filters) {
+            for (RexNode node : group) {
+                Field field = getPushableField(node);
+                if (field != null) {
+                    try {
+                        values.put(field.getName(), RequestRenderer.getTemplateModel((RexLiteral) ((RexCall) node).getOperands().get(1)));
+                    } catch (TemplateModelException e) {
+                        throw ConvertFiltersException.buildConvertFiltersException(e);
+                    }
+                }
+            }
         }
+        return values;
+    }
+
+    /**
+     * @return the request parameter a {@code field <op> literal} condition is rendered for, or
+     *         {@code null} if the condition is left to Calcite, as are all conditions on child tables
+     */
+    private Field getPushableField(RexNode node) {
+        if (parent != null || !(node instanceof RexCall)) {
+            return null;
+        }
+        List<RexNode> operands = ((RexCall) node).getOperands();
+        if (operands.size() != 2 || !(operands.get(0) instanceof RexInputRef) || !(operands.get(1) instanceof RexLiteral)) {
+            return null;
+        }
+        Field field = getField(((RexInputRef) operands.get(0)).getIndex());
+        return field.isRequestParameter() ? field : null;
+    }
+
+    /**
+     * Splits the filters, in disjunctive normal form, into the conditions rendered into the rows
+     * request and the residual ones. Which conditions are rendered depends on the operator and the
+     * number of OR groups with {@code jsonBody}, e.g. the {@code flat} layout writes only {@code =}
+     * criteria of a filter without OR, and templates render them only through {@code filters}.
+     */
+    private FilterPushdown describeFilters(List<List<RexNode>> filters) {
+        return describeFilters(filters, node -> getPushableField(node) != null
+                && renderer.rendersCriterion(((RexCall) node).getOperator().getName(), filters.size()));
+    }
+
+    /**
+     * @param rendered whether a condition is rendered into the request
+     */
+    private FilterPushdown describeFilters(List<List<RexNode>> filters, Predicate<RexNode> rendered) {
+        List<String> pushed = new ArrayList<>();
+        Set<String> residual = new LinkedHashSet<>();
+        for (List<RexNode> group : filters) {
+            Map<Boolean, List<RexNode>> split = group.stream().collect(Collectors.partitioningBy(rendered));
+            pushed.add(describe(split.get(true)));
+            split.get(false).stream().map(this::describe).forEach(residual::add);
+        }
+        return new FilterPushdown(filters.size(),
+                pushed.stream().anyMatch(String::isEmpty) ? "" : String.join(" OR ", pushed),
+                String.join(", ", residual));
+    }
+
+    private String describe(List<RexNode> conditions) {
+        if (conditions.isEmpty()) {
+            return "";
+        }
+        String joined = conditions.stream().map(this::describe).collect(Collectors.joining(" AND "));
+        return conditions.size() > 1 ? "(" + joined + ")" : joined;
+    }
+
+    private String describe(RexNode node) {
+        if (node instanceof RexInputRef) {
+            return getField(((RexInputRef) node).getIndex()).getName();
+        }
+        if (node instanceof RexCall) {
+            RexCall call = (RexCall) node;
+            List<String> operands = call.getOperands().stream().map(this::describe).collect(Collectors.toList());
+            if (operands.size() == 2 && call.getOperator().getKind().belongsTo(SqlKind.BINARY_COMPARISON)) {
+                return operands.get(0) + " " + call.getOperator().getName() + " " + operands.get(1);
+            }
+            return call.getOperator().getName() + "(" + String.join(", ", operands) + ")";
+        }
+        if (node instanceof RexLiteral) {
+            return ((RexLiteral) node).computeDigest(RexDigestIncludeType.NO_TYPE);
+        }
+        return node.toString();
+    }
+
+    /**
+     * Pushed and residual filters of a scan, as shown by EXPLAIN.
+     */
+    public FilterPushdown describePushdown(RexBuilder rexBuilder, List<RexNode> filters) {
+        return describeFilters(filters.isEmpty() ? Collections.emptyList() : convertToDnf(rexBuilder, filters));
     }
 
     private RelDataType getRelDataType(RelDataTypeFactory typeFactory) {
@@ -355,13 +885,12 @@ public class RestTable extends AbstractTable implements ProjectableFilterableTab
 
     }
 
-    private boolean isSuccessfulResponse (int statusCode) {
-        return (statusCode - 200 >= 0) && (statusCode - 200 < 100);
-    }
-
-    private List<List<RexNode>> convertToDnf(DataContext root, List<RexNode> filters) {
-        RexBuilder rexBuilder = new RexBuilder(root.getTypeFactory());
-        RexNode combinedFilter = RexUtil.composeConjunction(rexBuilder, filters);
+    /**
+     * Ranges and IN lists, which Calcite folds into {@code SEARCH} calls, are expanded back into
+     * comparisons, so that their bounds can be rendered as criteria.
+     */
+    static List<List<RexNode>> convertToDnf(RexBuilder rexBuilder, List<RexNode> filters) {
+        RexNode combinedFilter = RexUtil.expandSearch(rexBuilder, null, RexUtil.composeConjunction(rexBuilder, filters));
         RexNode dnfFilter = RexUtil.toDnf(rexBuilder, combinedFilter);
 
         return RelOptUtil.disjunctions(dnfFilter)
@@ -370,62 +899,17 @@ public class RestTable extends AbstractTable implements ProjectableFilterableTab
                 .collect(Collectors.toList());
     }
 
-    private void setRequestValueField(Field field, TemplateModel value) {
-        if (field == null || !field.isRequestParameter()) return;
-
-        field.setRequestValue(value);
-        commonContext.put(field.getName(), value);
+    private List<Field> getProjectFields(int[] projects) {
+        List<Field> fields = new ArrayList<>(fieldsMap.values());
+        if (projects == null) {
+            return fields;
+        }
+        return Arrays.stream(projects)
+                .mapToObj(fields::get)
+                .collect(Collectors.toList());
     }
 
     private Field getField(int index) {
         return new ArrayList<>(fieldsMap.values()).get(index);
     }
-
-    class ArrayReaderImpl implements ArrayReader {
-        private final String json;
-
-        public ArrayReaderImpl(String json) {
-            this.json = json;
-        }
-
-        @Override
-        public JSONArray read(String path) {
-            if (json == null || json.isEmpty()) {
-                return null;
-            }
-
-            try {
-                Object responseObj = JsonPath.read(json, path);
-                if (responseObj instanceof JSONArray) {
-                    return (JSONArray)responseObj;
-                } else {
-                    throw new RuntimeException("Response Failed, at jsonpath = " + table.getRootJsonpath() + " should be a json array or absent");
-                }
-            } catch (PathNotFoundException e) {
-                return null;
-            }
-        }
-    }
-
-    static class ArrayParamReaderImpl implements ArrayParamReader {
-        private final Object object;
-
-        public ArrayParamReaderImpl(Object object) {
-            this.object = object;
-        }
-
-        @Override
-        public Object read(int index, String path) {
-            if (object == null) {
-                return null;
-            }
-
-            try {
-                return JsonPath.read(object, path);
-            } catch (PathNotFoundException e) {
-                return null;
-            }
-        }
-    }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,72 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.rest.page.ColumnarPage;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decoded pages of a table with the {@code ETag} / {@code Last-Modified} validators of the
+ * responses they came from, by request. A repeated request is sent conditionally and a
+ * {@code 304 Not Modified} answer reuses the kept page. Only pages held entirely in memory are
+ * kept: they own no resources, so they can be shared by queries and need no closing. A pass reusing
+ * a page reads it through {@link ColumnarPage#share}, which charges the rows to the budget of the pass.
+ */
+public class RevalidationCache {
+
+    private final int capacity;
+    private final Map<String, Entry> entries;
+
+    public RevalidationCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > RevalidationCache.this.capacity;
+            }
+        };
+    }
+
+    public synchronized Entry get(String requestKey) {
+        return entries.get(requestKey);
+    }
+
+    public synchronized void put(String requestKey, HttpResponse response, ColumnarPage page) {
+        String etag = response.containsHeader(HttpHeaders.ETAG) ? response.getFirstHeader(HttpHeaders.ETAG).getValue() : null;
+        String lastModified = response.containsHeader(HttpHeaders.LAST_MODIFIED) ? response.getFirstHeader(HttpHeaders.LAST_MODIFIED).getValue() : null;
+        if ((etag == null && lastModified == null) || page.isSpilled()) {
+            entries.remove(requestKey);
+            return;
+        }
+        entries.put(requestKey, new Entry(etag, lastModified, page));
+    }
+
+    public static class Entry {
+        private final String etag;
+        private final String lastModified;
+        private final ColumnarPage page;
+
+        Entry(String etag, String lastModified, ColumnarPage page) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.page = page;
+        }
+
+        public ColumnarPage getPage() {
+            return page;
+        }
+
+        public void applyTo(HttpRequest request) {
+            if (etag != null) {
+                request.setHeader(HttpHeaders.IF_NONE_MATCH, etag);
+            }
+            if (lastModified != null) {
+                request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            }
+        }
+    }
+
+}
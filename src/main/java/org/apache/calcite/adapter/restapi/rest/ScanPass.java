@@ -0,0 +1,89 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.rest.interfaces.RestIterator;
+import org.apache.calcite.adapter.restapi.rest.page.ColumnarPage;
+import org.apache.calcite.adapter.restapi.rest.page.MemoryBudget;
+import org.apache.calcite.adapter.restapi.rest.page.PageLayout;
+import org.apache.calcite.adapter.restapi.rest.profile.ScanProfile;
+import freemarker.template.TemplateModel;
+import org.apache.calcite.rex.RexNode;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Paging state of one pass over the table: the address that answered the first request and
+ * the offset of the next page.
+ */
+class ScanPass implements RestIterator {
+    private final RestTable restTable;
+    private final Object query;
+    private final List<List<RexNode>> filters;
+    private final Map<String, TemplateModel> macros;
+    private final boolean unfiltered;
+    private final Properties properties;
+    private final Set<String> selectedProjectFields;
+    private final PageLayout layout;
+    private final MemoryBudget memoryBudget;
+    private final int pageSize;
+
+    private String address;
+    private int offset;
+    private long fetchedRows;
+    private boolean exhausted;
+    private boolean logged;
+    private final ScanProfile profile;
+
+    ScanPass(RestTable restTable, Object query, List<List<RexNode>> filters, Map<String, TemplateModel> macros, boolean unfiltered, Properties properties, Set<String> selectedProjectFields, PageLayout layout, MemoryBudget memoryBudget) {
+        this.restTable = restTable;
+        this.query = query;
+        this.filters = filters;
+        this.macros = macros;
+        this.unfiltered = unfiltered;
+        this.properties = properties;
+        this.selectedProjectFields = selectedProjectFields;
+        this.layout = layout;
+        this.memoryBudget = memoryBudget;
+        this.pageSize = restTable.getConnectionData().getPageSize();
+        this.offset = pageSize * restTable.getConnectionData().getPageStart();
+        this.profile = restTable.startProfile(filters);
+    }
+
+    /**
+     * A page of a child table has no rows when none of its parent elements has any, so such
+     * pages are skipped until the parent is exhausted.
+     */
+    @Override
+    public ColumnarPage getMore() {
+        if (exhausted) {
+            return ColumnarPage.empty();
+        }
+        if (!logged) {
+            restTable.logProfile(profile);
+            logged = true;
+        }
+
+        while (true) {
+            Map.Entry<String, ColumnarPage> restResult;
+            try (ResponseBuffer buffer = ResponseBuffer.acquire()) {
+                restResult = restTable.getFetcher().fetch(query, address, filters, macros, offset, properties, selectedProjectFields, layout, memoryBudget, buffer, profile);
+            }
+            address = restResult.getKey();
+            ColumnarPage page = restResult.getValue();
+            fetchedRows += page.size();
+            offset += pageSize;
+            if (pageSize <= 0 || page.getElements() < pageSize) {
+                exhausted = true;
+                if (unfiltered) {
+                    restTable.observeRowCount(fetchedRows);
+                }
+            }
+            if (page.size() > 0 || exhausted) {
+                return page;
+            }
+            page.close();
+        }
+    }
+}
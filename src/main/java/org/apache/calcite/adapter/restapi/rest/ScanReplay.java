@@ -0,0 +1,44 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How the pages of a scan are kept for repeated enumerations within one query,
+ * e.g. the inner side of a nested-loop join.
+ */
+public enum ScanReplay {
+
+    /** Every enumeration requests the pages again. */
+    NONE("none"),
+    /** Pages are kept as decoded, within the {@code scanMemoryBudget} of the scan. */
+    MEMORY("memory"),
+    /** Rows of kept pages are written to a spill file instead of the heap. */
+    SPILL("spill");
+
+    private final String token;
+
+    private static final Map<String, ScanReplay> MAP = new HashMap<>();
+
+    static {
+        for (ScanReplay value : values()) {
+            MAP.put(value.token, value);
+        }
+    }
+
+    ScanReplay(String token) {
+        this.token = token;
+    }
+
+    public static ScanReplay of(String token) {
+        if (token == null || token.isBlank()) {
+            return NONE;
+        }
+        ScanReplay replay = MAP.get(token.trim().toLowerCase());
+        if (replay == null) {
+            throw new IllegalArgumentException("Unknown scanReplay '" + token + "', expected one of none, memory, spill");
+        }
+        return replay;
+    }
+
+}
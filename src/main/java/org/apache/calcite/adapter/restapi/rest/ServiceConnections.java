@@ -0,0 +1,282 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.model.RequestData;
+import org.apache.calcite.adapter.restapi.model.WarmUp;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.entity.InputStreamFactory;
+import org.apache.hc.client5.http.impl.ChainElement;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.routing.RoutingSupport;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * HTTP connections of a service: a connection pool shared by its tables, and the addresses that
+ * failed recently, which are tried after the others. With {@code warmUp}, connections to every
+ * address are opened, and its health URL called, once the service is loaded, and then at an interval.
+ * Only the health of the addresses is recorded; they are always tried in their configured order.
+ */
+public class ServiceConnections {
+
+    /** Context attribute holding the time the request reached the transport. */
+    static final String CONNECTED_AT = "rest.connectedAt";
+
+    private static final int MAX_CONNECTIONS_PER_ADDRESS = 64;
+    /** How long an address that failed is tried after the others. */
+    private static final long FAILED_MILLIS = 30_000;
+    private static final Timeout DEFAULT_CONNECT_TIMEOUT = Timeout.ofSeconds(30);
+    private static final TimeValue VALIDATE_AFTER_INACTIVITY = TimeValue.ofSeconds(2);
+    private static final TimeValue WARM_KEEP_ALIVE = TimeValue.ofMinutes(3);
+    /** How long released connections stay open after their last request, for scans paging on. */
+    private static final long RELEASE_GRACE_MILLIS = 30_000;
+    private static final ScheduledExecutorService WARMER = Executors.newScheduledThreadPool(8, runnable -> {
+        Thread thread = new Thread(runnable, "rest-warm-up");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Logger logger = LoggerFactory.getLogger(ServiceConnections.class);
+
+    private final String service;
+    private final RequestData requestData;
+    private final List<String> addresses;
+    private final Timeout connectTimeout;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final Map<String, Long> failedAt = new ConcurrentHashMap<>();
+    private final AtomicBoolean warming = new AtomicBoolean();
+    private final AtomicBoolean released = new AtomicBoolean();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile long lastRequestAt;
+    private volatile ScheduledFuture<?> probes;
+    private volatile ScheduledFuture<?> closing;
+
+    public ServiceConnections(String service, RequestData requestData) {
+        this.service = service;
+        this.requestData = requestData;
+        this.addresses = requestData.getAddresses() == null ? Collections.emptyList() : Arrays.stream(requestData.getAddresses().split(","))
+                .map(String::trim)
+                .filter(address -> !address.isEmpty())
+                .collect(Collectors.toUnmodifiableList());
+        this.connectTimeout = requestData.getConnectionTimeout() > 0 ? Timeout.ofSeconds(requestData.getConnectionTimeout()) : DEFAULT_CONNECT_TIMEOUT;
+
+        this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnPerRoute(MAX_CONNECTIONS_PER_ADDRESS)
+                .setMaxConnTotal(MAX_CONNECTIONS_PER_ADDRESS * Math.max(addresses.size(), 1))
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(connectTimeout)
+                        .setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY)
+                        .build())
+                .build();
+
+        HttpClientBuilder builder = HttpClientBuilder.create().setConnectionManager(connectionManager);
+        builder.addExecInterceptorBefore(ChainElement.MAIN_TRANSPORT.name(), CONNECTED_AT, (request, scope, chain) -> {
+            scope.clientContext.setAttribute(CONNECTED_AT, System.nanoTime());
+            return chain.proceed(request, scope);
+        });
+        LinkedHashMap<String, InputStreamFactory> decoders = RestContentEncoding.decoderRegistry(requestData.getAcceptEncoding());
+        if (decoders != null) {
+            if (decoders.isEmpty()) {
+                builder.disableContentCompression();
+            } else {
+                builder.setContentDecoderRegistry(decoders);
+            }
+        }
+        this.httpClient = builder.build();
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public RequestData getRequestData() {
+        return requestData;
+    }
+
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * @return the addresses in their configured order, those that failed within the last 30 seconds last
+     */
+    public List<String> getAddresses() {
+        if (failedAt.isEmpty()) {
+            return addresses;
+        }
+        long now = System.currentTimeMillis();
+        List<String> ordered = new ArrayList<>(addresses.size());
+        addresses.stream().filter(address -> !hasFailed(address, now)).forEach(ordered::add);
+        addresses.stream().filter(address -> hasFailed(address, now)).forEach(ordered::add);
+        return ordered;
+    }
+
+    private boolean hasFailed(String address, long now) {
+        Long failed = failedAt.get(address);
+        return failed != null && now - failed < FAILED_MILLIS;
+    }
+
+    public void failed(String address) {
+        failedAt.put(address, System.currentTimeMillis());
+    }
+
+    public void succeeded(String address) {
+        failedAt.remove(address);
+    }
+
+    /**
+     * Starts warming the connections up if {@code warmUp} is configured; does nothing if already started.
+     */
+    public void startWarmUp() {
+        WarmUp warmUp = requestData.getWarmUp();
+        if (warmUp == null || addresses.isEmpty() || !warming.compareAndSet(false, true)) {
+            return;
+        }
+        if (warmUp.getInterval() > 0) {
+            probes = WARMER.scheduleWithFixedDelay(this::warmUp, 0, warmUp.getInterval(), TimeUnit.SECONDS);
+        } else {
+            WARMER.execute(this::warmUp);
+        }
+    }
+
+    /**
+     * Called before a request is sent with the client of these connections.
+     */
+    public void begin() {
+        inFlight.incrementAndGet();
+        lastRequestAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Called once the response of a request counted by {@link #begin()} is closed.
+     */
+    public void end() {
+        inFlight.decrementAndGet();
+        lastRequestAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Called when the service is replaced by a reloaded definition: warm-ups stop, and idle
+     * connections are closed. The client and its pool are closed gracefully once no request is
+     * running and none was sent for 30 seconds, so that queries started before the reload finish.
+     */
+    public void release() {
+        if (!released.compareAndSet(false, true)) {
+            return;
+        }
+        if (probes != null) {
+            probes.cancel(false);
+        }
+        connectionManager.closeIdle(TimeValue.ZERO_MILLISECONDS);
+        closing = WARMER.scheduleWithFixedDelay(this::closeWhenDone, 1, 1, TimeUnit.SECONDS);
+    }
+
+    private void closeWhenDone() {
+        if (inFlight.get() > 0 || System.currentTimeMillis() - lastRequestAt < RELEASE_GRACE_MILLIS) {
+            connectionManager.closeIdle(TimeValue.ZERO_MILLISECONDS);
+            return;
+        }
+        ScheduledFuture<?> closing = this.closing;
+        if (closing != null) {
+            closing.cancel(false);
+        }
+        httpClient.close(CloseMode.GRACEFUL);
+        logger.debug("Connections of the released service '{}' closed", service);
+    }
+
+    private void warmUp() {
+        for (String address : addresses) {
+            if (released.get()) {
+                return;
+            }
+            warmUp(address, requestData.getWarmUp());
+        }
+    }
+
+    /**
+     * Opens connections to the address until {@code connections} of them are idle in the pool, which
+     * resolves the host and completes the TLS handshake, then calls the health URL.
+     */
+    private void warmUp(String address, WarmUp warmUp) {
+        long started = System.nanoTime();
+        try {
+            HttpRoute route = route(address);
+            List<ConnectionEndpoint> endpoints = new ArrayList<>();
+            try {
+                for (int i = 0; i < Math.max(warmUp.getConnections(), 1); i++) {
+                    ConnectionEndpoint endpoint = connectionManager.lease(service, route, connectTimeout, null).get(connectTimeout);
+                    endpoints.add(endpoint);
+                    if (!endpoint.isConnected()) {
+                        connectionManager.connect(endpoint, connectTimeout, HttpClientContext.create());
+                    }
+                }
+            } finally {
+                endpoints.forEach(endpoint -> connectionManager.release(endpoint, null, WARM_KEEP_ALIVE));
+            }
+
+            if (warmUp.getHealthUrl() != null && !warmUp.getHealthUrl().isBlank()) {
+                HttpGet request = new HttpGet(address + warmUp.getHealthUrl().trim());
+                request.setConfig(RequestConfig.custom()
+                        .setResponseTimeout(requestData.getResponseTimeout(), TimeUnit.SECONDS)
+                        .build());
+                int statusCode = httpClient.execute(request, response -> {
+                    EntityUtils.consume(response.getEntity());
+                    return response.getCode();
+                });
+                if (statusCode < 200 || statusCode >= 300) {
+                    throw new IOException("Health check failed, status code (" + statusCode + ")");
+                }
+            }
+            succeeded(address);
+            logger.debug("Address '{}' of service '{}' warmed up in {} ms", address, service, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | ExecutionException | TimeoutException | RuntimeException e) {
+            failed(address);
+            logger.warn("Warm-up of address '{}' of service '{}' failed: {}", address, service, e.getMessage());
+        }
+    }
+
+    /**
+     * Route of the requests to the address, as planned by the client for them.
+     */
+    private static HttpRoute route(String address) {
+        HttpHost host = RoutingSupport.normalize(HttpHost.create(URI.create(address)), DefaultSchemePortResolver.INSTANCE);
+        return new HttpRoute(host, null, URIScheme.HTTPS.same(host.getSchemeName()));
+    }
+
+}
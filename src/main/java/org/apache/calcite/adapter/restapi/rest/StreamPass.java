@@ -0,0 +1,188 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.rest.interfaces.RestIterator;
+import org.apache.calcite.adapter.restapi.rest.metrics.RequestEvent;
+import org.apache.calcite.adapter.restapi.rest.page.ColumnarPage;
+import org.apache.calcite.adapter.restapi.rest.page.MemoryBudget;
+import org.apache.calcite.adapter.restapi.rest.page.PageLayout;
+import org.apache.calcite.adapter.restapi.rest.profile.ScanProfile;
+import com.google.common.base.Joiner;
+import com.google.common.io.CountingInputStream;
+import freemarker.template.TemplateModel;
+import org.apache.calcite.rex.RexNode;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * One pass over a table answering with a stream of records: a single request whose response
+ * stays open while the pass is read, and is closed as soon as the pass is, e.g. under LIMIT.
+ * Pages of {@code pageSize} rows are cut from the stream, so only one of them is held at a time.
+ */
+class StreamPass implements RestIterator {
+    private static final int DEFAULT_STREAM_CHUNK_SIZE = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(StreamPass.class);
+
+    private final RestTable restTable;
+    private final RequestExecutor executor;
+    private final List<List<RexNode>> filters;
+    private final Map<String, TemplateModel> macros;
+    private final boolean unfiltered;
+    private final Properties properties;
+    private final Set<String> selectedProjectFields;
+    private final PageLayout layout;
+    private final MemoryBudget memoryBudget;
+    private final int chunkSize;
+    private final ScanProfile profile;
+
+    private HttpUriRequestBase request;
+    private ClassicHttpResponse response;
+    private CountingInputStream body;
+    private Iterator<Object> records;
+    private RequestEvent event;
+    /** Whether the open response is counted by {@link ServiceConnections#begin()}. */
+    private boolean counted;
+    private long started;
+    private long fetchedRows;
+    private boolean exhausted;
+
+    StreamPass(RestTable restTable, List<List<RexNode>> filters, Map<String, TemplateModel> macros, boolean unfiltered, Properties properties, Set<String> selectedProjectFields, PageLayout layout, MemoryBudget memoryBudget) {
+        this.restTable = restTable;
+        this.executor = restTable.getExecutor();
+        this.filters = filters;
+        this.macros = macros;
+        this.unfiltered = unfiltered;
+        this.properties = properties;
+        this.selectedProjectFields = selectedProjectFields;
+        this.layout = layout;
+        this.memoryBudget = memoryBudget;
+        this.chunkSize = restTable.getConnectionData().getPageSize() > 0 ? restTable.getConnectionData().getPageSize() : DEFAULT_STREAM_CHUNK_SIZE;
+        this.profile = restTable.startProfile(filters);
+    }
+
+    @Override
+    public ColumnarPage getMore() {
+        if (exhausted) {
+            return ColumnarPage.empty();
+        }
+        if (records == null) {
+            restTable.logProfile(profile);
+            open();
+        }
+
+        ColumnarPage page = new ColumnarPage(layout, memoryBudget);
+        try {
+            while (page.size() < chunkSize && records.hasNext()) {
+                page.append(new ArrayParamReaderImpl(records.next()));
+            }
+        } catch (RuntimeException e) {
+            page.close();
+            finish(e);
+            throw e;
+        }
+        fetchedRows += page.size();
+        if (page.size() < chunkSize) {
+            finish(null);
+            if (unfiltered) {
+                restTable.observeRowCount(fetchedRows);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public void close() {
+        if (!exhausted && records != null) {
+            request.cancel();
+            finish(null);
+        }
+        exhausted = true;
+    }
+
+    private void open() {
+        ServiceConnections connections = executor.getConnections();
+        int offset = restTable.getConnectionData().getPageSize() * restTable.getConnectionData().getPageStart();
+        List<String> errors = new ArrayList<>();
+        for (String address : connections.getAddresses()) {
+            try {
+                request = restTable.getRenderer().render(address, filters, macros, offset, properties, selectedProjectFields).request;
+                event = executor.newEvent(request, !errors.isEmpty());
+                logger.debug("Streaming: '{}'", request.getRequestUri());
+
+                started = System.nanoTime();
+                HttpClientContext context = HttpClientContext.create();
+                connections.begin();
+                counted = true;
+                response = connections.getHttpClient().executeOpen(null, request, context);
+                event.setFirstByteNanos(System.nanoTime() - started);
+                Long connected = (Long) context.getAttribute(ServiceConnections.CONNECTED_AT);
+                if (connected != null) {
+                    event.setConnectNanos(connected - started);
+                }
+                event.setStatusCode(response.getCode());
+                if (!RequestExecutor.isSuccessfulResponse(response.getCode())) {
+                    throw new RuntimeException("Request Failed, status code (" + response.getCode() + ")");
+                }
+                if (response.getEntity() == null) {
+                    throw new IOException("Empty response entity");
+                }
+                body = new CountingInputStream(response.getEntity().getContent());
+                records = NdjsonStreamDecoder.records(body);
+                connections.succeeded(address);
+                return;
+            } catch (IOException e) {
+                connections.failed(address);
+                closeResponse(e);
+                errors.add(e.getMessage());
+                logger.warn(e.getMessage());
+            } catch (RuntimeException e) {
+                finish(e);
+                throw e;
+            }
+        }
+        throw new RuntimeException("All requests attempts are failed. \n" + Joiner.on(", \n").join(errors));
+    }
+
+    private void finish(Exception error) {
+        exhausted = true;
+        closeResponse(error);
+    }
+
+    /**
+     * Records the request with its outcome, and closes its response; the pass may still try another address.
+     */
+    private void closeResponse(Exception error) {
+        if (event != null) {
+            event.setTotalNanos(System.nanoTime() - started);
+            event.setBytes(body != null ? body.getCount() : 0);
+            event.setRows((int) Math.min(Integer.MAX_VALUE, fetchedRows));
+            event.setError(error);
+            executor.record(request, event, profile);
+            event = null;
+        }
+        try {
+            if (response != null) {
+                response.close();
+            }
+        } catch (IOException e) {
+            logger.debug("Closing the stream of '{}' failed: {}", restTable.getTableName(), e.getMessage());
+        }
+        response = null;
+        body = null;
+        if (counted) {
+            executor.getConnections().end();
+            counted = false;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.rest.interfaces.ArrayParamReader;
+import org.apache.calcite.adapter.restapi.rest.interfaces.ResponseDecoder;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Decodes the row elements of an XML response with StAX, one row at a time and without building a DOM.
+ * Rows are the elements at {@code rowPath}: {@code /feed/items/item} from the document element,
+ * or {@code //item} at any depth. Fields are paths relative to the row element: {@code name},
+ * {@code address/city}, {@code @id}, {@code address/@zip}, or {@code .} for the text of the row itself.
+ * Values are the trimmed text of the first matching element, or {@code null} if it is absent.
+ * Namespaces are ignored, elements are matched by their local names.
+ */
+public class XmlStreamDecoder implements ResponseDecoder {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = newInputFactory();
+
+    private final String rowPath;
+    private final List<String> rowSegments;
+    private final boolean anyDepth;
+    /** Fields by the element path they are read from, relative to the row; {@code ""} is the row element. */
+    private final Map<String, List<FieldPath>> fieldsByElement;
+
+    private XmlStreamDecoder(String rowPath, List<String> rowSegments, boolean anyDepth, Map<String, List<FieldPath>> fieldsByElement) {
+        this.rowPath = rowPath;
+        this.rowSegments = rowSegments;
+        this.anyDepth = anyDepth;
+        this.fieldsByElement = fieldsByElement;
+    }
+
+    public static XmlStreamDecoder of(String rowPath, Collection<String> fieldPaths) {
+        if (rowPath == null || rowPath.isBlank() || rowPath.trim().equals("/") || rowPath.trim().equals("//")) {
+            throw new IllegalArgumentException("rootJsonpath of an xml table should be the path of its row elements, e.g. /feed/items/item, got '" + rowPath + "'");
+        }
+        String path = rowPath.trim();
+        boolean anyDepth = path.startsWith("//");
+        List<String> segments = Collections.unmodifiableList(Arrays.asList(path.substring(anyDepth ? 2 : path.startsWith("/") ? 1 : 0).split("/")));
+
+        Map<String, List<FieldPath>> fieldsByElement = new HashMap<>();
+        for (String fieldPath : fieldPaths) {
+            if (fieldPath == null) {
+                continue;
+            }
+            FieldPath field = FieldPath.of(fieldPath);
+            fieldsByElement.computeIfAbsent(field.element, element -> new ArrayList<>()).add(field);
+        }
+        return new XmlStreamDecoder(path, segments, anyDepth, fieldsByElement);
+    }
+
+    @Override
+    public void decode(InputStream body, Consumer<ArrayParamReader> rowConsumer) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(body);
+            List<String> path = new ArrayList<>();
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    path.add(reader.getLocalName());
+                    if (isRow(path)) {
+                        rowConsumer.accept(readRow(reader));
+                        path.remove(path.size() - 1);
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    path.remove(path.size() - 1);
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Response Failed, invalid xml at " + rowPath + ": " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                }
+            }
+        }
+    }
+
+    private boolean isRow(List<String> path) {
+        int offset = path.size() - rowSegments.size();
+        if (offset < 0 || !anyDepth && offset != 0) {
+            return false;
+        }
+        for (int i = 0; i < rowSegments.size(); i++) {
+            if (!rowSegments.get(i).equals(path.get(offset + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the row element the reader is positioned at, up to and including its end tag.
+     */
+    private ArrayParamReader readRow(XMLStreamReader reader) throws XMLStreamException {
+        Map<String, String> values = new HashMap<>();
+        List<String> elements = new ArrayList<>();
+        List<StringBuilder> texts = new ArrayList<>();
+        String element = "";
+        startElement(reader, element, values, texts);
+
+        while (true) {
+            int event = reader.next();
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    elements.add(element);
+                    element = element.isEmpty() ? reader.getLocalName() : element + "/" + reader.getLocalName();
+                    startElement(reader, element, values, texts);
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    StringBuilder text = texts.get(texts.size() - 1);
+                    if (text != null) {
+                        text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    StringBuilder finished = texts.remove(texts.size() - 1);
+                    if (finished != null) {
+                        for (FieldPath field : fieldsByElement.get(element)) {
+                            if (field.attribute == null) {
+                                values.putIfAbsent(field.path, finished.toString().trim());
+                            }
+                        }
+                    }
+                    if (elements.isEmpty()) {
+                        return (index, path) -> values.get(path);
+                    }
+                    element = elements.remove(elements.size() - 1);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Reads the attributes the fields take from the element and starts collecting its text
+     * if a field takes it and has no value yet.
+     */
+    private void startElement(XMLStreamReader reader, String element, Map<String, String> values, List<StringBuilder> texts) {
+        List<FieldPath> fields = fieldsByElement.get(element);
+        boolean text = false;
+        if (fields != null) {
+            for (FieldPath field : fields) {
+                if (values.containsKey(field.path)) {
+                    continue;
+                }
+                if (field.attribute != null) {
+                    String value = attributeValue(reader, field.attribute);
+                    if (value != null) {
+                        values.put(field.path, value);
+                    }
+                } else {
+                    text = true;
+                }
+            }
+        }
+        texts.add(text ? new StringBuilder() : null);
+    }
+
+    private static String attributeValue(XMLStreamReader reader, String name) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (name.equals(reader.getAttributeLocalName(i))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+
+    private static class FieldPath {
+        private final String path;
+        private final String element;
+        private final String attribute;
+
+        private FieldPath(String path, String element, String attribute) {
+            this.path = path;
+            this.element = element;
+            this.attribute = attribute;
+        }
+
+        static FieldPath of(String path) {
+            String relative = path.trim();
+            if (relative.startsWith("./")) {
+                relative = relative.substring(2);
+            }
+            if (relative.equals(".")) {
+                relative = "";
+            }
+            int slash = relative.lastIndexOf('/');
+            String last = relative.substring(slash + 1);
+            if (last.startsWith("@")) {
+                return new FieldPath(path, slash < 0 ? "" : relative.substring(0, slash), last.substring(1));
+            }
+            return new FieldPath(path, relative, null);
+        }
+    }
+
+}
@@ -0,0 +1,401 @@
+package org.apache.calcite.adapter.restapi.rest.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Response bodies kept on disk by rendered request, so that they survive restarts.
+ * Records are appended to segment files; the index, kept in memory and rebuilt from the segment
+ * headers on open, maps a 64-bit hash of the request to the latest record. A record holds the
+ * full request for verification, its expiry time and a CRC32 of the body, and is ignored when
+ * expired or corrupted. When the segments exceed the size cap the oldest segment is deleted.
+ * A response body is streamed to a capture file of its own while it is read, and moved into the
+ * current segment once it was read to the end.
+ *
+ * <p>Record layout: magic, request length, request, expiry (epoch millis, 0 – never), body length, body, CRC32.
+ */
+public class DiskResponseCache {
+
+    private static final int MAGIC = 0x52455354;
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    private static final long MAX_SEGMENT_SIZE = 64L * 1024 * 1024;
+    private static final long MIN_SEGMENT_SIZE = 1024L * 1024;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CAPTURE_PREFIX = "capture-";
+    private static final int CAPTURE_BUFFER_SIZE = 64 * 1024;
+
+    private static final Map<Path, DiskResponseCache> CACHES = new ConcurrentHashMap<>();
+
+    private final Logger logger = LoggerFactory.getLogger(DiskResponseCache.class);
+
+    private final Path directory;
+    private final long maxSize;
+    private final long segmentSize;
+    private final TreeMap<Integer, FileChannel> segments = new TreeMap<>();
+    private final Map<Long, Location> index = new HashMap<>();
+    private long totalSize;
+
+    private DiskResponseCache(Path directory, long maxSize) throws IOException {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.segmentSize = Math.max(MIN_SEGMENT_SIZE, Math.min(MAX_SEGMENT_SIZE, maxSize / 4));
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().startsWith(CAPTURE_PREFIX)).forEach(path -> path.toFile().delete());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .mapToInt(name -> Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .forEach(this::load);
+        }
+    }
+
+    /**
+     * Returns the cache of {@code directory}, shared by all tables configured with it.
+     *
+     * @param maxSize size cap of the segments in bytes
+     */
+    public static DiskResponseCache open(String directory, long maxSize) {
+        return CACHES.computeIfAbsent(Paths.get(directory).toAbsolutePath().normalize(), path -> {
+            try {
+                return new DiskResponseCache(path, maxSize);
+            } catch (IOException e) {
+                throw new IllegalStateException("Can not open response cache in '" + path + "'", e);
+            }
+        });
+    }
+
+    /**
+     * @return the stored body of {@code request}, or {@code null} if there is none, or it expired
+     *         or does not pass its checksum
+     */
+    public synchronized byte[] get(String request) {
+        long hash = hash(request);
+        Location location = index.get(hash);
+        if (location == null) {
+            return null;
+        }
+        if (location.expiresAt != 0 && location.expiresAt < System.currentTimeMillis()) {
+            index.remove(hash);
+            return null;
+        }
+
+        try {
+            FileChannel channel = segments.get(location.segment);
+            ByteBuffer record = ByteBuffer.allocate(location.length);
+            readFully(channel, record, location.offset);
+            record.flip();
+
+            record.getInt();
+            byte[] storedRequest = new byte[record.getInt()];
+            record.get(storedRequest);
+            record.getLong();
+            byte[] body = new byte[record.getInt()];
+            record.get(body);
+            int crc = record.getInt();
+
+            if (!request.equals(new String(storedRequest, StandardCharsets.UTF_8))) {
+                return null;
+            }
+            if (crc != crc(body, body.length)) {
+                logger.warn("Response cache record in segment {} at {} is corrupted, ignoring it", location.segment, location.offset);
+                index.remove(hash);
+                return null;
+            }
+            return body;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Response cache read failed: {}", e.getMessage());
+            index.remove(hash);
+            return null;
+        }
+    }
+
+    /**
+     * Starts capturing the body of {@code request}: what is read through {@link Capture#wrap} is
+     * written to a capture file, and stored by {@link Capture#commit} if the body was read to the end.
+     *
+     * @param ttl time to live in milliseconds, 0 – never expires
+     */
+    public Capture capture(String request, long ttl) {
+        return new Capture(request, ttl);
+    }
+
+    /**
+     * Appends the captured body to the current segment, copying it from the capture file.
+     */
+    private synchronized void put(String request, Path body, long length, int crc, long ttl) throws IOException {
+        byte[] requestBytes = request.getBytes(StandardCharsets.UTF_8);
+        long recordLength = HEADER_SIZE + requestBytes.length + Long.BYTES + Integer.BYTES + length + Integer.BYTES;
+        if (recordLength > segmentSize) {
+            return;
+        }
+
+        long expiresAt = ttl > 0 ? System.currentTimeMillis() + ttl : 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + requestBytes.length + Long.BYTES + Integer.BYTES);
+        header.putInt(MAGIC)
+                .putInt(requestBytes.length)
+                .put(requestBytes)
+                .putLong(expiresAt)
+                .putInt((int) length);
+        header.flip();
+        ByteBuffer trailer = ByteBuffer.allocate(Integer.BYTES).putInt(crc);
+        trailer.flip();
+
+        Map.Entry<Integer, FileChannel> segment = segments.lastEntry();
+        if (segment == null || segment.getValue().size() + recordLength > segmentSize) {
+            int id = segment == null ? 1 : segment.getKey() + 1;
+            segments.put(id, FileChannel.open(segmentPath(id), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            segment = segments.lastEntry();
+        }
+        FileChannel channel = segment.getValue();
+        long offset = channel.size();
+        try {
+            writeFully(channel, header, offset);
+            if (length > 0) {
+                try (FileChannel source = FileChannel.open(body, StandardOpenOption.READ)) {
+                    long copied = 0;
+                    while (copied < length) {
+                        long transferred = channel.transferFrom(source.position(copied), offset + header.capacity() + copied, length - copied);
+                        if (transferred <= 0) {
+                            throw new IOException("Capture file is shorter than the captured body");
+                        }
+                        copied += transferred;
+                    }
+                }
+            }
+            writeFully(channel, trailer, offset + header.capacity() + length);
+        } catch (IOException e) {
+            channel.truncate(offset);
+            throw e;
+        }
+        totalSize += recordLength;
+        index.put(hash(request), new Location(segment.getKey(), offset, (int) recordLength, expiresAt));
+        evict();
+    }
+
+    /**
+     * Body of one response being captured; closing it deletes the capture file.
+     */
+    public class Capture implements Closeable {
+        private final String request;
+        private final long ttl;
+        private final CRC32 crc = new CRC32();
+        private final byte[] single = new byte[1];
+        private Path file;
+        private OutputStream out;
+        private long length;
+        private boolean complete;
+        private boolean overflow;
+
+        private Capture(String request, long ttl) {
+            this.request = request;
+            this.ttl = ttl;
+        }
+
+        /**
+         * Copies what is read from {@code in} into the capture file, up to the largest body a record can hold.
+         */
+        public InputStream wrap(InputStream in) {
+            return new FilterInputStream(in) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b == -1) {
+                        complete = true;
+                    } else {
+                        single[0] = (byte) b;
+                        write(single, 0, 1);
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] bytes, int off, int len) throws IOException {
+                    int read = super.read(bytes, off, len);
+                    if (read == -1) {
+                        complete = true;
+                    } else if (read > 0) {
+                        write(bytes, off, read);
+                    }
+                    return read;
+                }
+            };
+        }
+
+        private void write(byte[] bytes, int off, int len) throws IOException {
+            if (overflow) {
+                return;
+            }
+            if (length + len > segmentSize) {
+                overflow = true;
+                close();
+                return;
+            }
+            if (out == null) {
+                file = Files.createTempFile(directory, CAPTURE_PREFIX, ".tmp");
+                out = new BufferedOutputStream(Files.newOutputStream(file), CAPTURE_BUFFER_SIZE);
+            }
+            out.write(bytes, off, len);
+            crc.update(bytes, off, len);
+            length += len;
+        }
+
+        /**
+         * Stores the body if it was read to the end and fits a segment, then deletes the capture file.
+         */
+        public void commit() {
+            try {
+                if (complete && !overflow) {
+                    if (out != null) {
+                        out.close();
+                        out = null;
+                    }
+                    put(request, file, length, (int) crc.getValue(), ttl);
+                }
+            } catch (IOException e) {
+                logger.warn("Response cache write failed: {}", e.getMessage());
+            } finally {
+                close();
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (out != null) {
+                    out.close();
+                }
+                if (file != null) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                logger.debug("Capture file '{}' can not be deleted: {}", file, e.getMessage());
+            }
+            out = null;
+            file = null;
+        }
+    }
+
+    private void load(int id) {
+        try {
+            FileChannel channel = FileChannel.open(segmentPath(id), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segments.put(id, channel);
+            long size = channel.size();
+            long offset = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (offset + HEADER_SIZE <= size) {
+                header.clear();
+                readFully(channel, header, offset);
+                if (header.getInt(0) != MAGIC) {
+                    break;
+                }
+                int requestLength = header.getInt(Integer.BYTES);
+                ByteBuffer request = ByteBuffer.allocate(requestLength + Long.BYTES + Integer.BYTES);
+                if (offset + HEADER_SIZE + request.capacity() > size) {
+                    break;
+                }
+                readFully(channel, request, offset + HEADER_SIZE);
+                long expiresAt = request.getLong(requestLength);
+                int bodyLength = request.getInt(requestLength + Long.BYTES);
+                int recordLength = HEADER_SIZE + request.capacity() + bodyLength + Integer.BYTES;
+                if (offset + recordLength > size) {
+                    break;
+                }
+                String key = new String(request.array(), 0, requestLength, StandardCharsets.UTF_8);
+                index.put(hash(key), new Location(id, offset, recordLength, expiresAt));
+                offset += recordLength;
+            }
+            if (offset < size) {
+                logger.warn("Response cache segment {} has an incomplete record at {}, truncating it", id, offset);
+                channel.truncate(offset);
+            }
+            totalSize += offset;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Response cache segment {} can not be read, skipping it: {}", id, e.getMessage());
+        }
+    }
+
+    private void evict() throws IOException {
+        while (totalSize > maxSize && segments.size() > 1) {
+            Map.Entry<Integer, FileChannel> oldest = segments.pollFirstEntry();
+            totalSize -= oldest.getValue().size();
+            oldest.getValue().close();
+            Files.deleteIfExists(segmentPath(oldest.getKey()));
+            index.values().removeIf(location -> location.segment == oldest.getKey());
+        }
+    }
+
+    private Path segmentPath(int id) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of response cache segment");
+            }
+        }
+    }
+
+    private static int crc(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * FNV-1a hash of the request.
+     */
+    private static long hash(String request) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : request.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static class Location {
+        private final int segment;
+        private final long offset;
+        private final int length;
+        private final long expiresAt;
+
+        Location(int segment, long offset, int length, long expiresAt) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+}
@@ -0,0 +1,10 @@
+package org.apache.calcite.adapter.restapi.rest.interfaces;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ResponseBodyHandler {
+
+    void handle(InputStream body, long contentLength) throws IOException;
+
+}
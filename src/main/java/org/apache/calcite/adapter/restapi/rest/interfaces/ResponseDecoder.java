@@ -0,0 +1,15 @@
+package org.apache.calcite.adapter.restapi.rest.interfaces;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Decodes the rows of a response body while it is read, handing each row to the consumer
+ * as soon as it is complete.
+ */
+public interface ResponseDecoder {
+
+    void decode(InputStream body, Consumer<ArrayParamReader> rowConsumer) throws IOException;
+
+}
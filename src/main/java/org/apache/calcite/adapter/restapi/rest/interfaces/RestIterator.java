@@ -1,11 +1,19 @@
 package org.apache.calcite.adapter.restapi.rest.interfaces;
 
-import org.apache.calcite.adapter.restapi.rest.ResponseRowReader;
-
-import java.util.List;
+import org.apache.calcite.adapter.restapi.rest.page.ColumnarPage;
 
 public interface RestIterator {
 
-    List<ResponseRowReader> getMore();
+    ColumnarPage getMore();
+
+    /**
+     * Called when the enumerator has read a page returned by {@link #getMore()}.
+     */
+    default void release(ColumnarPage page) {
+        page.close();
+    }
+
+    default void close() {
+    }
 
 }
@@ -0,0 +1,40 @@
+package org.apache.calcite.adapter.restapi.rest.metrics;
+
+import lombok.Data;
+
+/**
+ * One page request of a table, as reported to {@link RestMetricsListener}s.
+ * Times are in nanoseconds, {@code -1} when the phase did not happen.
+ */
+@Data
+public class RequestEvent {
+
+    public enum Source {
+        /** The body was transferred from the service. */
+        NETWORK,
+        /** The service answered {@code 304 Not Modified} and a kept page was reused. */
+        NOT_MODIFIED,
+        /** The body was read from the disk response cache. */
+        DISK_CACHE,
+        /** The document was fetched for another table of the fetch group in the same query. */
+        SHARED
+    }
+
+    private final String service;
+    private final String table;
+    private final String uri;
+
+    private Source source = Source.NETWORK;
+    private int statusCode;
+    private long connectNanos = -1;
+    private long firstByteNanos = -1;
+    private long totalNanos = -1;
+    /** Time spent decoding the body into rows; includes reading the body when it is decoded as a stream. */
+    private long parseNanos = -1;
+    private long bytes;
+    private int rows;
+    /** The request was sent to another address after the previous one failed. */
+    private boolean failover;
+    private Throwable error;
+
+}
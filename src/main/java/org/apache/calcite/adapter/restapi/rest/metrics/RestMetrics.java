@@ -0,0 +1,274 @@
+package org.apache.calcite.adapter.restapi.rest.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request and scan metrics of a service or of one of its tables, registered as a JMX MBean
+ * {@code org.apache.calcite.adapter.restapi:type=Service,service=...} or
+ * {@code org.apache.calcite.adapter.restapi:type=Table,service=...,table=...}.
+ * What a table records is added to its service as well.
+ */
+public class RestMetrics implements RestMetricsMBean {
+
+    private static final String DOMAIN = "org.apache.calcite.adapter.restapi";
+
+    private static final Logger logger = LoggerFactory.getLogger(RestMetrics.class);
+    private static final Map<String, RestMetrics> REGISTRY = new ConcurrentHashMap<>();
+    private static final List<RestMetricsListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    static {
+        try {
+            ServiceLoader.load(RestMetricsListener.class).forEach(LISTENERS::add);
+        } catch (ServiceConfigurationError e) {
+            logger.warn("Metrics listeners are not loaded: {}", e.getMessage());
+        }
+    }
+
+    private final String service;
+    private final String table;
+    private final RestMetrics parent;
+
+    private final LongAdder scans = new LongAdder();
+    private final LongAdder snapshotScans = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failedRequests = new LongAdder();
+    private final LongAdder failovers = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder diskCacheHits = new LongAdder();
+    private final LongAdder sharedResponses = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder pages = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LatencyHistogram connect = new LatencyHistogram();
+    private final LatencyHistogram firstByte = new LatencyHistogram();
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final LatencyHistogram parse = new LatencyHistogram();
+
+    private RestMetrics(String service, String table, RestMetrics parent) {
+        this.service = service;
+        this.table = table;
+        this.parent = parent;
+    }
+
+    /**
+     * @return the metrics of {@code table}, created and registered on first use
+     */
+    public static RestMetrics of(String service, String table) {
+        RestMetrics serviceMetrics = REGISTRY.computeIfAbsent(service, key -> register(new RestMetrics(service, null, null)));
+        return REGISTRY.computeIfAbsent(service + "\u0000" + table, key -> register(new RestMetrics(service, table, serviceMetrics)));
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public static void addListener(RestMetricsListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void removeListener(RestMetricsListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    public void recordScan(boolean snapshot) {
+        for (RestMetrics metrics = this; metrics != null; metrics = metrics.parent) {
+            metrics.scans.increment();
+            if (snapshot) {
+                metrics.snapshotScans.increment();
+            }
+        }
+        for (RestMetricsListener listener : LISTENERS) {
+            try {
+                listener.onScan(service, table, snapshot);
+            } catch (RuntimeException e) {
+                logger.warn("Metrics listener {} failed: {}", listener.getClass().getName(), e.getMessage());
+            }
+        }
+    }
+
+    public void record(RequestEvent event) {
+        for (RestMetrics metrics = this; metrics != null; metrics = metrics.parent) {
+            metrics.add(event);
+        }
+        for (RestMetricsListener listener : LISTENERS) {
+            try {
+                listener.onRequest(event);
+            } catch (RuntimeException e) {
+                logger.warn("Metrics listener {} failed: {}", listener.getClass().getName(), e.getMessage());
+            }
+        }
+    }
+
+    private void add(RequestEvent event) {
+        if (event.isFailover()) {
+            failovers.increment();
+        }
+        if (event.getSource() == RequestEvent.Source.DISK_CACHE) {
+            diskCacheHits.increment();
+        } else if (event.getSource() == RequestEvent.Source.SHARED) {
+            sharedResponses.increment();
+        } else {
+            requests.increment();
+            connect.record(event.getConnectNanos());
+            firstByte.record(event.getFirstByteNanos());
+            total.record(event.getTotalNanos());
+        }
+        if (event.getError() != null) {
+            failedRequests.increment();
+            return;
+        }
+        if (event.getSource() == RequestEvent.Source.NOT_MODIFIED) {
+            notModified.increment();
+        }
+        parse.record(event.getParseNanos());
+        bytes.add(event.getBytes());
+        pages.increment();
+        rows.add(event.getRows());
+    }
+
+    private static RestMetrics register(RestMetrics metrics) {
+        try {
+            String name = DOMAIN + ":type=" + (metrics.table == null ? "Service" : "Table")
+                    + ",service=" + ObjectName.quote(metrics.service)
+                    + (metrics.table == null ? "" : ",table=" + ObjectName.quote(metrics.table));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(metrics, objectName);
+            }
+        } catch (JMException | SecurityException e) {
+            logger.warn("Metrics MBean of '{}' is not registered: {}", metrics.table == null ? metrics.service : metrics.table, e.getMessage());
+        }
+        return metrics;
+    }
+
+    @Override
+    public long getScanCount() {
+        return scans.sum();
+    }
+
+    @Override
+    public long getSnapshotScanCount() {
+        return snapshotScans.sum();
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getFailedRequestCount() {
+        return failedRequests.sum();
+    }
+
+    @Override
+    public long getFailoverCount() {
+        return failovers.sum();
+    }
+
+    @Override
+    public long getNotModifiedCount() {
+        return notModified.sum();
+    }
+
+    @Override
+    public long getDiskCacheHitCount() {
+        return diskCacheHits.sum();
+    }
+
+    @Override
+    public long getSharedResponseCount() {
+        return sharedResponses.sum();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getPageCount() {
+        return pages.sum();
+    }
+
+    @Override
+    public long getRowCount() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getMeanRowsPerPage() {
+        long n = pages.sum();
+        return n == 0 ? 0 : (double) rows.sum() / n;
+    }
+
+    @Override
+    public double getConnectMeanMillis() {
+        return connect.getMeanMillis();
+    }
+
+    @Override
+    public double getConnectP99Millis() {
+        return connect.getPercentileMillis(99);
+    }
+
+    @Override
+    public double getFirstByteMeanMillis() {
+        return firstByte.getMeanMillis();
+    }
+
+    @Override
+    public double getFirstByteP50Millis() {
+        return firstByte.getPercentileMillis(50);
+    }
+
+    @Override
+    public double getFirstByteP99Millis() {
+        return firstByte.getPercentileMillis(99);
+    }
+
+    @Override
+    public double getTotalMeanMillis() {
+        return total.getMeanMillis();
+    }
+
+    @Override
+    public double getTotalP50Millis() {
+        return total.getPercentileMillis(50);
+    }
+
+    @Override
+    public double getTotalP99Millis() {
+        return total.getPercentileMillis(99);
+    }
+
+    @Override
+    public double getTotalMaxMillis() {
+        return total.getMaxMillis();
+    }
+
+    @Override
+    public double getParseMeanMillis() {
+        return parse.getMeanMillis();
+    }
+
+    @Override
+    public double getParseP99Millis() {
+        return parse.getPercentileMillis(99);
+    }
+
+}
@@ -0,0 +1,20 @@
+package org.apache.calcite.adapter.restapi.rest.metrics;
+
+/**
+ * Receives the metrics of every request and scan of the adapter.
+ * Listeners are added with {@link RestMetrics#addListener(RestMetricsListener)}, or discovered
+ * through {@link java.util.ServiceLoader}. They are called on the querying thread and should return quickly.
+ */
+public interface RestMetricsListener {
+
+    void onRequest(RequestEvent event);
+
+    /**
+     * Called when a scan of {@code table} starts.
+     *
+     * @param snapshot the scan reads the local snapshot of the table
+     */
+    default void onScan(String service, String table, boolean snapshot) {
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.apache.calcite.adapter.restapi.rest.metrics;
+
+public interface RestMetricsMBean {
+
+    long getScanCount();
+
+    long getSnapshotScanCount();
+
+    long getRequestCount();
+
+    long getFailedRequestCount();
+
+    long getFailoverCount();
+
+    long getNotModifiedCount();
+
+    long getDiskCacheHitCount();
+
+    long getSharedResponseCount();
+
+    long getBytesReceived();
+
+    long getPageCount();
+
+    long getRowCount();
+
+    double getMeanRowsPerPage();
+
+    double getConnectMeanMillis();
+
+    double getConnectP99Millis();
+
+    double getFirstByteMeanMillis();
+
+    double getFirstByteP50Millis();
+
+    double getFirstByteP99Millis();
+
+    double getTotalMeanMillis();
+
+    double getTotalP50Millis();
+
+    double getTotalP99Millis();
+
+    double getTotalMaxMillis();
+
+    double getParseMeanMillis();
+
+    double getParseP99Millis();
+
+}
@@ -0,0 +1,8 @@
+package org.apache.calcite.adapter.restapi.rest.page;
+
+@FunctionalInterface
+public interface ColumnConverter {
+
+    Object convert(Object value);
+
+}
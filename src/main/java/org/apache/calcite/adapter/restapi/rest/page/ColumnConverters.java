@@ -0,0 +1,145 @@
+package org.apache.calcite.adapter.restapi.rest.page;
+
+import org.apache.calcite.adapter.restapi.rest.RestFieldType;
+import freemarker.template.TemplateBooleanModel;
+import freemarker.template.TemplateModel;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.UUID;
+
+/**
+ * Builds the {@link ColumnConverter} of a column once per scan.
+ * Converters pass values json-smart already produced with the right type through without
+ * re-parsing their text, and parse temporal values with {@code java.time}.
+ * Values without an offset are taken as UTC.
+ */
+public final class ColumnConverters {
+
+    private static final DateTimeFormatter OPTIONAL_OFFSET = new DateTimeFormatterBuilder()
+            .optionalStart().appendOffset("+HH:MM:ss", "Z").optionalEnd()
+            .optionalStart().appendOffset("+HHMM", "Z").optionalEnd()
+            .toFormatter();
+
+    private static final DateTimeFormatter DEFAULT_DATE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;
+
+    private static final DateTimeFormatter DEFAULT_TIME_FORMAT = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_TIME)
+            .append(OPTIONAL_OFFSET)
+            .toFormatter();
+
+    /**
+     * ISO date and time separated by either {@code T} or a space.
+     */
+    private static final DateTimeFormatter DEFAULT_TIMESTAMP_FORMAT = new DateTimeFormatterBuilder()
+            .parseCaseInsensitive()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE)
+            .appendOptional(new DateTimeFormatterBuilder().parseCaseInsensitive().appendLiteral('T').append(DEFAULT_TIME_FORMAT).toFormatter())
+            .appendOptional(new DateTimeFormatterBuilder().appendLiteral(' ').append(DEFAULT_TIME_FORMAT).toFormatter())
+            .toFormatter();
+
+    private ColumnConverters() {
+    }
+
+    /**
+     * @param format optional {@link DateTimeFormatter} pattern for {@code date}, {@code time} and
+     *               {@code timestamp} columns; ignored for other types
+     */
+    public static ColumnConverter of(RestFieldType fieldType, String format) {
+        if (fieldType == null) {
+            return value -> value == null ? null : value.toString();
+        }
+
+        switch (fieldType) {
+            case STRING:
+                return value -> value == null ? null : value.toString();
+            case BOOLEAN:
+                return nonEmpty(ColumnConverters::toBoolean);
+            case BYTE:
+                return nonEmpty(value -> isIntegral(value) ? (Object) (byte) Math.toIntExact(((Number) value).longValue()) : Byte.parseByte(value.toString()));
+            case SHORT:
+                return nonEmpty(value -> isIntegral(value) ? (Object) (short) Math.toIntExact(((Number) value).longValue()) : Short.parseShort(value.toString()));
+            case INT:
+                return nonEmpty(value -> isIntegral(value) ? Math.toIntExact(((Number) value).longValue()) : Integer.parseInt(value.toString()));
+            case LONG:
+                return nonEmpty(value -> isIntegral(value) ? ((Number) value).longValue() : Long.parseLong(value.toString()));
+            case FLOAT:
+                return nonEmpty(value -> value instanceof Number ? ((Number) value).floatValue() : Float.parseFloat(value.toString()));
+            case DOUBLE:
+                return nonEmpty(value -> value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(value.toString()));
+            case DATE: {
+                DateTimeFormatter formatter = formatter(format, DEFAULT_DATE_FORMAT);
+                return nonEmpty(value -> (int) LocalDate.from(parse(formatter, value)).toEpochDay());
+            }
+            case TIME: {
+                DateTimeFormatter formatter = formatter(format, DEFAULT_TIME_FORMAT);
+                return nonEmpty(value -> toMillisOfDay(parse(formatter, value)));
+            }
+            case TIMESTAMP: {
+                DateTimeFormatter formatter = formatter(format, DEFAULT_TIMESTAMP_FORMAT);
+                return nonEmpty(value -> isIntegral(value) ? ((Number) value).longValue() : toEpochMillis(parse(formatter, value)));
+            }
+            case UUID:
+                return nonEmpty(value -> value instanceof UUID ? value : UUID.fromString(value.toString()));
+            default:
+                return value -> value == null ? null : value.toString();
+        }
+    }
+
+    private static ColumnConverter nonEmpty(ColumnConverter converter) {
+        return value -> {
+            if (value == null || value instanceof String && ((String) value).isEmpty()) {
+                return null;
+            }
+            return converter.convert(value);
+        };
+    }
+
+    private static Object toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return value;
+        }
+        if (value instanceof TemplateModel) {
+            return value.equals(TemplateBooleanModel.TRUE);
+        }
+        return Boolean.parseBoolean(value.toString());
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
+
+    private static DateTimeFormatter formatter(String format, DateTimeFormatter defaultFormatter) {
+        return format == null || format.isBlank() ? defaultFormatter : DateTimeFormatter.ofPattern(format);
+    }
+
+    /**
+     * @throws java.time.format.DateTimeParseException if the value does not match, text left after it included
+     */
+    private static TemporalAccessor parse(DateTimeFormatter formatter, Object value) {
+        return formatter.parse(value.toString());
+    }
+
+    private static int toMillisOfDay(TemporalAccessor temporal) {
+        LocalTime time = LocalTime.from(temporal);
+        if (temporal.isSupported(ChronoField.OFFSET_SECONDS)) {
+            time = time.minusSeconds(temporal.get(ChronoField.OFFSET_SECONDS));
+        }
+        return (int) (time.toNanoOfDay() / 1_000_000);
+    }
+
+    private static long toEpochMillis(TemporalAccessor temporal) {
+        if (temporal.isSupported(ChronoField.OFFSET_SECONDS)) {
+            return Instant.from(temporal).toEpochMilli();
+        }
+        return LocalDateTime.from(temporal).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+}
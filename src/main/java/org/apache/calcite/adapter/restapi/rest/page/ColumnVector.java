@@ -0,0 +1,261 @@
+package org.apache.calcite.adapter.restapi.rest.page;
+
+import org.apache.calcite.adapter.restapi.rest.RestFieldType;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.UUID;
+
+/**
+ * Typed storage of one projected column of a {@link ColumnarPage}.
+ * Numeric and temporal values are kept in primitive arrays, nulls in a bitmap.
+ */
+public abstract class ColumnVector {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final long BITMAP_OVERHEAD = 64;
+
+    protected final RestFieldType type;
+    private final BitSet nulls = new BitSet();
+    protected int size;
+
+    ColumnVector(RestFieldType type) {
+        this.type = type;
+    }
+
+    public static ColumnVector of(RestFieldType type) {
+        if (type == null) {
+            return new ObjectColumn(null);
+        }
+        switch (type) {
+            case BYTE:
+            case SHORT:
+            case INT:
+            case DATE:
+            case TIME:
+                return new IntColumn(type);
+            case LONG:
+            case TIMESTAMP:
+                return new LongColumn(type);
+            case FLOAT:
+            case DOUBLE:
+                return new DoubleColumn(type);
+            case BOOLEAN:
+                return new BooleanColumn(type);
+            default:
+                return new ObjectColumn(type);
+        }
+    }
+
+    public void append(Object value) {
+        if (value == null) {
+            nulls.set(size);
+        } else {
+            set(size, value);
+        }
+        size++;
+    }
+
+    public Object get(int row) {
+        return nulls.get(row) ? null : getValue(row);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long estimatedSize() {
+        return BITMAP_OVERHEAD + nulls.size() / 8 + valuesSize();
+    }
+
+    /**
+     * Restores the column's Java type for a value read back from a spill file.
+     */
+    public abstract Object restore(Object spilled);
+
+    protected abstract void set(int row, Object value);
+
+    protected abstract Object getValue(int row);
+
+    protected abstract long valuesSize();
+
+    static int grow(int capacity, int required) {
+        return Math.max(required, capacity == 0 ? INITIAL_CAPACITY : capacity << 1);
+    }
+
+    static class IntColumn extends ColumnVector {
+        private int[] values = new int[0];
+
+        IntColumn(RestFieldType type) {
+            super(type);
+        }
+
+        @Override
+        protected void set(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row + 1));
+            }
+            values[row] = ((Number) value).intValue();
+        }
+
+        @Override
+        protected Object getValue(int row) {
+            return box(values[row]);
+        }
+
+        @Override
+        public Object restore(Object spilled) {
+            return spilled == null ? null : box(((Number) spilled).intValue());
+        }
+
+        @Override
+        protected long valuesSize() {
+            return 4L * values.length;
+        }
+
+        private Object box(int value) {
+            switch (type) {
+                case BYTE:
+                    return (byte) value;
+                case SHORT:
+                    return (short) value;
+                default:
+                    return value;
+            }
+        }
+    }
+
+    static class LongColumn extends ColumnVector {
+        private long[] values = new long[0];
+
+        LongColumn(RestFieldType type) {
+            super(type);
+        }
+
+        @Override
+        protected void set(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row + 1));
+            }
+            values[row] = ((Number) value).longValue();
+        }
+
+        @Override
+        protected Object getValue(int row) {
+            return values[row];
+        }
+
+        @Override
+        public Object restore(Object spilled) {
+            return spilled == null ? null : ((Number) spilled).longValue();
+        }
+
+        @Override
+        protected long valuesSize() {
+            return 8L * values.length;
+        }
+    }
+
+    static class DoubleColumn extends ColumnVector {
+        private double[] values = new double[0];
+
+        DoubleColumn(RestFieldType type) {
+            super(type);
+        }
+
+        @Override
+        protected void set(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row + 1));
+            }
+            values[row] = ((Number) value).doubleValue();
+        }
+
+        @Override
+        protected Object getValue(int row) {
+            return box(values[row]);
+        }
+
+        @Override
+        public Object restore(Object spilled) {
+            return spilled == null ? null : box(((Number) spilled).doubleValue());
+        }
+
+        @Override
+        protected long valuesSize() {
+            return 8L * values.length;
+        }
+
+        private Object box(double value) {
+            return type == RestFieldType.FLOAT ? (Object) (float) value : (Object) value;
+        }
+    }
+
+    static class BooleanColumn extends ColumnVector {
+        private final BitSet values = new BitSet();
+
+        BooleanColumn(RestFieldType type) {
+            super(type);
+        }
+
+        @Override
+        protected void set(int row, Object value) {
+            values.set(row, (Boolean) value);
+        }
+
+        @Override
+        protected Object getValue(int row) {
+            return values.get(row);
+        }
+
+        @Override
+        public Object restore(Object spilled) {
+            return spilled;
+        }
+
+        @Override
+        protected long valuesSize() {
+            return values.size() / 8;
+        }
+    }
+
+    static class ObjectColumn extends ColumnVector {
+        private static final long REFERENCE_SIZE = 8;
+        private static final long STRING_OVERHEAD = 40;
+
+        private Object[] values = new Object[0];
+        private long payloadSize;
+
+        ObjectColumn(RestFieldType type) {
+            super(type);
+        }
+
+        @Override
+        protected void set(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row + 1));
+            }
+            values[row] = value;
+            payloadSize += value instanceof String ? STRING_OVERHEAD + 2L * ((String) value).length() : STRING_OVERHEAD;
+        }
+
+        @Override
+        protected Object getValue(int row) {
+            return values[row];
+        }
+
+        @Override
+        public Object restore(Object spilled) {
+            if (spilled != null && type == RestFieldType.UUID) {
+                return UUID.fromString(spilled.toString());
+            }
+            return spilled;
+        }
+
+        @Override
+        protected long valuesSize() {
+            return REFERENCE_SIZE * values.length + payloadSize;
+        }
+    }
+
+}
@@ -0,0 +1,234 @@
+package org.apache.calcite.adapter.restapi.rest.page;
+
+import org.apache.calcite.adapter.restapi.rest.Field;
+import org.apache.calcite.adapter.restapi.rest.interfaces.ArrayParamReader;
+import org.apache.calcite.adapter.restapi.rest.spill.SpillFile;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One page of a scan, decoded at fetch time into typed column vectors of the projected fields.
+ * Response elements are not retained once their cells are appended. Rows beyond the
+ * {@link MemoryBudget} of the pass are appended to a {@link SpillFile}; they are cheapest to read sequentially, which is how
+ * {@code RestDataEnumerator} consumes a page through a {@link Cursor}.
+ */
+public class ColumnarPage implements AutoCloseable {
+
+    private final List<Field> fields;
+    private final ColumnConverter[] converters;
+    private final ColumnVector[] columns;
+    private final Object[] constants;
+    private final MemoryBudget memoryBudget;
+    private int memoryRows;
+    /** Bytes of the memory rows charged to the budget. */
+    private long charged;
+
+    private SpillFile spillFile;
+    private int spilledRows;
+    private long[] spillPositions = new long[0];
+    /** Number of response elements the rows were read from, if not one per row. */
+    private int elements = -1;
+
+    public ColumnarPage(PageLayout layout, long memoryBudget) {
+        this(layout, new MemoryBudget(memoryBudget));
+    }
+
+    public ColumnarPage(PageLayout layout, MemoryBudget memoryBudget) {
+        this.fields = layout.getFields();
+        this.converters = layout.getConverters();
+        this.memoryBudget = memoryBudget;
+        this.columns = new ColumnVector[fields.size()];
+        this.constants = new Object[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            if (field.isResponseParameter()) {
+                columns[i] = ColumnVector.of(field.getRestFieldType());
+            } else if (field.isRequestParameter()) {
+                constants[i] = layout.getRequestValues()[i];
+            }
+        }
+    }
+
+    private ColumnarPage(ColumnarPage page, MemoryBudget memoryBudget) {
+        this.fields = page.fields;
+        this.converters = page.converters;
+        this.columns = page.columns;
+        this.constants = page.constants;
+        this.memoryBudget = memoryBudget;
+        this.memoryRows = page.memoryRows;
+        this.elements = page.elements;
+    }
+
+    public static ColumnarPage empty() {
+        return new ColumnarPage(PageLayout.empty(), 0);
+    }
+
+    public void append(ArrayParamReader reader) {
+        int row = size();
+        if (spillFile == null && memoryBudget.isAvailable()) {
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i] != null) {
+                    columns[i].append(converters[i].convert(reader.read(row, fields.get(i).getJsonpath())));
+                }
+            }
+            memoryRows++;
+            charge();
+            return;
+        }
+
+        Object[] cells = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] != null) {
+                cells[i] = converters[i].convert(reader.read(row, fields.get(i).getJsonpath()));
+            }
+        }
+        spill(cells);
+    }
+
+    /**
+     * Appends a row read from another page of the same layout; its values are already converted.
+     */
+    public void append(Object[] row) {
+        if (spillFile == null && memoryBudget.isAvailable()) {
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i] != null) {
+                    columns[i].append(row[i]);
+                }
+            }
+            memoryRows++;
+            charge();
+            return;
+        }
+        spill(row);
+    }
+
+    /**
+     * Returns a page reading the rows of this one, charged to {@code memoryBudget} until it is closed,
+     * e.g. for a pass reusing a page kept by the revalidation cache. Neither page may be appended to.
+     */
+    public ColumnarPage share(MemoryBudget memoryBudget) {
+        if (spillFile != null) {
+            throw new IllegalStateException("A page with spilled rows can't be shared");
+        }
+        ColumnarPage shared = new ColumnarPage(this, memoryBudget);
+        shared.charge();
+        return shared;
+    }
+
+    /**
+     * Opens an independent reader of the page, so that a page kept for replay can be read by
+     * several enumerators.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public int size() {
+        return memoryRows + spilledRows;
+    }
+
+    /**
+     * @return the number of response elements the page was read from, e.g. the parent elements of the
+     *         rows of a child table; the number of rows unless set
+     */
+    public int getElements() {
+        return elements >= 0 ? elements : size();
+    }
+
+    public void setElements(int elements) {
+        this.elements = elements;
+    }
+
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    public long estimatedSize() {
+        long size = 0;
+        for (ColumnVector column : columns) {
+            if (column != null) {
+                size += column.estimatedSize();
+            }
+        }
+        return size;
+    }
+
+    private void charge() {
+        long size = estimatedSize();
+        memoryBudget.charge(size - charged);
+        charged = size;
+    }
+
+    private void spill(Object[] cells) {
+        try {
+            if (spillFile == null) {
+                spillFile = new SpillFile();
+            }
+            if (spilledRows == spillPositions.length) {
+                spillPositions = Arrays.copyOf(spillPositions, ColumnVector.grow(spillPositions.length, spilledRows + 1));
+            }
+            spillPositions[spilledRows++] = spillFile.write(cells);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deletes the spilled rows and gives the memory rows back to the budget; the memory rows stay
+     * readable, e.g. for a page kept by the revalidation cache.
+     */
+    @Override
+    public void close() {
+        memoryBudget.release(charged);
+        charged = 0;
+        if (spillFile != null) {
+            try {
+                spillFile.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                spillFile = null;
+            }
+        }
+    }
+
+    /**
+     * Reads rows of the page by index. Spilled rows are streamed while read in order,
+     * any other access re-positions the reader.
+     */
+    public class Cursor {
+        private DataInputStream spillReader;
+        private int nextSpilledRow;
+
+        public Object[] get(int index) {
+            Object[] row = new Object[columns.length];
+            if (index < memoryRows) {
+                for (int i = 0; i < columns.length; i++) {
+                    row[i] = columns[i] != null ? columns[i].get(index) : constants[i];
+                }
+                return row;
+            }
+
+            int spilledRow = index - memoryRows;
+            try {
+                if (spillReader == null || spilledRow != nextSpilledRow) {
+                    spillReader = spillFile.openReader(spillPositions[spilledRow]);
+                    nextSpilledRow = spilledRow;
+                }
+                Object[] spilled = spillFile.read(spillReader, columns.length);
+                nextSpilledRow++;
+                for (int i = 0; i < columns.length; i++) {
+                    row[i] = columns[i] != null ? columns[i].restore(spilled[i]) : constants[i];
+                }
+                return row;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package org.apache.calcite.adapter.restapi.rest.page;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Heap budget shared by the pages of one pass, including the sub-range passes of a partitioned
+ * scan and the pages kept for replay. A page charges the rows it holds in memory and gives them
+ * back when it is closed; once the budget is used up, further rows are spilled.
+ */
+public class MemoryBudget {
+
+    private final AtomicLong remaining;
+
+    public MemoryBudget(long bytes) {
+        this.remaining = new AtomicLong(bytes);
+    }
+
+    /**
+     * @return whether another row may be kept in memory
+     */
+    public boolean isAvailable() {
+        return remaining.get() > 0;
+    }
+
+    void charge(long bytes) {
+        remaining.addAndGet(-bytes);
+    }
+
+    void release(long bytes) {
+        remaining.addAndGet(bytes);
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.apache.calcite.adapter.restapi.rest.page;
+
+import org.apache.calcite.adapter.restapi.rest.Field;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Projected fields of a scan together with their converters, bound once per scan and shared by all its pages.
+ * Each pass of the scan binds the values its requests were rendered with to the request-only fields.
+ */
+@Getter
+public class PageLayout {
+
+    private static final PageLayout EMPTY = new PageLayout(Collections.emptyList());
+
+    private final List<Field> fields;
+    private final ColumnConverter[] converters;
+    /** Converted values of the request-only fields, the same in every row of a page. */
+    private final Object[] requestValues;
+
+    public PageLayout(List<Field> fields) {
+        this.fields = fields;
+        this.converters = new ColumnConverter[fields.size()];
+        for (int i = 0; i < converters.length; i++) {
+            converters[i] = ColumnConverters.of(fields.get(i).getRestFieldType(), fields.get(i).getFormat());
+        }
+        this.requestValues = new Object[fields.size()];
+    }
+
+    private PageLayout(PageLayout layout, Object[] requestValues) {
+        this.fields = layout.fields;
+        this.converters = layout.converters;
+        this.requestValues = requestValues;
+    }
+
+    /**
+     * @param values values of request parameters, by field name, as rendered into the requests of a pass
+     * @return the layout of the pages of that pass
+     */
+    public PageLayout withRequestValues(Map<String, ?> values) {
+        if (values.isEmpty()) {
+            return this;
+        }
+        Object[] requestValues = new Object[fields.size()];
+        for (int i = 0; i < requestValues.length; i++) {
+            Field field = fields.get(i);
+            if (field.isRequestParameter() && !field.isResponseParameter() && values.containsKey(field.getName())) {
+                requestValues[i] = converters[i].convert(values.get(field.getName()));
+            }
+        }
+        return new PageLayout(this, requestValues);
+    }
+
+    public static PageLayout empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return fields.size();
+    }
+
+}
@@ -0,0 +1,115 @@
+package org.apache.calcite.adapter.restapi.rest.page;
+
+import org.apache.calcite.adapter.restapi.rest.interfaces.RestIterator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Pages of one scan shared by all enumerations of it. A page is requested from the source only
+ * the first time any enumerator reaches it; later enumerators read the kept pages. An enumeration
+ * stopped early (e.g. by LIMIT) leaves the buffer incomplete, and the next one that reads further
+ * continues paging from there.
+ * <p>
+ * Calcite does not signal the end of a query to the enumerables it was given, but closing the
+ * statement closes the enumerators still open. The pages are released one second after the last
+ * enumerator is closed, unless another one is opened meanwhile; an enumeration started after that
+ * requests the pages again.
+ */
+public class ReplayBuffer implements AutoCloseable {
+
+    private static final long RELEASE_DELAY_MILLIS = 1000;
+    private static final ScheduledExecutorService RELEASER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rest-replay-release");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Supplier<RestIterator> passes;
+    private final List<ColumnarPage> pages = new ArrayList<>();
+    private RestIterator source;
+    private boolean complete;
+    private int open;
+    private ScheduledFuture<?> release;
+
+    public ReplayBuffer(Supplier<RestIterator> passes) {
+        this.passes = passes;
+    }
+
+    public synchronized ColumnarPage page(int index) {
+        while (index >= pages.size() && !complete) {
+            if (source == null) {
+                source = passes.get();
+            }
+            ColumnarPage page = source.getMore();
+            if (page.size() == 0) {
+                page.close();
+                complete = true;
+            } else {
+                pages.add(page);
+            }
+        }
+        return index < pages.size() ? pages.get(index) : ColumnarPage.empty();
+    }
+
+    public synchronized RestIterator iterator() {
+        open++;
+        if (release != null) {
+            release.cancel(false);
+            release = null;
+        }
+        return new RestIterator() {
+            private int next;
+            private boolean closed;
+
+            @Override
+            public ColumnarPage getMore() {
+                return page(next++);
+            }
+
+            @Override
+            public void release(ColumnarPage page) {
+            }
+
+            @Override
+            public void close() {
+                if (!closed) {
+                    closed = true;
+                    closed();
+                }
+            }
+        };
+    }
+
+    private synchronized void closed() {
+        if (--open == 0) {
+            release = RELEASER.schedule(this::releaseIfUnused, RELEASE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void releaseIfUnused() {
+        if (open == 0) {
+            close();
+        }
+    }
+
+    /**
+     * Closes the kept pages and the source; a later enumeration starts over.
+     */
+    @Override
+    public synchronized void close() {
+        pages.forEach(ColumnarPage::close);
+        pages.clear();
+        if (source != null) {
+            source.close();
+            source = null;
+        }
+        complete = false;
+    }
+
+}
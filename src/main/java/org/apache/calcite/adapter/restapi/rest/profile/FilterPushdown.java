@@ -0,0 +1,35 @@
+package org.apache.calcite.adapter.restapi.rest.profile;
+
+/**
+ * How the filters of a scan reach the service: the conditions rendered into the request, in
+ * disjunctive normal form, and the residual ones only Calcite evaluates. Pushed conditions are empty
+ * when some OR group has nothing to push, as the request can not narrow the result then.
+ */
+public class FilterPushdown {
+
+    private final int dnfSize;
+    private final String pushed;
+    private final String residual;
+
+    public FilterPushdown(int dnfSize, String pushed, String residual) {
+        this.dnfSize = dnfSize;
+        this.pushed = pushed;
+        this.residual = residual;
+    }
+
+    /**
+     * @return number of OR groups in the disjunctive normal form of the filters
+     */
+    public int getDnfSize() {
+        return dnfSize;
+    }
+
+    public String getPushed() {
+        return pushed;
+    }
+
+    public String getResidual() {
+        return residual;
+    }
+
+}
@@ -0,0 +1,42 @@
+package org.apache.calcite.adapter.restapi.rest.profile;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The most recent scan profiles of a schema, oldest first.
+ */
+public class QueryLog {
+
+    public static final int DEFAULT_SIZE = 100;
+
+    private final int size;
+    private final Deque<ScanProfile> profiles = new ArrayDeque<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    public QueryLog(int size) {
+        this.size = size;
+    }
+
+    public ScanProfile start(String service, String table, FilterPushdown filters) {
+        return new ScanProfile(ids.incrementAndGet(), service, table, filters);
+    }
+
+    public synchronized void add(ScanProfile profile) {
+        if (size <= 0) {
+            return;
+        }
+        if (profiles.size() == size) {
+            profiles.removeFirst();
+        }
+        profiles.addLast(profile);
+    }
+
+    public synchronized List<ScanProfile> getProfiles() {
+        return new ArrayList<>(profiles);
+    }
+
+}
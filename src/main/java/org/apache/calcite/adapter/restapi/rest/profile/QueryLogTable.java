@@ -0,0 +1,65 @@
+package org.apache.calcite.adapter.restapi.rest.profile;
+
+import org.apache.calcite.DataContext;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Linq4j;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.schema.ScannableTable;
+import org.apache.calcite.schema.impl.AbstractTable;
+import org.apache.calcite.sql.type.SqlTypeName;
+
+import java.util.stream.Collectors;
+
+/**
+ * System table {@code rest_query_log}: one row per recent scan with the requests it sent.
+ */
+public class QueryLogTable extends AbstractTable implements ScannableTable {
+
+    public static final String NAME = "rest_query_log";
+
+    private final QueryLog log;
+
+    public QueryLogTable(QueryLog log) {
+        this.log = log;
+    }
+
+    @Override
+    public RelDataType getRowType(RelDataTypeFactory typeFactory) {
+        return typeFactory.builder()
+                .add("id", SqlTypeName.BIGINT)
+                .add("started_at", SqlTypeName.TIMESTAMP)
+                .add("service", SqlTypeName.VARCHAR)
+                .add("table_name", SqlTypeName.VARCHAR)
+                .add("dnf_size", SqlTypeName.INTEGER)
+                .add("pushed_filters", SqlTypeName.VARCHAR)
+                .add("residual_filters", SqlTypeName.VARCHAR)
+                .add("pages", SqlTypeName.INTEGER)
+                .add("row_count", SqlTypeName.BIGINT)
+                .add("bytes", SqlTypeName.BIGINT)
+                .add("request_ms", SqlTypeName.DOUBLE)
+                .add("requests", SqlTypeName.VARCHAR)
+                .add("headers", SqlTypeName.VARCHAR)
+                .build();
+    }
+
+    @Override
+    public Enumerable<Object[]> scan(DataContext root) {
+        return Linq4j.asEnumerable(log.getProfiles()).select(profile -> new Object[] {
+                profile.getId(),
+                profile.getStartedAt(),
+                profile.getService(),
+                profile.getTable(),
+                profile.getFilters().getDnfSize(),
+                profile.getFilters().getPushed(),
+                profile.getFilters().getResidual(),
+                profile.getPageCount(),
+                profile.getRowCount(),
+                profile.getBytes(),
+                profile.getRequestMillis(),
+                profile.getRequests().stream().map(ScanProfile.Request::toString).collect(Collectors.joining("\n")),
+                profile.getRequests().stream().map(ScanProfile.Request::getHeaders).distinct().collect(Collectors.joining("\n"))
+        });
+    }
+
+}
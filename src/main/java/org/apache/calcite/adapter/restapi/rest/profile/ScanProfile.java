@@ -0,0 +1,134 @@
+package org.apache.calcite.adapter.restapi.rest.profile;
+
+import org.apache.calcite.adapter.restapi.rest.metrics.RequestEvent;
+import org.apache.hc.core5.http.HttpRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * REST calls of one scan of a table. Header values and query parameters that look like
+ * credentials are replaced by {@code ***}.
+ */
+public class ScanProfile {
+
+    private static final String REDACTED = "***";
+    private static final Pattern SENSITIVE_NAME = Pattern.compile("(?i).*(auth|token|key|secret|password|passwd|cookie|session|signature|credential).*");
+    private static final Pattern QUERY_PARAMETER = Pattern.compile("([?&;])([^=&;#]+)=([^&;#]*)");
+
+    private final long id;
+    private final long startedAt = System.currentTimeMillis();
+    private final String service;
+    private final String table;
+    private final FilterPushdown filters;
+    private final List<Request> requests = new ArrayList<>();
+
+    public ScanProfile(long id, String service, String table, FilterPushdown filters) {
+        this.id = id;
+        this.service = service;
+        this.table = table;
+        this.filters = filters;
+    }
+
+    public synchronized void add(HttpRequest request, RequestEvent event) {
+        String headers = Arrays.stream(request.getHeaders())
+                .map(header -> header.getName() + ": " + (SENSITIVE_NAME.matcher(header.getName()).matches() ? REDACTED : header.getValue()))
+                .collect(Collectors.joining(", "));
+        requests.add(new Request(redact(event.getUri()), headers, event));
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public FilterPushdown getFilters() {
+        return filters;
+    }
+
+    public synchronized List<Request> getRequests() {
+        return new ArrayList<>(requests);
+    }
+
+    /**
+     * @return pages received, not counting failed requests
+     */
+    public synchronized int getPageCount() {
+        return (int) requests.stream().filter(request -> request.error == null).count();
+    }
+
+    public synchronized long getRowCount() {
+        return requests.stream().mapToLong(request -> request.rows).sum();
+    }
+
+    public synchronized long getBytes() {
+        return requests.stream().mapToLong(request -> request.bytes).sum();
+    }
+
+    public synchronized double getRequestMillis() {
+        return requests.stream().mapToDouble(request -> request.latencyMillis).sum();
+    }
+
+    static String redact(String uri) {
+        if (uri == null) {
+            return null;
+        }
+        Matcher matcher = QUERY_PARAMETER.matcher(uri);
+        StringBuilder redacted = new StringBuilder();
+        while (matcher.find()) {
+            String value = SENSITIVE_NAME.matcher(matcher.group(2)).matches() ? REDACTED : matcher.group(3);
+            matcher.appendReplacement(redacted, Matcher.quoteReplacement(matcher.group(1) + matcher.group(2) + "=" + value));
+        }
+        matcher.appendTail(redacted);
+        return redacted.toString();
+    }
+
+    public static class Request {
+        private final String uri;
+        private final String headers;
+        private final RequestEvent.Source source;
+        private final int statusCode;
+        private final double latencyMillis;
+        private final long bytes;
+        private final int rows;
+        private final String error;
+
+        Request(String uri, String headers, RequestEvent event) {
+            this.uri = uri;
+            this.headers = headers;
+            this.source = event.getSource();
+            this.statusCode = event.getStatusCode();
+            this.latencyMillis = Math.max(0, event.getTotalNanos() >= 0 ? event.getTotalNanos() : event.getParseNanos()) / 1e6;
+            this.bytes = event.getBytes();
+            this.rows = event.getRows();
+            this.error = event.getError() != null ? String.valueOf(event.getError().getMessage()) : null;
+        }
+
+        public String getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s %s %.1f ms %d bytes %d rows %s%s",
+                    source, statusCode, latencyMillis, bytes, rows, uri, error != null ? " failed: " + error : "");
+        }
+    }
+
+}
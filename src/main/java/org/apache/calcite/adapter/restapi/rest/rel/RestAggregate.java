@@ -0,0 +1,108 @@
+package org.apache.calcite.adapter.restapi.rest.rel;
+
+import org.apache.calcite.adapter.restapi.rest.RestTable;
+import com.google.common.collect.ImmutableList;
+import org.apache.calcite.adapter.enumerable.EnumerableRel;
+import org.apache.calcite.adapter.enumerable.EnumerableRelImplementor;
+import org.apache.calcite.adapter.enumerable.JavaRowFormat;
+import org.apache.calcite.adapter.enumerable.PhysType;
+import org.apache.calcite.adapter.enumerable.PhysTypeImpl;
+import org.apache.calcite.linq4j.tree.Blocks;
+import org.apache.calcite.linq4j.tree.Expressions;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.AbstractRelNode;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.util.ImmutableIntList;
+
+import java.util.List;
+
+/**
+ * Aggregate of a {@link RestTable} computed by the service's {@code aggregation} endpoint with a
+ * single request. Group columns, aggregate arguments and filters are on table columns.
+ */
+public class RestAggregate extends AbstractRelNode implements EnumerableRel {
+
+    private static final double GROUP_FACTOR = 0.1d;
+    private static final double COST_BIAS = 0.01d;
+
+    private final RelOptTable table;
+    private final RestTable restTable;
+    private final ImmutableList<RexNode> filters;
+    private final ImmutableIntList groupColumns;
+    private final ImmutableList<String> functions;
+    private final ImmutableIntList arguments;
+
+    /**
+     * @param functions function of each aggregate, as declared in {@code functions} of the table's {@code aggregation}
+     * @param arguments column each aggregate is computed on, or {@code -1} for {@code count(*)}
+     * @param rowType   row type of the Aggregate this node replaces
+     */
+    public RestAggregate(RelOptCluster cluster, RelTraitSet traitSet, RelOptTable table, RestTable restTable, List<RexNode> filters,
+                         ImmutableIntList groupColumns, List<String> functions, ImmutableIntList arguments, RelDataType rowType) {
+        super(cluster, traitSet);
+        this.table = table;
+        this.restTable = restTable;
+        this.filters = ImmutableList.copyOf(filters);
+        this.groupColumns = groupColumns;
+        this.functions = ImmutableList.copyOf(functions);
+        this.arguments = arguments;
+        this.rowType = rowType;
+    }
+
+    @Override
+    public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
+        return new RestAggregate(getCluster(), traitSet, table, restTable, filters, groupColumns, functions, arguments, rowType);
+    }
+
+    @Override
+    protected RelDataType deriveRowType() {
+        return rowType;
+    }
+
+    @Override
+    public RelWriter explainTerms(RelWriter pw) {
+        return super.explainTerms(pw)
+                .item("table", table.getQualifiedName())
+                .itemIf("filters", filters, !filters.isEmpty())
+                .item("group", groupColumns)
+                .item("functions", functions)
+                .item("arguments", arguments);
+    }
+
+    @Override
+    public double estimateRowCount(RelMetadataQuery mq) {
+        return groupColumns.isEmpty() ? 1d : Math.max(restTable.estimateRowCount(filters) * GROUP_FACTOR, 1d);
+    }
+
+    /**
+     * Only the groups are transferred, so the cost is that of a scan returning them.
+     */
+    @Override
+    public RelOptCost computeSelfCost(RelOptPlanner planner, RelMetadataQuery mq) {
+        double rows = estimateRowCount(mq);
+        return planner.getCostFactory().makeCost(rows, 1, 0).multiplyBy(COST_BIAS);
+    }
+
+    @Override
+    public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
+        PhysType physType = PhysTypeImpl.of(implementor.getTypeFactory(), getRowType(), pref.preferArray());
+
+        return implementor.result(physType, Blocks.toBlock(
+                Expressions.call(implementor.stash(restTable, RestTable.class), "aggregate",
+                        implementor.getRootExpression(),
+                        implementor.stash(filters, List.class),
+                        Expressions.constant(groupColumns.toIntArray(), int[].class),
+                        implementor.stash(functions, List.class),
+                        Expressions.constant(arguments.toIntArray(), int[].class),
+                        Expressions.constant(physType.getFormat() == JavaRowFormat.SCALAR))));
+    }
+
+}
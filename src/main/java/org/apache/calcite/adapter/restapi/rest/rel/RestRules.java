@@ -0,0 +1,361 @@
+package org.apache.calcite.adapter.restapi.rest.rel;
+
+import org.apache.calcite.adapter.restapi.rest.RestTable;
+import com.google.common.collect.ImmutableList;
+import org.apache.calcite.adapter.enumerable.EnumerableConvention;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.plan.RelRule;
+import org.apache.calcite.rel.RelCollations;
+import org.apache.calcite.rel.RelFieldCollation;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Aggregate;
+import org.apache.calcite.rel.core.AggregateCall;
+import org.apache.calcite.rel.core.RelFactories;
+import org.apache.calcite.rel.core.Sort;
+import org.apache.calcite.rel.logical.LogicalAggregate;
+import org.apache.calcite.rel.logical.LogicalFilter;
+import org.apache.calcite.rel.logical.LogicalProject;
+import org.apache.calcite.rel.logical.LogicalSort;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexShuttle;
+import org.apache.calcite.tools.RelBuilderFactory;
+import org.apache.calcite.util.ImmutableIntList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Planner rules that push work into a {@link RestTableScan}, or replace it with a {@link RestAggregate}.
+ */
+public final class RestRules {
+
+    public static final RestFilterTableScanRule FILTER_SCAN = config(RestFilterTableScanRule::new, "RestFilterTableScanRule", LogicalFilter.class).toRule();
+    public static final RestProjectTableScanRule PROJECT_SCAN = config(RestProjectTableScanRule::new, "RestProjectTableScanRule", LogicalProject.class).toRule();
+    public static final RestSortTableScanRule SORT_SCAN = config(RestSortTableScanRule::new, "RestSortTableScanRule", LogicalSort.class).toRule();
+    public static final RestSortTableScanRule SORT_FILTER_SCAN = config(RestSortTableScanRule::new, "RestSortTableScanRule", LogicalSort.class, LogicalFilter.class).toRule();
+    public static final RestSortTableScanRule SORT_PROJECT_SCAN = config(RestSortTableScanRule::new, "RestSortTableScanRule", LogicalSort.class, LogicalProject.class).toRule();
+    public static final RestSortTableScanRule SORT_PROJECT_FILTER_SCAN = config(RestSortTableScanRule::new, "RestSortTableScanRule", LogicalSort.class, LogicalProject.class, LogicalFilter.class).toRule();
+
+    public static final RestAggregateTableScanRule AGGREGATE_SCAN = config(RestAggregateTableScanRule::new, "RestAggregateTableScanRule", LogicalAggregate.class).toRule();
+    public static final RestAggregateTableScanRule AGGREGATE_FILTER_SCAN = config(RestAggregateTableScanRule::new, "RestAggregateTableScanRule", LogicalAggregate.class, LogicalFilter.class).toRule();
+    public static final RestAggregateTableScanRule AGGREGATE_PROJECT_SCAN = config(RestAggregateTableScanRule::new, "RestAggregateTableScanRule", LogicalAggregate.class, LogicalProject.class).toRule();
+    public static final RestAggregateTableScanRule AGGREGATE_PROJECT_FILTER_SCAN = config(RestAggregateTableScanRule::new, "RestAggregateTableScanRule", LogicalAggregate.class, LogicalProject.class, LogicalFilter.class).toRule();
+
+    public static final List<RelOptRule> RULES = ImmutableList.of(FILTER_SCAN, PROJECT_SCAN, SORT_SCAN, SORT_FILTER_SCAN, SORT_PROJECT_SCAN, SORT_PROJECT_FILTER_SCAN,
+            AGGREGATE_SCAN, AGGREGATE_FILTER_SCAN, AGGREGATE_PROJECT_SCAN, AGGREGATE_PROJECT_FILTER_SCAN);
+
+    private RestRules() {
+    }
+
+    public static void register(RelOptPlanner planner) {
+        for (RelOptRule rule : RULES) {
+            planner.addRule(rule);
+        }
+    }
+
+    /**
+     * @param nodes classes of the chain of single-input nodes the rule matches, from the top, above
+     *              a {@link RestTableScan}; those below the top one are appended to the description
+     */
+    @SuppressWarnings("unchecked")
+    private static <R extends RelOptRule> RuleConfig<R> config(Function<RuleConfig<R>, R> factory, String name, Class<?>... nodes) {
+        List<Class<? extends RelNode>> classes = new ArrayList<>();
+        for (Class<?> clazz : nodes) {
+            classes.add((Class<? extends RelNode>) clazz);
+        }
+        classes.add(RestTableScan.class);
+        String description = name + classes.subList(1, classes.size() - 1).stream().map(clazz -> ":" + clazz.getSimpleName()).collect(Collectors.joining());
+        return new RuleConfig<>(factory, description, operands(classes, 0), RelFactories.LOGICAL_BUILDER);
+    }
+
+    private static RelRule.OperandTransform operands(List<Class<? extends RelNode>> classes, int index) {
+        if (index == classes.size() - 1) {
+            return b -> b.operand(classes.get(index)).noInputs();
+        }
+        return b -> b.operand(classes.get(index)).oneInput(operands(classes, index + 1));
+    }
+
+    /**
+     * Configuration of a rule of this adapter. Calcite generates the configurations of its own
+     * rules with Immutables; this is the same value, written out.
+     */
+    public static final class RuleConfig<R extends RelOptRule> implements RelRule.Config {
+        private final Function<RuleConfig<R>, R> factory;
+        private final String description;
+        private final RelRule.OperandTransform operandSupplier;
+        private final RelBuilderFactory relBuilderFactory;
+
+        private RuleConfig(Function<RuleConfig<R>, R> factory, String description, RelRule.OperandTransform operandSupplier, RelBuilderFactory relBuilderFactory) {
+            this.factory = factory;
+            this.description = description;
+            this.operandSupplier = operandSupplier;
+            this.relBuilderFactory = relBuilderFactory;
+        }
+
+        @Override
+        public R toRule() {
+            return factory.apply(this);
+        }
+
+        @Override
+        public RelBuilderFactory relBuilderFactory() {
+            return relBuilderFactory;
+        }
+
+        @Override
+        public RuleConfig<R> withRelBuilderFactory(RelBuilderFactory relBuilderFactory) {
+            return new RuleConfig<>(factory, description, operandSupplier, relBuilderFactory);
+        }
+
+        @Override
+        public String description() {
+            return description;
+        }
+
+        @Override
+        public RuleConfig<R> withDescription(String description) {
+            return new RuleConfig<>(factory, description, operandSupplier, relBuilderFactory);
+        }
+
+        @Override
+        public RelRule.OperandTransform operandSupplier() {
+            return operandSupplier;
+        }
+
+        @Override
+        public RuleConfig<R> withOperandSupplier(RelRule.OperandTransform operandSupplier) {
+            return new RuleConfig<>(factory, description, operandSupplier, relBuilderFactory);
+        }
+    }
+
+    /**
+     * Pushes the condition of a Filter into the scan's request filters. The Filter stays on top,
+     * as the REST service is free to ignore any of the conditions.
+     */
+    public static class RestFilterTableScanRule extends RelRule<RuleConfig<RestFilterTableScanRule>> {
+
+        RestFilterTableScanRule(RuleConfig<RestFilterTableScanRule> config) {
+            super(config);
+        }
+
+        @Override
+        public void onMatch(RelOptRuleCall call) {
+            LogicalFilter filter = call.rel(0);
+            RestTableScan scan = call.rel(1);
+            if (!scan.getFilters().isEmpty()) {
+                return;
+            }
+
+            RexNode condition = scan.getProjects() == null ? filter.getCondition() : toTableInputs(filter.getCondition(), scan.getProjects());
+            List<RexNode> filters = RelOptUtil.conjunctions(condition);
+            call.transformTo(filter.copy(filter.getTraitSet(), scan.withFilters(filters), filter.getCondition()));
+        }
+
+        private static RexNode toTableInputs(RexNode condition, ImmutableIntList projects) {
+            return condition.accept(new RexShuttle() {
+                @Override
+                public RexNode visitInputRef(RexInputRef inputRef) {
+                    return new RexInputRef(projects.get(inputRef.getIndex()), inputRef.getType());
+                }
+            });
+        }
+    }
+
+    /**
+     * Narrows the scan's projection to the columns a Project uses. A Project that only selects or
+     * reorders columns is replaced by the scan, otherwise it stays on top with its inputs remapped.
+     */
+    public static class RestProjectTableScanRule extends RelRule<RuleConfig<RestProjectTableScanRule>> {
+
+        RestProjectTableScanRule(RuleConfig<RestProjectTableScanRule> config) {
+            super(config);
+        }
+
+        @Override
+        public void onMatch(RelOptRuleCall call) {
+            LogicalProject project = call.rel(0);
+            RestTableScan scan = call.rel(1);
+
+            if (project.getProjects().stream().allMatch(RexInputRef.class::isInstance)) {
+                int[] selected = project.getProjects().stream()
+                        .mapToInt(node -> toTableInput(scan, ((RexInputRef) node).getIndex()))
+                        .toArray();
+                call.transformTo(scan.withProjects(ImmutableIntList.of(selected)));
+                return;
+            }
+
+            List<Integer> used = RelOptUtil.InputFinder.bits(project.getProjects(), null).asList();
+            if (used.isEmpty() || used.size() == scan.getRowType().getFieldCount()) {
+                return;
+            }
+            RestTableScan newScan = scan.withProjects(ImmutableIntList.of(used.stream().mapToInt(index -> toTableInput(scan, index)).toArray()));
+            List<RexNode> projects = new ArrayList<>();
+            for (RexNode node : project.getProjects()) {
+                projects.add(node.accept(new RexShuttle() {
+                    @Override
+                    public RexNode visitInputRef(RexInputRef inputRef) {
+                        return new RexInputRef(used.indexOf(inputRef.getIndex()), inputRef.getType());
+                    }
+                }));
+            }
+            call.transformTo(project.copy(project.getTraitSet(), newScan, projects, project.getRowType()));
+        }
+
+        private static int toTableInput(RestTableScan scan, int index) {
+            return scan.getProjects() == null ? index : scan.getProjects().get(index);
+        }
+    }
+
+    /**
+     * Pushes the sort keys of a Sort into the scan when the service can sort on all of them, through
+     * a Filter, which keeps the order, and a Project that passes the keys through. The Sort is dropped;
+     * its OFFSET and FETCH stay on top, so a top-N query stops paging once it has its rows.
+     */
+    public static class RestSortTableScanRule extends RelRule<RuleConfig<RestSortTableScanRule>> {
+
+        RestSortTableScanRule(RuleConfig<RestSortTableScanRule> config) {
+            super(config);
+        }
+
+        @Override
+        public void onMatch(RelOptRuleCall call) {
+            Sort sort = call.rel(0);
+            RestTableScan scan = call.rel(call.getRelList().size() - 1);
+            if (sort.getCollation().getFieldCollations().isEmpty() || !scan.getCollation().getFieldCollations().isEmpty()) {
+                return;
+            }
+            LogicalProject project = call.rel(1) instanceof LogicalProject ? call.rel(1) : null;
+
+            List<RelFieldCollation> keys = new ArrayList<>();
+            for (RelFieldCollation fieldCollation : sort.getCollation().getFieldCollations()) {
+                int index = fieldCollation.getFieldIndex();
+                if (project != null) {
+                    RexNode node = project.getProjects().get(index);
+                    if (!(node instanceof RexInputRef)) {
+                        return;
+                    }
+                    index = ((RexInputRef) node).getIndex();
+                }
+                keys.add(fieldCollation.withFieldIndex(scan.getProjects() == null ? index : scan.getProjects().get(index)));
+            }
+            List<Integer> columns = new ArrayList<>();
+            keys.forEach(key -> columns.add(key.getFieldIndex()));
+            if (!scan.getRestTable().isSortable(columns)) {
+                return;
+            }
+
+            RelNode input = scan.withCollation(RelCollations.of(keys));
+            for (int i = call.getRelList().size() - 2; i > 0; i--) {
+                RelNode rel = call.rel(i);
+                input = rel.copy(rel.getTraitSet(), ImmutableList.of(input));
+            }
+            if (sort.offset == null && sort.fetch == null) {
+                call.transformTo(input);
+            } else {
+                call.transformTo(sort.copy(sort.getTraitSet(), input, RelCollations.EMPTY, sort.offset, sort.fetch));
+            }
+        }
+    }
+
+    /**
+     * Replaces an Aggregate over the scan, through a Filter and a Project that only passes columns
+     * through, with a {@link RestAggregate} when the table's {@code aggregation} endpoint supports its
+     * group columns and functions. The Filter goes away with it, so every one of its conditions
+     * has to be rendered into the request.
+     */
+    public static class RestAggregateTableScanRule extends RelRule<RuleConfig<RestAggregateTableScanRule>> {
+
+        RestAggregateTableScanRule(RuleConfig<RestAggregateTableScanRule> config) {
+            super(config);
+        }
+
+        @Override
+        public void onMatch(RelOptRuleCall call) {
+            Aggregate aggregate = call.rel(0);
+            RestTableScan scan = call.rel(call.getRelList().size() - 1);
+            LogicalProject project = call.rel(1) instanceof LogicalProject ? call.rel(1) : null;
+            boolean filtered = call.rel(call.getRelList().size() - 2) instanceof LogicalFilter;
+            if (aggregate.getGroupType() != Aggregate.Group.SIMPLE || filtered == scan.getFilters().isEmpty()
+                    || !scan.getCollation().getFieldCollations().isEmpty()) {
+                return;
+            }
+
+            List<Integer> groupColumns = new ArrayList<>();
+            for (int index : aggregate.getGroupSet()) {
+                int column = toTableColumn(project, scan, index);
+                if (column < 0) {
+                    return;
+                }
+                groupColumns.add(column);
+            }
+            List<String> functions = new ArrayList<>();
+            List<Integer> arguments = new ArrayList<>();
+            for (AggregateCall aggregateCall : aggregate.getAggCallList()) {
+                String function = toFunction(aggregateCall);
+                if (function == null) {
+                    return;
+                }
+                int column = aggregateCall.getArgList().isEmpty() ? -1 : toTableColumn(project, scan, aggregateCall.getArgList().get(0));
+                if (column < 0 && !aggregateCall.getArgList().isEmpty()) {
+                    return;
+                }
+                functions.add(function);
+                arguments.add(column);
+            }
+
+            RestTable restTable = scan.getRestTable();
+            if (!restTable.isAggregatable(groupColumns, functions) || !restTable.isFullyPushed(scan.getCluster().getRexBuilder(), scan.getFilters())) {
+                return;
+            }
+            call.transformTo(new RestAggregate(scan.getCluster(), aggregate.getTraitSet().replace(EnumerableConvention.INSTANCE), scan.getTable(), restTable,
+                    scan.getFilters(), ImmutableIntList.copyOf(groupColumns), functions, ImmutableIntList.copyOf(arguments), aggregate.getRowType()));
+        }
+
+        /**
+         * @return the table column of an input of the Aggregate, or {@code -1} if the Project computes it
+         */
+        private static int toTableColumn(LogicalProject project, RestTableScan scan, int index) {
+            if (project != null) {
+                RexNode node = project.getProjects().get(index);
+                if (!(node instanceof RexInputRef)) {
+                    return -1;
+                }
+                index = ((RexInputRef) node).getIndex();
+            }
+            return scan.getProjects() == null ? index : scan.getProjects().get(index);
+        }
+
+        /**
+         * @return the function name as declared in {@code functions}, or {@code null} if the call
+         *         can't be sent to the service. {@code $SUM0}, which Calcite derives from other
+         *         aggregates, is 0 where a service {@code sum} is null, so it is left to Calcite.
+         */
+        static String toFunction(AggregateCall aggregateCall) {
+            if (aggregateCall.isDistinct() || aggregateCall.isApproximate() || aggregateCall.filterArg >= 0
+                    || !aggregateCall.getCollation().getFieldCollations().isEmpty() || aggregateCall.getArgList().size() > 1) {
+                return null;
+            }
+            switch (aggregateCall.getAggregation().getKind()) {
+                case COUNT:
+                    return "count";
+                case SUM:
+                    return aggregateCall.getArgList().isEmpty() ? null : "sum";
+                case MIN:
+                    return aggregateCall.getArgList().isEmpty() ? null : "min";
+                case MAX:
+                    return aggregateCall.getArgList().isEmpty() ? null : "max";
+                case AVG:
+                    return aggregateCall.getArgList().isEmpty() ? null : "avg";
+                default:
+                    return null;
+            }
+        }
+    }
+
+}
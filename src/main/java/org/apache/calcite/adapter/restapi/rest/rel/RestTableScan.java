@@ -0,0 +1,187 @@
+package org.apache.calcite.adapter.restapi.rest.rel;
+
+import org.apache.calcite.adapter.restapi.rest.RestTable;
+import org.apache.calcite.adapter.restapi.rest.profile.FilterPushdown;
+import com.google.common.collect.ImmutableList;
+import org.apache.calcite.adapter.enumerable.EnumerableConvention;
+import org.apache.calcite.adapter.enumerable.EnumerableRel;
+import org.apache.calcite.adapter.enumerable.EnumerableRelImplementor;
+import org.apache.calcite.adapter.enumerable.JavaRowFormat;
+import org.apache.calcite.adapter.enumerable.PhysType;
+import org.apache.calcite.adapter.enumerable.PhysTypeImpl;
+import org.apache.calcite.linq4j.tree.Blocks;
+import org.apache.calcite.linq4j.tree.Expressions;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelCollation;
+import org.apache.calcite.rel.RelCollationTraitDef;
+import org.apache.calcite.rel.RelCollations;
+import org.apache.calcite.rel.RelFieldCollation;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeField;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.SqlExplainLevel;
+import org.apache.calcite.util.ImmutableIntList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Scan of a {@link RestTable} with the filters, projection and sort order pushed into the REST request.
+ * Pushed filters are also kept in a Filter above the scan, because the service may ignore them.
+ * The sort order is on table columns, like the filters, and is trusted: the Sort it replaces is dropped.
+ */
+public class RestTableScan extends TableScan implements EnumerableRel {
+
+    private static final double FILTER_COST_FACTOR = 0.5d;
+    private static final double COST_BIAS = 0.01d;
+
+    private final RestTable restTable;
+    private final ImmutableList<RexNode> filters;
+    private final ImmutableIntList projects;
+    private final RelCollation collation;
+
+    public RestTableScan(RelOptCluster cluster, RelTraitSet traitSet, RelOptTable table, RestTable restTable,
+                         List<RexNode> filters, ImmutableIntList projects, RelCollation collation) {
+        super(cluster, traitSet, ImmutableList.of(), table);
+        this.restTable = restTable;
+        this.filters = ImmutableList.copyOf(filters);
+        this.projects = projects;
+        this.collation = collation;
+    }
+
+    public static RestTableScan create(RelOptCluster cluster, RelOptTable table, RestTable restTable) {
+        return new RestTableScan(cluster, cluster.traitSetOf(EnumerableConvention.INSTANCE), table, restTable, ImmutableList.of(), null, RelCollations.EMPTY);
+    }
+
+    public RestTableScan withFilters(List<RexNode> filters) {
+        return new RestTableScan(getCluster(), getTraitSet(), getTable(), restTable, filters, projects, collation);
+    }
+
+    public RestTableScan withProjects(ImmutableIntList projects) {
+        RestTableScan scan = new RestTableScan(getCluster(), getTraitSet(), getTable(), restTable, filters, projects, collation);
+        return (RestTableScan) scan.copy(scan.outputTraits(collation), scan.getInputs());
+    }
+
+    /**
+     * @param collation sort order on table columns
+     */
+    public RestTableScan withCollation(RelCollation collation) {
+        RestTableScan scan = new RestTableScan(getCluster(), getTraitSet(), getTable(), restTable, filters, projects, collation);
+        return (RestTableScan) scan.copy(scan.outputTraits(collation), scan.getInputs());
+    }
+
+    /**
+     * Reports the sort order, on output columns, to planners that track collations. Keys on
+     * columns that are not projected end the order the output is known to have.
+     */
+    private RelTraitSet outputTraits(RelCollation collation) {
+        if (!getCluster().getPlanner().getRelTraitDefs().contains(RelCollationTraitDef.INSTANCE)) {
+            return getTraitSet();
+        }
+        List<RelFieldCollation> output = new ArrayList<>();
+        for (RelFieldCollation fieldCollation : collation.getFieldCollations()) {
+            int index = projects == null ? fieldCollation.getFieldIndex() : projects.indexOf(fieldCollation.getFieldIndex());
+            if (index < 0) {
+                break;
+            }
+            output.add(fieldCollation.withFieldIndex(index));
+        }
+        return getTraitSet().replace(RelCollations.of(output));
+    }
+
+    public RestTable getRestTable() {
+        return restTable;
+    }
+
+    public List<RexNode> getFilters() {
+        return filters;
+    }
+
+    public ImmutableIntList getProjects() {
+        return projects;
+    }
+
+    public RelCollation getCollation() {
+        return collation;
+    }
+
+    @Override
+    public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
+        return new RestTableScan(getCluster(), traitSet, getTable(), restTable, filters, projects, collation);
+    }
+
+    @Override
+    public RelDataType deriveRowType() {
+        RelDataType rowType = table.getRowType();
+        if (projects == null) {
+            return rowType;
+        }
+        List<RelDataTypeField> fields = rowType.getFieldList();
+        return getCluster().getTypeFactory().createStructType(projects.stream()
+                .map(fields::get)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Besides the digest terms, EXPLAIN shows how the filters are rendered into the request: the size
+     * of their disjunctive normal form and the pushed and residual conditions. It depends only on the query.
+     */
+    @Override
+    public RelWriter explainTerms(RelWriter pw) {
+        super.explainTerms(pw)
+                .itemIf("filters", filters, !filters.isEmpty())
+                .itemIf("projects", projects, projects != null)
+                .itemIf("sort", collation, !collation.getFieldCollations().isEmpty());
+        if (pw.getDetailLevel() == SqlExplainLevel.DIGEST_ATTRIBUTES) {
+            return pw;
+        }
+        FilterPushdown pushdown = restTable.describePushdown(getCluster().getRexBuilder(), filters);
+        return pw.itemIf("dnf", pushdown.getDnfSize(), !filters.isEmpty())
+                .itemIf("pushed", pushdown.getPushed(), !pushdown.getPushed().isEmpty())
+                .itemIf("residual", pushdown.getResidual(), !pushdown.getResidual().isEmpty());
+    }
+
+    @Override
+    public void register(RelOptPlanner planner) {
+        RestRules.register(planner);
+    }
+
+    @Override
+    public double estimateRowCount(RelMetadataQuery mq) {
+        return restTable.estimateRowCount(filters);
+    }
+
+    @Override
+    public RelOptCost computeSelfCost(RelOptPlanner planner, RelMetadataQuery mq) {
+        double rows = estimateRowCount(mq);
+        double filterFactor = filters.isEmpty() ? 1d : FILTER_COST_FACTOR;
+        double projectFactor = projects == null ? 1d : (double) projects.size() / table.getRowType().getFieldCount();
+        return planner.getCostFactory()
+                .makeCost(rows, rows + 1, 0)
+                .multiplyBy((COST_BIAS + filterFactor) * (COST_BIAS + projectFactor));
+    }
+
+    @Override
+    public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
+        PhysType physType = PhysTypeImpl.of(implementor.getTypeFactory(), getRowType(), pref.preferArray());
+        int[] projectArray = projects != null ? projects.toIntArray() : null;
+
+        return implementor.result(physType, Blocks.toBlock(
+                Expressions.call(implementor.stash(restTable, RestTable.class), "query",
+                        implementor.getRootExpression(),
+                        implementor.stash(filters, List.class),
+                        Expressions.constant(projectArray, int[].class),
+                        implementor.stash(collation, RelCollation.class),
+                        Expressions.constant(physType.getFormat() == JavaRowFormat.SCALAR))));
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.apache.calcite.adapter.restapi.rest.snapshot;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Row numbers of a snapshot by the value of one column. Whole numbers are keyed as {@code long},
+ * other numbers as {@code double} and UUIDs as text, so that a SQL literal finds the value
+ * whatever Java type the column or the literal has.
+ */
+class HashIndex {
+
+    private static final int[] NO_ROWS = new int[0];
+
+    /** Value is a row number, or an int array holding the count followed by the row numbers. */
+    private final Map<Object, Object> rows = new HashMap<>();
+
+    void add(Object value, int row) {
+        if (value == null) {
+            return;
+        }
+        rows.merge(key(value), row, (existing, added) -> append(existing, (Integer) added));
+    }
+
+    int[] get(Object value) {
+        Object found = value == null ? null : rows.get(key(value));
+        if (found == null) {
+            return NO_ROWS;
+        }
+        if (found instanceof Integer) {
+            return new int[] {(Integer) found};
+        }
+        int[] list = (int[]) found;
+        return Arrays.copyOfRange(list, 1, 1 + list[0]);
+    }
+
+    static Object key(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof BigDecimal) {
+            BigDecimal decimal = ((BigDecimal) value).stripTrailingZeros();
+            if (decimal.scale() <= 0 && decimal.precision() - decimal.scale() < 19) {
+                return decimal.longValue();
+            }
+            return key(decimal.doubleValue());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            return number == (long) number ? (Object) (long) number : (Object) number;
+        }
+        if (value instanceof UUID) {
+            return value.toString();
+        }
+        return value;
+    }
+
+    private static Object append(Object existing, int row) {
+        int[] list;
+        if (existing instanceof Integer) {
+            list = new int[] {1, (Integer) existing, 0, 0};
+        } else {
+            list = (int[]) existing;
+        }
+        int size = list[0];
+        if (size + 1 == list.length) {
+            list = Arrays.copyOf(list, list.length << 1);
+        }
+        list[size + 1] = row;
+        list[0] = size + 1;
+        return list;
+    }
+
+}
@@ -0,0 +1,328 @@
+package org.apache.calcite.adapter.restapi.rest.snapshot;
+
+import org.apache.calcite.adapter.restapi.rest.page.ColumnarPage;
+import org.apache.calcite.adapter.restapi.rest.page.PageLayout;
+import org.apache.calcite.linq4j.AbstractEnumerable;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Enumerator;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.SqlKind;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable copy of a whole table: the pages of one full scan plus hash indexes on declared
+ * columns. Filters are evaluated by Calcite above the scan; an equality filter on an indexed
+ * column only narrows the rows handed to it. A copy replaced by a refresh expires, and its
+ * pages, with their spill files, are closed once its enumerators are closed.
+ */
+public class SnapshotData {
+
+    private final List<ColumnarPage> pages;
+    private final int[] pageStarts;
+    private final int rowCount;
+    private final Map<Integer, HashIndex> indexes = new HashMap<>();
+    private final int[] indexColumns;
+    private final int watermarkColumn;
+    private final Comparable<Object> watermark;
+    private final long loadedAt = System.currentTimeMillis();
+    private int readers;
+    private boolean expired;
+    private boolean closed;
+
+    /**
+     * @param indexColumns    positions of the columns to index
+     * @param watermarkColumn position of the column whose highest value is kept as the watermark, or -1
+     */
+    public SnapshotData(List<ColumnarPage> pages, int[] indexColumns, int watermarkColumn) {
+        this.pages = pages;
+        this.pageStarts = new int[pages.size()];
+        int rows = 0;
+        for (int i = 0; i < pages.size(); i++) {
+            pageStarts[i] = rows;
+            rows += pages.get(i).size();
+        }
+        this.rowCount = rows;
+
+        this.indexColumns = indexColumns;
+        this.watermarkColumn = watermarkColumn;
+        for (int column : indexColumns) {
+            indexes.put(column, new HashIndex());
+        }
+        Comparable<Object> highest = null;
+        if (!indexes.isEmpty() || watermarkColumn >= 0) {
+            int row = 0;
+            for (ColumnarPage page : pages) {
+                ColumnarPage.Cursor cursor = page.cursor();
+                for (int i = 0; i < page.size(); i++, row++) {
+                    Object[] values = cursor.get(i);
+                    for (Map.Entry<Integer, HashIndex> index : indexes.entrySet()) {
+                        index.getValue().add(values[index.getKey()], row);
+                    }
+                    if (watermarkColumn >= 0) {
+                        highest = max(highest, values[watermarkColumn]);
+                    }
+                }
+            }
+        }
+        this.watermark = highest;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * Highest value of the watermark column, or {@code null} if there is none or no row has it.
+     */
+    public Object getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Builds the next snapshot from this one and the rows changed since its watermark: a changed
+     * row replaces the row with the same key, or is added. The pages of {@code changes} are closed.
+     */
+    public SnapshotData merge(List<ColumnarPage> changes, PageLayout layout, long memoryBudget, int[] keyColumns) {
+        Map<Object, Object[]> changed = new LinkedHashMap<>();
+        try {
+            for (ColumnarPage page : changes) {
+                ColumnarPage.Cursor cursor = page.cursor();
+                for (int i = 0; i < page.size(); i++) {
+                    Object[] row = cursor.get(i);
+                    changed.remove(keyOf(row, keyColumns));
+                    changed.put(keyOf(row, keyColumns), row);
+                }
+            }
+        } finally {
+            changes.forEach(ColumnarPage::close);
+        }
+
+        ColumnarPage merged = new ColumnarPage(layout, memoryBudget);
+        try {
+            for (ColumnarPage page : pages) {
+                ColumnarPage.Cursor cursor = page.cursor();
+                for (int i = 0; i < page.size(); i++) {
+                    Object[] row = cursor.get(i);
+                    if (!changed.containsKey(keyOf(row, keyColumns))) {
+                        merged.append(row);
+                    }
+                }
+            }
+            changed.values().forEach(merged::append);
+        } catch (RuntimeException e) {
+            merged.close();
+            throw e;
+        }
+        return new SnapshotData(merged.size() > 0 ? List.of(merged) : List.of(), indexColumns, watermarkColumn);
+    }
+
+    public Enumerable<Object[]> scan(List<RexNode> filters, int[] projects) {
+        int[] rows = lookup(filters);
+        return new AbstractEnumerable<>() {
+            public Enumerator<Object[]> enumerator() {
+                if (!openReader()) {
+                    throw new IllegalStateException("Snapshot was replaced by a refresh, or its table dropped, while the query was running; run the query again");
+                }
+                return new SnapshotEnumerator(rows, projects);
+            }
+        };
+    }
+
+    /**
+     * Called once the copy has been replaced long enough for the queries started before to have
+     * opened their enumerators: the pages are closed as soon as none of them is open.
+     */
+    public synchronized void expire() {
+        expired = true;
+        closeIfUnread();
+    }
+
+    private synchronized boolean openReader() {
+        if (closed) {
+            return false;
+        }
+        readers++;
+        return true;
+    }
+
+    private synchronized void closeReader() {
+        readers--;
+        closeIfUnread();
+    }
+
+    private void closeIfUnread() {
+        if (expired && readers == 0 && !closed) {
+            closed = true;
+            pages.forEach(ColumnarPage::close);
+        }
+    }
+
+    /**
+     * Rows matching the first equality filter on an indexed column, or {@code null} to read all rows.
+     */
+    private int[] lookup(List<RexNode> filters) {
+        for (RexNode filter : filters) {
+            if (!filter.isA(SqlKind.EQUALS)) {
+                continue;
+            }
+            List<RexNode> operands = ((RexCall) filter).getOperands();
+            RexNode ref = operands.get(0);
+            RexNode literal = operands.get(1);
+            if (ref instanceof RexLiteral) {
+                ref = operands.get(1);
+                literal = operands.get(0);
+            }
+            if (ref instanceof RexInputRef && literal instanceof RexLiteral) {
+                HashIndex index = indexes.get(((RexInputRef) ref).getIndex());
+                Object value = valueOf((RexLiteral) literal);
+                if (index != null && value != null) {
+                    return index.get(value);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Object keyOf(Object[] row, int[] keyColumns) {
+        if (keyColumns.length == 1) {
+            return HashIndex.key(row[keyColumns[0]]);
+        }
+        List<Object> key = new ArrayList<>(keyColumns.length);
+        for (int column : keyColumns) {
+            key.add(HashIndex.key(row[column]));
+        }
+        return key;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> max(Comparable<Object> highest, Object value) {
+        if (value == null) {
+            return highest;
+        }
+        Comparable<Object> comparable = (Comparable<Object>) value;
+        return highest == null || comparable.compareTo(highest) > 0 ? comparable : highest;
+    }
+
+    /**
+     * Value of a literal in the representation the adapter stores: days for dates, milliseconds
+     * for times and timestamps.
+     */
+    private static Object valueOf(RexLiteral literal) {
+        switch (literal.getTypeName().getFamily()) {
+            case NUMERIC:
+                return literal.getValueAs(BigDecimal.class);
+            case CHARACTER:
+                return literal.getValueAs(String.class);
+            case BOOLEAN:
+                return literal.getValueAs(Boolean.class);
+            case DATE:
+            case TIME:
+                return literal.getValueAs(Integer.class);
+            case TIMESTAMP:
+                return literal.getValueAs(Long.class);
+            default:
+                return null;
+        }
+    }
+
+    private class SnapshotEnumerator implements Enumerator<Object[]> {
+        private final int[] rows;
+        private final int[] projects;
+        private final ColumnarPage.Cursor[] cursors = new ColumnarPage.Cursor[pages.size()];
+        private int position = -1;
+        private int page;
+        private int pageRow = -1;
+        private Object[] current;
+        private boolean done;
+
+        SnapshotEnumerator(int[] rows, int[] projects) {
+            this.rows = rows;
+            this.projects = projects;
+        }
+
+        @Override
+        public Object[] current() {
+            return current;
+        }
+
+        @Override
+        public boolean moveNext() {
+            if (rows != null) {
+                if (++position >= rows.length) {
+                    return false;
+                }
+                int row = rows[position];
+                page = pageOf(row);
+                pageRow = row - pageStarts[page];
+            } else {
+                pageRow++;
+                while (page < pages.size() && pageRow >= pages.get(page).size()) {
+                    page++;
+                    pageRow = 0;
+                }
+                if (page >= pages.size()) {
+                    return false;
+                }
+            }
+
+            if (cursors[page] == null) {
+                cursors[page] = pages.get(page).cursor();
+            }
+            current = project(cursors[page].get(pageRow));
+            return true;
+        }
+
+        @Override
+        public void reset() {
+            position = -1;
+            page = 0;
+            pageRow = -1;
+            current = null;
+        }
+
+        @Override
+        public void close() {
+            if (!done) {
+                done = true;
+                closeReader();
+            }
+        }
+
+        private int pageOf(int row) {
+            int found = Arrays.binarySearch(pageStarts, row);
+            if (found < 0) {
+                return -found - 2;
+            }
+            while (found + 1 < pageStarts.length && pageStarts[found + 1] == row) {
+                found++;
+            }
+            return found;
+        }
+
+        private Object[] project(Object[] row) {
+            if (projects == null) {
+                return row;
+            }
+            Object[] projected = new Object[projects.length];
+            for (int i = 0; i < projects.length; i++) {
+                projected[i] = row[projects[i]];
+            }
+            return projected;
+        }
+    }
+
+}
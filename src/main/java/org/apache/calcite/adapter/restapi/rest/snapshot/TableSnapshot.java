@@ -0,0 +1,147 @@
+package org.apache.calcite.adapter.restapi.rest.snapshot;
+
+import org.apache.calcite.adapter.restapi.model.Property;
+import org.apache.calcite.adapter.restapi.model.Snapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+
+/**
+ * Local copy of a table declared with {@code <snapshot>}. The copy is loaded by the first query
+ * and then reloaded every {@code refreshInterval} seconds in the background; a reload replaces it
+ * atomically, so queries see either the old or the new copy, never a mix. A failed reload keeps
+ * the previous copy. The loader is given the previous copy, so that tables with a watermark can
+ * request only the rows changed since it; every {@code fullRefreshInterval} seconds it is given none,
+ * and the whole table is loaded again, which drops the rows deleted in the service. A replaced copy
+ * stays readable for 30 seconds by the queries that obtained it before, and is closed once the last
+ * of them closes its enumerators.
+ */
+public class TableSnapshot {
+
+    public static final String MEMORY_STORAGE = "memory";
+    public static final String FILE_STORAGE = "file";
+
+    private static final ScheduledExecutorService REFRESHER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rest-snapshot-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** How long a replaced copy stays readable by the queries that obtained it before. */
+    private static final long EXPIRE_DELAY_SECONDS = 30;
+
+    private final Logger logger = LoggerFactory.getLogger(TableSnapshot.class);
+
+    private final String tableName;
+    private final Snapshot snapshot;
+    private final BiFunction<Properties, SnapshotData, SnapshotData> loader;
+    private final AtomicReference<SnapshotData> current = new AtomicReference<>();
+    private ScheduledFuture<?> refreshes;
+    private volatile long fullLoadAt;
+    private boolean closed;
+
+    public TableSnapshot(String tableName, Snapshot snapshot, BiFunction<Properties, SnapshotData, SnapshotData> loader) {
+        this.tableName = tableName;
+        this.snapshot = snapshot;
+        this.loader = loader;
+    }
+
+    /**
+     * Heap budget of the snapshot pages: {@code file} storage keeps all rows in a memory-mapped file.
+     */
+    public long getMemoryBudget() {
+        String storage = snapshot.getStorage();
+        if (storage == null || storage.isBlank() || MEMORY_STORAGE.equalsIgnoreCase(storage.trim())) {
+            return Long.MAX_VALUE;
+        }
+        if (FILE_STORAGE.equalsIgnoreCase(storage.trim())) {
+            return 0;
+        }
+        throw new IllegalArgumentException("Unknown snapshot storage '" + storage + "' of table '" + tableName + "', expected memory or file");
+    }
+
+    /**
+     * Returns the current copy, loading it on the first call. The copy is shared by all users, so it
+     * is loaded and reloaded with the {@code properties} of the snapshot only, never with the connection
+     * properties of whichever user queries first; templates referencing a connection property the
+     * snapshot does not declare fail to render.
+     */
+    public SnapshotData get() {
+        SnapshotData data = current.get();
+        if (data != null) {
+            return data;
+        }
+        synchronized (this) {
+            data = current.get();
+            if (data == null) {
+                Properties properties = snapshotProperties();
+                data = loader.apply(properties, null);
+                fullLoadAt = data.getLoadedAt();
+                if (closed) {
+                    expire(data);
+                    return data;
+                }
+                current.set(data);
+                logger.debug("Snapshot of table '{}' loaded, {} rows", tableName, data.getRowCount());
+                if (snapshot.getRefreshInterval() > 0) {
+                    refreshes = REFRESHER.scheduleWithFixedDelay(() -> refresh(properties),
+                            snapshot.getRefreshInterval(), snapshot.getRefreshInterval(), TimeUnit.SECONDS);
+                }
+            }
+            return data;
+        }
+    }
+
+    /**
+     * Stops the background reloads; the current copy stays readable by running queries for 30 seconds.
+     */
+    public synchronized void close() {
+        closed = true;
+        if (refreshes != null) {
+            refreshes.cancel(false);
+        }
+        expire(current.get());
+    }
+
+    private void refresh(Properties properties) {
+        try {
+            boolean full = snapshot.getFullRefreshInterval() > 0
+                    && System.currentTimeMillis() - fullLoadAt >= snapshot.getFullRefreshInterval() * 1000L;
+            SnapshotData data = loader.apply(properties, full ? null : current.get());
+            if (full) {
+                fullLoadAt = data.getLoadedAt();
+            }
+            synchronized (this) {
+                expire(closed ? data : current.getAndSet(data));
+            }
+            logger.debug("Snapshot of table '{}' refreshed, {} rows", tableName, data.getRowCount());
+        } catch (RuntimeException e) {
+            logger.warn("Refresh of snapshot of table '{}' failed, keeping the previous one: {}", tableName, e.getMessage());
+        }
+    }
+
+    private Properties snapshotProperties() {
+        Properties properties = new Properties();
+        if (snapshot.getProperties() == null) {
+            return properties;
+        }
+        for (Property property : snapshot.getProperties()) {
+            properties.setProperty(property.getKey(), property.getValue() != null ? property.getValue() : "");
+        }
+        return properties;
+    }
+
+    private static void expire(SnapshotData replaced) {
+        if (replaced != null) {
+            REFRESHER.schedule(replaced::expire, EXPIRE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+package org.apache.calcite.adapter.restapi.rest.spill;
+
+import net.minidev.json.JSONValue;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Temporary file holding rows in a compact tagged binary format.
+ * Rows are appended sequentially and streamed back through memory-mapped windows, from the
+ * start or from the position {@link #write(Object[])} returned for a row.
+ * The file is deleted when it is closed.
+ */
+public class SpillFile implements AutoCloseable {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final long MAPPING_SIZE = 64L * 1024 * 1024;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte TRUE = 4;
+    private static final byte FALSE = 5;
+
+    private final FileChannel channel;
+    private final DataOutputStream out;
+    private long size;
+
+    public SpillFile() throws IOException {
+        Path path = Files.createTempFile("calcite-rest-", ".spill");
+        this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_SIZE));
+    }
+
+    /**
+     * @return position of the row in the file
+     */
+    public long write(Object[] row) throws IOException {
+        long position = size;
+        for (Object value : row) {
+            writeValue(value);
+        }
+        return position;
+    }
+
+    public Object[] read(DataInputStream in, int columnCount) throws IOException {
+        Object[] row = new Object[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            row[i] = readValue(in);
+        }
+        return row;
+    }
+
+    public DataInputStream openReader() throws IOException {
+        return openReader(0);
+    }
+
+    public DataInputStream openReader(long position) throws IOException {
+        out.flush();
+        return new DataInputStream(new MappedInputStream(channel, position, channel.size()));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+            size += 1;
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+            size += 1;
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            out.writeByte(LONG);
+            out.writeLong(((Number) value).longValue());
+            size += 1 + Long.BYTES;
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+            size += 1 + Double.BYTES;
+        } else {
+            byte[] bytes = toText(value).getBytes(StandardCharsets.UTF_8);
+            out.writeByte(STRING);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            size += 1 + Integer.BYTES + bytes.length;
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case STRING:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            default:
+                throw new IOException("Corrupted spill file, unknown value tag: " + tag);
+        }
+    }
+
+    private static String toText(Object value) {
+        if (value instanceof Map || value instanceof List) {
+            return JSONValue.toJSONString(value);
+        }
+        return value.toString();
+    }
+
+    private static class MappedInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long size;
+        private long position;
+        private MappedByteBuffer window;
+
+        MappedInputStream(FileChannel channel, long position, long size) {
+            this.channel = channel;
+            this.position = position;
+            this.size = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextWindow()) {
+                return -1;
+            }
+            return window.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextWindow()) {
+                return -1;
+            }
+            int count = Math.min(len, window.remaining());
+            window.get(bytes, off, count);
+            return count;
+        }
+
+        private boolean nextWindow() throws IOException {
+            if (window != null && window.hasRemaining()) {
+                return true;
+            }
+            if (position >= size) {
+                return false;
+            }
+            long length = Math.min(MAPPING_SIZE, size - position);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            position += length;
+            return true;
+        }
+    }
+
+}
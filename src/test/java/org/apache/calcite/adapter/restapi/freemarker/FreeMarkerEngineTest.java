@@ -0,0 +1,28 @@
+package org.apache.calcite.adapter.restapi.freemarker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class FreeMarkerEngineTest {
+
+    private static final String URL = "/api/${name}?offset=${offset}";
+
+    @Test
+    void templatesStayCachedUntilTheLastServiceReleasesThem() {
+        FreeMarkerEngine engine = FreeMarkerEngine.getInstance();
+        FreeMarkerEngine.retain(Set.of(URL));
+        FreeMarkerEngine.retain(Set.of(URL));
+        assertSame(engine.getTemplate(URL), engine.getTemplate(URL));
+
+        FreeMarkerEngine.release(Set.of(URL));
+        assertSame(engine.getTemplate(URL), engine.getTemplate(URL));
+
+        FreeMarkerEngine.release(Set.of(URL));
+        assertNotSame(engine.getTemplate(URL), engine.getTemplate(URL));
+    }
+
+}
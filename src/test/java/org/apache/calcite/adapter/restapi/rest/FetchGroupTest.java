@@ -0,0 +1,43 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FetchGroupTest {
+
+    @Test
+    void documentIsDroppedOnceEveryReaderReadIt() throws IOException {
+        FetchGroup group = new FetchGroup("users");
+        Object query = new Object();
+        group.addReader(query);
+        group.addReader(query);
+        AtomicInteger fetches = new AtomicInteger();
+
+        assertTrue(group.get(query, "page 0", () -> fetches.incrementAndGet()).getValue());
+        assertFalse(group.get(query, "page 0", () -> fetches.incrementAndGet()).getValue());
+        assertEquals(1, fetches.get());
+
+        assertTrue(group.get(query, "page 0", () -> fetches.incrementAndGet()).getValue());
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void singleReaderDoesNotShare() throws IOException {
+        FetchGroup group = new FetchGroup("users");
+        Object query = new Object();
+        group.addReader(query);
+        AtomicInteger fetches = new AtomicInteger();
+
+        group.get(query, "page 0", () -> fetches.incrementAndGet());
+        group.get(query, "page 0", () -> fetches.incrementAndGet());
+
+        assertEquals(2, fetches.get());
+    }
+
+}
@@ -0,0 +1,118 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.model.JsonBody;
+import freemarker.template.SimpleNumber;
+import freemarker.template.SimpleScalar;
+import freemarker.template.TemplateBooleanModel;
+import freemarker.template.TemplateModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonRequestBodyTest {
+
+    private static final List<List<Map<String, TemplateModel>>> ONE_GROUP = List.of(List.of(
+            criterion("name", "=", new SimpleScalar("Ann")),
+            criterion("age", ">", new SimpleNumber(30))));
+
+    private static final List<List<Map<String, TemplateModel>>> TWO_GROUPS = List.of(
+            List.of(criterion("name", "=", new SimpleScalar("Ann"))),
+            List.of(criterion("active", "=", TemplateBooleanModel.TRUE)));
+
+    @Test
+    void flatLayoutWritesTheEqualitiesOfASingleGroup() {
+        JsonRequestBody body = new JsonRequestBody(spec("flat"));
+
+        assertEquals("{\"name\":\"Ann\"}", body.prepare("users", 10, ONE_GROUP, List.of(), List.of()).render(0));
+        assertEquals("{}", body.prepare("users", 10, TWO_GROUPS, List.of(), List.of()).render(0));
+        assertTrue(body.writes("=", 1));
+        assertFalse(body.writes(">", 1));
+        assertFalse(body.writes("=", 2));
+    }
+
+    @Test
+    void dnfLayoutWritesTheFirstGroupUnderWhereKeyAndTheOthersUnderOrKey() {
+        JsonBody spec = spec("dnf");
+        spec.setWhereKey("where");
+        spec.setOrKey("or");
+        JsonRequestBody body = new JsonRequestBody(spec);
+
+        assertEquals("{\"where\":[{\"name\":\"name\",\"operator\":\"=\",\"value\":\"Ann\"}],"
+                        + "\"or\":[[{\"name\":\"active\",\"operator\":\"=\",\"value\":true}]]}",
+                body.prepare("users", 10, TWO_GROUPS, List.of(), List.of()).render(0));
+        assertTrue(body.writes(">", 1));
+        assertTrue(body.writes(">", 2));
+    }
+
+    @Test
+    void dnfLayoutWithoutOrKeyWritesOnlyASingleGroup() {
+        JsonBody spec = spec("dnf");
+        spec.setWhereKey("where");
+        spec.setQuoteValues(true);
+        JsonRequestBody body = new JsonRequestBody(spec);
+
+        assertEquals("{\"where\":[{\"name\":\"name\",\"operator\":\"=\",\"value\":\"Ann\"},{\"name\":\"age\",\"operator\":\">\",\"value\":\"30\"}]}",
+                body.prepare("users", 10, ONE_GROUP, List.of(), List.of()).render(0));
+        assertEquals("{}", body.prepare("users", 10, TWO_GROUPS, List.of(), List.of()).render(0));
+        assertTrue(body.writes("<", 1));
+        assertFalse(body.writes("=", 2));
+    }
+
+    @Test
+    void pageAndOffsetKeysArePrependedToEachPage() {
+        JsonBody spec = spec("flat");
+        spec.setNameKey("table");
+        spec.setLimitKey("size");
+        spec.setPageKey("page");
+        spec.setOffsetKey("offset");
+        JsonRequestBody.Prepared prepared = new JsonRequestBody(spec).prepare("users", 10, ONE_GROUP, List.of(), List.of());
+
+        assertEquals("{\"page\":0,\"offset\":0,\"table\":\"users\",\"size\":10,\"name\":\"Ann\"}", prepared.render(0));
+        assertEquals("{\"page\":2,\"offset\":20,\"table\":\"users\",\"size\":10,\"name\":\"Ann\"}", prepared.render(20));
+    }
+
+    @Test
+    void pageKeyAloneIsWrittenIntoAnOtherwiseEmptyBody() {
+        JsonBody spec = spec("dnf");
+        spec.setPageKey("page");
+        JsonRequestBody.Prepared prepared = new JsonRequestBody(spec).prepare("users", 25, List.of(), List.of(), List.of());
+
+        assertEquals("{\"page\":0}", prepared.render(0));
+        assertEquals("{\"page\":3}", prepared.render(75));
+    }
+
+    @Test
+    void offsetKeyAloneIsWrittenBeforeTheFixedFields() {
+        JsonBody spec = spec("dnf");
+        spec.setOffsetKey("offset");
+        spec.setProjectsKey("fields");
+        spec.setSortKey("sort");
+        JsonRequestBody.Prepared prepared = new JsonRequestBody(spec).prepare("users", 10, List.of(),
+                List.of(Map.of("name", "age", "direction", "DESC", "nulls", "LAST")), List.of("name", "age"));
+
+        assertEquals("{\"offset\":10,\"fields\":[\"age\",\"name\"],\"sort\":[{\"name\":\"age\",\"direction\":\"DESC\",\"nulls\":\"LAST\"}]}",
+                prepared.render(10));
+    }
+
+    @Test
+    void unknownLayoutIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new JsonRequestBody(spec("nested")));
+    }
+
+    private static JsonBody spec(String filterLayout) {
+        JsonBody spec = new JsonBody();
+        spec.setFilterLayout(filterLayout);
+        return spec;
+    }
+
+    private static Map<String, TemplateModel> criterion(String name, String operator, TemplateModel value) {
+        return Map.of("name", new SimpleScalar(name), "operator", new SimpleScalar(operator), "value", value);
+    }
+
+}
@@ -0,0 +1,76 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NdjsonStreamDecoderTest {
+
+    @Test
+    void recordsAreReadOnePerLine() throws IOException {
+        List<Object> records = readAll("{\"id\":1,\"name\":\"Ann\"}\n"
+                + "{\"id\":2,\"tags\":[\"a\",\"b\"]}\r\n"
+                + "\n"
+                + "[3]\n");
+
+        assertEquals(List.of(Map.of("id", 1, "name", "Ann"), Map.of("id", 2, "tags", List.of("a", "b")), List.of(3)), records);
+    }
+
+    @Test
+    void lastLineNeedsNoNewline() throws IOException {
+        assertEquals(List.of(Map.of("id", 1), Map.of("id", 2)), readAll("{\"id\":1}\n{\"id\":2}"));
+    }
+
+    @Test
+    void emptyBodyHasNoRecords() throws IOException {
+        assertFalse(NdjsonStreamDecoder.records(stream("")).hasNext());
+    }
+
+    @Test
+    void streamIsReadOnlyAsFarAsTheRecordsAreTaken() throws IOException {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("read past the first record");
+            }
+        };
+        Iterator<Object> records = NdjsonStreamDecoder.records(new SequenceInputStream(stream("{\"id\":1}"), failing));
+
+        assertEquals(Map.of("id", 1), records.next());
+        assertThrows(RuntimeException.class, records::hasNext);
+    }
+
+    @Test
+    void invalidRecordFailsWhenItIsReached() throws IOException {
+        Iterator<Object> records = NdjsonStreamDecoder.records(stream("{\"id\":1}\n{\"id\":\n"));
+
+        assertEquals(Map.of("id", 1), records.next());
+        assertThrows(RuntimeException.class, () -> {
+            records.hasNext();
+            records.next();
+        });
+    }
+
+    private static List<Object> readAll(String body) throws IOException {
+        List<Object> records = new ArrayList<>();
+        NdjsonStreamDecoder.records(stream(body)).forEachRemaining(records::add);
+        return records;
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
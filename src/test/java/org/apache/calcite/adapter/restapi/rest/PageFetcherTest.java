@@ -0,0 +1,35 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.rest.page.PageLayout;
+import org.apache.calcite.jdbc.JavaTypeFactoryImpl;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class PageFetcherTest {
+
+    @Test
+    void revalidationKeyDependsOnRequestKeyAndColumns() {
+        HttpGet request = new HttpGet("http://localhost/users");
+        PageLayout idLayout = layout("id");
+
+        String alice = PageFetcher.revalidationKey(new RenderedRequest(request, "GET http://localhost/users\nheaders a"), idLayout);
+        String bob = PageFetcher.revalidationKey(new RenderedRequest(request, "GET http://localhost/users\nheaders b"), idLayout);
+
+        assertNotEquals(alice, bob);
+        assertEquals(alice, PageFetcher.revalidationKey(new RenderedRequest(request, "GET http://localhost/users\nheaders a"), layout("id")));
+        assertNotEquals(alice, PageFetcher.revalidationKey(new RenderedRequest(request, "GET http://localhost/users\nheaders a"), layout("name")));
+    }
+
+    private static PageLayout layout(String column) {
+        Field field = new Field(column, RestFieldType.STRING, RestFieldType.STRING.toType(new JavaTypeFactoryImpl()));
+        field.setJsonpath("$." + column);
+        field.setResponseParameter(true);
+        return new PageLayout(List.of(field));
+    }
+
+}
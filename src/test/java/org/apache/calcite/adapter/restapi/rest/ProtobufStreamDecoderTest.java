@@ -0,0 +1,190 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.rest.interfaces.ArrayParamReader;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FileDescriptor;
+import com.google.protobuf.DynamicMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProtobufStreamDecoderTest {
+
+    private static final List<String> FIELDS = List.of("id", "name", "address.city", "tags");
+
+    @TempDir
+    Path directory;
+
+    private String descriptorSetFile;
+    private FileDescriptor file;
+
+    @BeforeEach
+    void writeDescriptorSet() throws Exception {
+        FileDescriptorProto proto = FileDescriptorProto.newBuilder()
+                .setName("rows.proto")
+                .setPackage("test")
+                .setSyntax("proto3")
+                .addMessageType(message("Address", field("city", 1, FieldDescriptorProto.Type.TYPE_STRING)))
+                .addMessageType(message("Row",
+                        field("id", 1, FieldDescriptorProto.Type.TYPE_INT64),
+                        field("name", 2, FieldDescriptorProto.Type.TYPE_STRING),
+                        field("address", 3, FieldDescriptorProto.Type.TYPE_MESSAGE).setTypeName(".test.Address"),
+                        repeated(field("tags", 4, FieldDescriptorProto.Type.TYPE_STRING))))
+                .addMessageType(message("Page",
+                        field("total", 1, FieldDescriptorProto.Type.TYPE_INT32),
+                        repeated(field("items", 2, FieldDescriptorProto.Type.TYPE_MESSAGE).setTypeName(".test.Row"))))
+                .addMessageType(message("Envelope",
+                        field("data", 1, FieldDescriptorProto.Type.TYPE_MESSAGE).setTypeName(".test.Page"),
+                        repeated(field("pages", 2, FieldDescriptorProto.Type.TYPE_MESSAGE).setTypeName(".test.Page"))))
+                .build();
+        file = FileDescriptor.buildFrom(proto, new FileDescriptor[0]);
+        Path path = directory.resolve("rows.desc");
+        Files.write(path, FileDescriptorSet.newBuilder().addFile(proto).build().toByteArray());
+        descriptorSetFile = path.toString();
+    }
+
+    @AfterEach
+    void evictDescriptorSet() {
+        ProtobufStreamDecoder.evict(List.of(descriptorSetFile));
+    }
+
+    @Test
+    void emptyRowPathReadsLengthDelimitedRows() throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        row(1, "Ann", "Oslo").writeDelimitedTo(body);
+        row(2, "", null, "a", "b").writeDelimitedTo(body);
+
+        List<Object[]> rows = decode("test.Row", "", body.toByteArray());
+
+        assertEquals(2, rows.size());
+        assertEquals(Arrays.asList(1L, "Ann", "Oslo", null), Arrays.asList(rows.get(0)));
+        assertEquals(Arrays.asList(2L, "", null, "[a,b]"), Arrays.asList(rows.get(1)));
+    }
+
+    @Test
+    void nestedRowPathReadsTheRepeatedField() throws IOException {
+        DynamicMessage envelope = DynamicMessage.newBuilder(type("Envelope"))
+                .setField(type("Envelope").findFieldByName("data"), page(2, row(1, "Ann", null), row(2, "Bob", null)))
+                .build();
+
+        List<Object[]> rows = decode("test.Envelope", "$.data.items", envelope.toByteArray());
+
+        assertEquals(List.of(1L, 2L), column(rows, 0));
+        assertEquals(List.of("Ann", "Bob"), column(rows, 1));
+    }
+
+    @Test
+    void repeatedMessagesOnTheRowPathAreAllRead() throws IOException {
+        Descriptor envelopeType = type("Envelope");
+        DynamicMessage envelope = DynamicMessage.newBuilder(envelopeType)
+                .addRepeatedField(envelopeType.findFieldByName("pages"), page(1, row(1, "Ann", null)))
+                .addRepeatedField(envelopeType.findFieldByName("pages"), page(2, row(2, "Bob", null), row(3, "Cid", null)))
+                .build();
+
+        List<Object[]> rows = decode("test.Envelope", "pages.items", envelope.toByteArray());
+
+        assertEquals(List.of(1L, 2L, 3L), column(rows, 0));
+    }
+
+    @Test
+    void rowPathMustEndWithARepeatedMessageField() {
+        assertThrows(IllegalArgumentException.class, () -> ProtobufStreamDecoder.of(descriptorSetFile, "test.Envelope", "data", FIELDS));
+        assertThrows(IllegalArgumentException.class, () -> ProtobufStreamDecoder.of(descriptorSetFile, "test.Page", "total", FIELDS));
+    }
+
+    @Test
+    void unknownFieldsAndTypesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ProtobufStreamDecoder.of(descriptorSetFile, "test.Row", "", List.of("address.zip")));
+        assertThrows(IllegalArgumentException.class, () -> ProtobufStreamDecoder.of(descriptorSetFile, "test.Missing", "", FIELDS));
+    }
+
+    private List<Object[]> decode(String messageType, String rowPath, byte[] body) throws IOException {
+        List<Object[]> rows = new ArrayList<>();
+        ProtobufStreamDecoder.of(descriptorSetFile, messageType, rowPath, FIELDS)
+                .decode(new ByteArrayInputStream(body), row -> rows.add(read(row)));
+        return rows;
+    }
+
+    private static Object[] read(ArrayParamReader row) {
+        Object[] values = new Object[FIELDS.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = row.read(i, FIELDS.get(i));
+        }
+        return values;
+    }
+
+    private static List<Object> column(List<Object[]> rows, int index) {
+        List<Object> values = new ArrayList<>();
+        for (Object[] row : rows) {
+            values.add(row[index]);
+        }
+        return values;
+    }
+
+    private DynamicMessage row(long id, String name, String city, String... tags) {
+        Descriptor rowType = type("Row");
+        DynamicMessage.Builder row = DynamicMessage.newBuilder(rowType)
+                .setField(rowType.findFieldByName("id"), id)
+                .setField(rowType.findFieldByName("name"), name);
+        if (city != null) {
+            Descriptor addressType = type("Address");
+            row.setField(rowType.findFieldByName("address"),
+                    DynamicMessage.newBuilder(addressType).setField(addressType.findFieldByName("city"), city).build());
+        }
+        for (String tag : tags) {
+            row.addRepeatedField(rowType.findFieldByName("tags"), tag);
+        }
+        return row.build();
+    }
+
+    private DynamicMessage page(int total, DynamicMessage... rows) {
+        Descriptor pageType = type("Page");
+        DynamicMessage.Builder page = DynamicMessage.newBuilder(pageType).setField(pageType.findFieldByName("total"), total);
+        for (DynamicMessage row : rows) {
+            page.addRepeatedField(pageType.findFieldByName("items"), row);
+        }
+        return page.build();
+    }
+
+    private Descriptor type(String name) {
+        return file.findMessageTypeByName(name);
+    }
+
+    private static DescriptorProto message(String name, FieldDescriptorProto.Builder... fields) {
+        DescriptorProto.Builder message = DescriptorProto.newBuilder().setName(name);
+        for (FieldDescriptorProto.Builder field : fields) {
+            message.addField(field);
+        }
+        return message.build();
+    }
+
+    private static FieldDescriptorProto.Builder field(String name, int number, FieldDescriptorProto.Type type) {
+        return FieldDescriptorProto.newBuilder()
+                .setName(name)
+                .setNumber(number)
+                .setType(type)
+                .setLabel(FieldDescriptorProto.Label.LABEL_OPTIONAL);
+    }
+
+    private static FieldDescriptorProto.Builder repeated(FieldDescriptorProto.Builder field) {
+        return field.setLabel(FieldDescriptorProto.Label.LABEL_REPEATED);
+    }
+
+}
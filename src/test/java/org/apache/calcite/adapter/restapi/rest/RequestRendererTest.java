@@ -0,0 +1,77 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.freemarker.FreeMarkerEngine;
+import org.apache.calcite.adapter.restapi.model.Header;
+import org.apache.calcite.adapter.restapi.model.JsonBody;
+import org.apache.calcite.adapter.restapi.model.RequestData;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestRendererTest {
+
+    @BeforeAll
+    static void init() {
+        FreeMarkerEngine.init();
+    }
+
+    @Test
+    void keyDependsOnRenderedHeaders() {
+        RequestRenderer renderer = renderer();
+
+        String alice = render(renderer, "alice-token");
+        String bob = render(renderer, "bob-token");
+
+        assertNotEquals(alice, bob);
+        assertEquals(alice, render(renderer, "alice-token"));
+        assertFalse(alice.contains("alice-token"), "the key is stored on disk, so it holds a digest of the headers");
+    }
+
+    @Test
+    void rangesAreRenderedByTemplatesUsingFiltersAndByTheDnfLayout() {
+        RequestData requestData = new RequestData();
+        requestData.setUrl("/users");
+        requestData.setBody("{\"limit\": ${limit}}");
+        assertFalse(RequestRenderer.rendersRanges(requestData));
+
+        requestData.setBody("{<#list filters[0] as criterion>\"${criterion.name}\": \"${criterion.value}\"<#sep>,</#list>}");
+        assertTrue(RequestRenderer.rendersRanges(requestData));
+
+        JsonBody jsonBody = new JsonBody();
+        jsonBody.setFilterLayout("flat");
+        requestData.setBody(null);
+        requestData.setJsonBody(jsonBody);
+        assertFalse(RequestRenderer.rendersRanges(requestData));
+
+        jsonBody.setFilterLayout("dnf");
+        jsonBody.setWhereKey("where");
+        assertTrue(RequestRenderer.rendersRanges(requestData));
+    }
+
+    private static RequestRenderer renderer() {
+        Header authorization = new Header();
+        authorization.setKey("Authorization");
+        authorization.setValue("Bearer ${jwtToken}");
+        RequestData requestData = new RequestData();
+        requestData.setMethod("GET");
+        requestData.setUrl("/users?offset=${offset}");
+        requestData.setHeaders(List.of(authorization));
+        return new RequestRenderer(new HashMap<>(), requestData, "users", node -> null);
+    }
+
+    private static String render(RequestRenderer renderer, String token) {
+        Properties properties = new Properties();
+        properties.setProperty("jwtToken", token);
+        return renderer.render("http://localhost", Collections.emptyList(), Collections.emptyMap(), 0, properties, Collections.emptySet()).key;
+    }
+
+}
@@ -0,0 +1,20 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class ResponseBufferTest {
+
+    @Test
+    void closingTwiceReturnsTheBufferToThePoolOnce() {
+        ResponseBuffer buffer = ResponseBuffer.acquire();
+        buffer.close();
+        buffer.close();
+
+        try (ResponseBuffer first = ResponseBuffer.acquire(); ResponseBuffer second = ResponseBuffer.acquire()) {
+            assertNotSame(first, second);
+        }
+    }
+
+}
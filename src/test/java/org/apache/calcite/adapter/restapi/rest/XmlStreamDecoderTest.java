@@ -0,0 +1,93 @@
+package org.apache.calcite.adapter.restapi.rest;
+
+import org.apache.calcite.adapter.restapi.rest.interfaces.ArrayParamReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class XmlStreamDecoderTest {
+
+    @Test
+    void rowsAreReadFromAnAbsolutePath() throws IOException {
+        List<Object[]> rows = decode("/feed/items/item", "<feed><items>"
+                + "<item><name> Ann </name><address><city>Oslo</city></address></item>"
+                + "<item><name>Bob</name></item>"
+                + "</items><item><name>not a row</name></item></feed>", "name", "address/city");
+
+        assertEquals(2, rows.size());
+        assertEquals(Arrays.asList("Ann", "Oslo"), Arrays.asList(rows.get(0)));
+        assertEquals("Bob", rows.get(1)[0]);
+        assertNull(rows.get(1)[1]);
+    }
+
+    @Test
+    void rowsAreReadAtAnyDepth() throws IOException {
+        List<Object[]> rows = decode("//row", "<result>"
+                + "<row><id>1</id></row>"
+                + "<group><row><id>2</id></row><deeper><row><id>3</id></row></deeper></group>"
+                + "</result>", "id");
+
+        assertEquals(Arrays.asList("1", "2", "3"), column(rows, 0));
+    }
+
+    @Test
+    void attributesAndTheRowTextAreFields() throws IOException {
+        List<Object[]> rows = decode("//tag", "<tags>"
+                + "<tag id=\"7\"><![CDATA[ red ]]><address zip=\"0150\"/></tag>"
+                + "<tag>blue</tag>"
+                + "</tags>", "@id", ".", "address/@zip");
+
+        assertEquals(Arrays.asList("7", "red", "0150"), Arrays.asList(rows.get(0)));
+        assertEquals(Arrays.asList(null, "blue", null), Arrays.asList(rows.get(1)));
+    }
+
+    @Test
+    void namespacesAreIgnored() throws IOException {
+        List<Object[]> rows = decode("/feed/item", "<a:feed xmlns:a=\"urn:a\"><a:item><a:name>Ann</a:name></a:item></a:feed>", "name");
+
+        assertEquals(List.of("Ann"), column(rows, 0));
+    }
+
+    @Test
+    void rowPathIsRequired() {
+        assertThrows(IllegalArgumentException.class, () -> XmlStreamDecoder.of("//", List.of("name")));
+    }
+
+    @Test
+    void invalidXmlFailsTheRead() {
+        assertThrows(IOException.class, () -> decode("//row", "<result><row><id>1</row></result>", "id"));
+    }
+
+    private static List<Object[]> decode(String rowPath, String xml, String... fields) throws IOException {
+        List<Object[]> rows = new ArrayList<>();
+        XmlStreamDecoder.of(rowPath, Arrays.asList(fields))
+                .decode(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), row -> rows.add(read(row, fields)));
+        return rows;
+    }
+
+    private static Object[] read(ArrayParamReader row, String... fields) {
+        Object[] values = new Object[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            values[i] = row.read(i, fields[i]);
+        }
+        return values;
+    }
+
+    private static List<Object> column(List<Object[]> rows, int index) {
+        List<Object> values = new ArrayList<>();
+        for (Object[] row : rows) {
+            values.add(row[index]);
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,57 @@
+package org.apache.calcite.adapter.restapi.rest.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DiskResponseCacheTest {
+
+    private static final byte[] BODY = "{\"data\":[{\"id\":1}]}".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void storesBodyReadToTheEnd() throws IOException {
+        DiskResponseCache cache = DiskResponseCache.open(directory.toString(), 4L * 1024 * 1024);
+        capture(cache, "GET /users", true);
+
+        assertArrayEquals(BODY, cache.get("GET /users"));
+        assertNull(cache.get("GET /users\nheaders other"));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count(), "the capture file is deleted");
+        }
+    }
+
+    @Test
+    void skipsBodyReadPartially() throws IOException {
+        DiskResponseCache cache = DiskResponseCache.open(directory.toString(), 4L * 1024 * 1024);
+        capture(cache, "GET /orders", false);
+
+        assertNull(cache.get("GET /orders"));
+    }
+
+    private static void capture(DiskResponseCache cache, String request, boolean toTheEnd) throws IOException {
+        try (DiskResponseCache.Capture capture = cache.capture(request, 0);
+             InputStream in = capture.wrap(new ByteArrayInputStream(BODY))) {
+            if (toTheEnd) {
+                in.readAllBytes();
+            } else {
+                in.readNBytes(BODY.length / 2);
+            }
+            capture.commit();
+        }
+    }
+
+}
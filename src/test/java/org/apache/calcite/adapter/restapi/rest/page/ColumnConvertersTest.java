@@ -0,0 +1,37 @@
+package org.apache.calcite.adapter.restapi.rest.page;
+
+import org.apache.calcite.adapter.restapi.rest.RestFieldType;
+import org.junit.jupiter.api.Test;
+
+import java.time.format.DateTimeParseException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ColumnConvertersTest {
+
+    private static final long EPOCH_MILLIS = 1672567200000L;
+
+    private final ColumnConverter timestamp = ColumnConverters.of(RestFieldType.TIMESTAMP, null);
+
+    @Test
+    void parsesEitherSeparator() {
+        assertEquals(EPOCH_MILLIS, timestamp.convert("2023-01-01T10:00:00"));
+        assertEquals(EPOCH_MILLIS, timestamp.convert("2023-01-01 10:00:00"));
+        assertEquals(EPOCH_MILLIS - 3 * 3600_000L, timestamp.convert("2023-01-01T10:00:00+03:00"));
+    }
+
+    @Test
+    void rejectsTrailingText() {
+        assertThrows(DateTimeParseException.class, () -> timestamp.convert("2023-01-01T10:00:00 +03:00"));
+        assertThrows(DateTimeParseException.class, () -> timestamp.convert("2023-01-01T10:00:00Z[Europe/Moscow]"));
+        assertThrows(DateTimeParseException.class, () -> ColumnConverters.of(RestFieldType.DATE, null).convert("2023-01-01x"));
+    }
+
+    @Test
+    void requiresOneSeparator() {
+        assertThrows(RuntimeException.class, () -> timestamp.convert("2023-01-0110:00:00"));
+        assertThrows(RuntimeException.class, () -> timestamp.convert("2023-01-01T 10:00:00"));
+    }
+
+}
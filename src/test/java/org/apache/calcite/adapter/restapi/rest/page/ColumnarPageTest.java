@@ -0,0 +1,95 @@
+package org.apache.calcite.adapter.restapi.rest.page;
+
+import org.apache.calcite.adapter.restapi.rest.Field;
+import org.apache.calcite.adapter.restapi.rest.RestFieldType;
+import org.apache.calcite.jdbc.JavaTypeFactoryImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnarPageTest {
+
+    private static final PageLayout LAYOUT = layout("name");
+
+    @Test
+    void zeroBudgetSpillsTheFirstRow() {
+        try (ColumnarPage page = new ColumnarPage(LAYOUT, 0)) {
+            page.append(new Object[]{"a"});
+
+            assertTrue(page.isSpilled());
+            assertArrayEquals(new Object[]{"a"}, page.cursor().get(0));
+        }
+    }
+
+    @Test
+    void pagesOfAPassShareTheBudget() {
+        MemoryBudget budget = new MemoryBudget(1);
+        ColumnarPage first = new ColumnarPage(LAYOUT, budget);
+        first.append(new Object[]{"a"});
+        assertFalse(first.isSpilled());
+
+        try (ColumnarPage second = new ColumnarPage(LAYOUT, budget)) {
+            second.append(new Object[]{"b"});
+            assertTrue(second.isSpilled());
+        }
+
+        first.close();
+        try (ColumnarPage third = new ColumnarPage(LAYOUT, budget)) {
+            third.append(new Object[]{"c"});
+            assertFalse(third.isSpilled());
+        }
+    }
+
+    @Test
+    void sharedPageIsChargedToTheBudgetOfItsPass() {
+        ColumnarPage kept = new ColumnarPage(LAYOUT, Long.MAX_VALUE);
+        kept.append(new Object[]{"a"});
+        kept.close();
+
+        MemoryBudget budget = new MemoryBudget(1);
+        ColumnarPage shared = kept.share(budget);
+        assertArrayEquals(new Object[]{"a"}, shared.cursor().get(0));
+        try (ColumnarPage next = new ColumnarPage(LAYOUT, budget)) {
+            next.append(new Object[]{"b"});
+            assertTrue(next.isSpilled());
+        }
+
+        shared.close();
+        try (ColumnarPage next = new ColumnarPage(LAYOUT, budget)) {
+            next.append(new Object[]{"b"});
+            assertFalse(next.isSpilled());
+        }
+        assertArrayEquals(new Object[]{"a"}, kept.share(new MemoryBudget(0)).cursor().get(0));
+    }
+
+    @Test
+    void requestOnlyColumnsHoldTheValuesOfTheirPass() {
+        Field region = new Field("region", RestFieldType.STRING, RestFieldType.STRING.toType(new JavaTypeFactoryImpl()));
+        region.setRequestParameter(true);
+        PageLayout layout = new PageLayout(List.of(region));
+        PageLayout east = layout.withRequestValues(Map.of("region", "east"));
+        PageLayout west = layout.withRequestValues(Map.of("region", "west"));
+
+        try (ColumnarPage first = new ColumnarPage(east, Long.MAX_VALUE); ColumnarPage second = new ColumnarPage(west, Long.MAX_VALUE)) {
+            first.append(new Object[1]);
+            second.append(new Object[1]);
+
+            assertEquals("east", first.cursor().get(0)[0]);
+            assertEquals("west", second.cursor().get(0)[0]);
+        }
+    }
+
+    private static PageLayout layout(String column) {
+        Field field = new Field(column, RestFieldType.STRING, RestFieldType.STRING.toType(new JavaTypeFactoryImpl()));
+        field.setJsonpath("$." + column);
+        field.setResponseParameter(true);
+        return new PageLayout(List.of(field));
+    }
+
+}
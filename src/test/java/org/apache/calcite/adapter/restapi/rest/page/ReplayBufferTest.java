@@ -0,0 +1,51 @@
+package org.apache.calcite.adapter.restapi.rest.page;
+
+import org.apache.calcite.adapter.restapi.rest.interfaces.RestIterator;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReplayBufferTest {
+
+    @Test
+    void enumerationsShareOnePassUntilReleased() {
+        AtomicInteger passes = new AtomicInteger();
+        ReplayBuffer buffer = new ReplayBuffer(() -> {
+            passes.incrementAndGet();
+            return new OnePage();
+        });
+
+        readAll(buffer.iterator());
+        readAll(buffer.iterator());
+        assertEquals(1, passes.get());
+
+        buffer.close();
+        readAll(buffer.iterator());
+        assertEquals(2, passes.get());
+    }
+
+    private static void readAll(RestIterator iterator) {
+        while (iterator.getMore().size() > 0) {
+            // read on
+        }
+        iterator.close();
+    }
+
+    private static class OnePage implements RestIterator {
+        private boolean read;
+
+        @Override
+        public ColumnarPage getMore() {
+            if (read) {
+                return ColumnarPage.empty();
+            }
+            read = true;
+            ColumnarPage page = new ColumnarPage(PageLayout.empty(), Long.MAX_VALUE);
+            page.append(new Object[0]);
+            return page;
+        }
+    }
+
+}
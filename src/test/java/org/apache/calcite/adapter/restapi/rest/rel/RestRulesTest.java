@@ -0,0 +1,203 @@
+package org.apache.calcite.adapter.restapi.rest.rel;
+
+import org.apache.calcite.adapter.restapi.rest.RestSchemaFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.calcite.jdbc.CalciteConnection;
+import org.apache.calcite.jdbc.JavaTypeFactoryImpl;
+import org.apache.calcite.rel.RelCollations;
+import org.apache.calcite.rel.core.AggregateCall;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.sql.SqlAggFunction;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RestRulesTest {
+
+    private static final String SERVICE = "<service>\n"
+            + "  <dataSourceName>TABLE</dataSourceName>\n"
+            + "  <schemaName>v1</schemaName>\n"
+            + "  <requestData>\n"
+            + "    <addresses>http://localhost:PORT</addresses>\n"
+            + "    <method>POST</method>\n"
+            + "    <url>/api/${name}</url>\n"
+            + "    REQUEST\n"
+            + "  </requestData>\n"
+            + "  <tables>\n"
+            + "    <table>\n"
+            + "      <name>TABLE</name>\n"
+            + "      <rootJsonpath>$.data</rootJsonpath>\n"
+            + "      <parameters>\n"
+            + "        <parameter><name>id</name><dbType>long</dbType><jsonpath>id</jsonpath><type>RESPONSE</type><sortable>true</sortable></parameter>\n"
+            + "        <parameter><name>name</name><dbType>string</dbType><jsonpath>name</jsonpath><type>RESPONSE</type></parameter>\n"
+            + "        <parameter><name>age</name><dbType>int</dbType><jsonpath>age</jsonpath><type>BOTH</type></parameter>\n"
+            + "      </parameters>\n"
+            + "      <aggregation>\n"
+            + "        <url>/agg/${name}</url>\n"
+            + "        <body>AGGREGATION</body>\n"
+            + "        <rootJsonpath>$.groups</rootJsonpath>\n"
+            + "        <groupBy><column>name</column></groupBy>\n"
+            + "        <functions><function>count</function><function>sum</function><function>min</function></functions>\n"
+            + "      </aggregation>\n"
+            + "    </table>\n"
+            + "  </tables>\n"
+            + "</service>\n";
+
+    @TempDir
+    static Path directory;
+
+    private static HttpServer server;
+    private static Connection connection;
+
+    @BeforeAll
+    static void start() throws IOException, SQLException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/", exchange -> respond(exchange, "{\"data\": [{\"id\": 1, \"name\": \"a\", \"age\": 20}, {\"id\": 2, \"name\": \"a\", \"age\": 30}]}"));
+        server.createContext("/agg/", exchange -> respond(exchange, "{\"groups\": []}"));
+        server.start();
+
+        String port = String.valueOf(server.getAddress().getPort());
+        Files.writeString(directory.resolve("users.xml"), SERVICE.replace("TABLE", "users").replace("PORT", port)
+                .replace("REQUEST", "<body><![CDATA[{<#if sort??>\"sort\": \"${sort[0].name}\"</#if>}]]></body>")
+                .replace("AGGREGATION", "{}"));
+        Files.writeString(directory.resolve("accounts.xml"), SERVICE.replace("TABLE", "accounts").replace("PORT", port)
+                .replace("REQUEST", "<jsonBody><nameKey>name</nameKey></jsonBody>")
+                .replace("AGGREGATION", "<![CDATA[{<#if filters??>\"where\": \"${filters[0][0].name}\"</#if>}]]>"));
+        Files.writeString(directory.resolve("visits.xml"), SERVICE.replace("TABLE", "visits").replace("PORT", port)
+                .replace("REQUEST", "<jsonBody><filterLayout>flat</filterLayout></jsonBody>")
+                .replace("AGGREGATION", "{}"));
+        System.setProperty("calcite.rest", directory.toString());
+        connection = DriverManager.getConnection("jdbc:calcite:lex=JAVA");
+        CalciteConnection calciteConnection = connection.unwrap(CalciteConnection.class);
+        calciteConnection.getRootSchema().add("rest", new RestSchemaFactory().create(calciteConnection.getRootSchema(), "rest", new HashMap<>()));
+    }
+
+    @AfterAll
+    static void stop() throws SQLException {
+        connection.close();
+        server.stop(0);
+        System.clearProperty("calcite.rest");
+    }
+
+    @Test
+    void groupedAggregateIsPushedToTheService() throws SQLException {
+        assertTrue(explain("select name, count(*), min(age) from rest.users group by name").contains("RestAggregate"));
+        assertEquals(List.of(), query("select name, count(*), min(age) from rest.users group by name"));
+    }
+
+    @Test
+    void filteredAggregateIsPushedWhenTheRequestRendersTheFilters() throws SQLException {
+        String plan = explain("select name, count(*) from rest.accounts where age > 21 group by name");
+
+        assertTrue(plan.contains("RestAggregate"), plan);
+        assertFalse(plan.contains("EnumerableCalc"), plan);
+    }
+
+    @Test
+    void filteredAggregateIsLeftToCalciteWhenTheRequestIgnoresTheFilters() throws SQLException {
+        String plan = explain("select name, count(*) from rest.users where age > 21 group by name");
+
+        assertFalse(plan.contains("RestAggregate"), plan);
+        assertTrue(plan.contains("$condition"), plan);
+        assertEquals(List.of(List.of("a", 1L)), query("select name, count(*) from rest.users where age > 21 group by name"));
+    }
+
+    @Test
+    void globalAggregateOverNoRowsHasTheDefaultRow() throws SQLException {
+        String sql = "select count(*), count(age), sum(age), min(name) from rest.users";
+
+        assertTrue(explain(sql).contains("RestAggregate"));
+        assertEquals(List.of(Arrays.asList(0L, 0L, null, null)), query(sql));
+    }
+
+    @Test
+    void sumOfZeroIsLeftToCalcite() {
+        RelDataType type = new JavaTypeFactoryImpl().createSqlType(SqlTypeName.BIGINT);
+
+        assertEquals("sum", RestRules.RestAggregateTableScanRule.toFunction(sumOf(SqlStdOperatorTable.SUM, type)));
+        assertNull(RestRules.RestAggregateTableScanRule.toFunction(sumOf(SqlStdOperatorTable.SUM0, type)));
+    }
+
+    @Test
+    void criteriaTheFlatLayoutDoesNotWriteAreResidual() throws SQLException {
+        assertTrue(explain("select id from rest.visits where age = 30").contains("pushed=[age = 30]"));
+
+        String plan = explain("select id from rest.visits where age > 30");
+        assertTrue(plan.contains("residual=[age > 30]"), plan);
+        assertFalse(plan.contains("pushed="), plan);
+    }
+
+    @Test
+    void sortIsPushedWhenTheRequestRendersIt() throws SQLException {
+        String plan = explain("select id, name from rest.users order by id desc");
+
+        assertTrue(plan.contains("sort=[[0 DESC]]"), plan);
+        assertFalse(plan.contains("EnumerableSort"), plan);
+    }
+
+    @Test
+    void sortIsKeptByCalciteWhenTheRequestDoesNotRenderIt() throws SQLException {
+        String plan = explain("select id, name from rest.accounts order by id");
+
+        assertFalse(plan.contains("sort=["), plan);
+        assertTrue(plan.contains("EnumerableSort"), plan);
+    }
+
+    private static AggregateCall sumOf(SqlAggFunction function, RelDataType type) {
+        return AggregateCall.create(function, false, false, false, List.of(0), -1, RelCollations.EMPTY, type, "total");
+    }
+
+    static String explain(String sql) throws SQLException {
+        return String.join("\n", query("explain plan for " + sql).stream().map(row -> String.valueOf(row.get(0))).toArray(String[]::new));
+    }
+
+    static List<List<Object>> query(String sql) throws SQLException {
+        List<List<Object>> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            int columns = resultSet.getMetaData().getColumnCount();
+            while (resultSet.next()) {
+                List<Object> row = new ArrayList<>();
+                for (int i = 1; i <= columns; i++) {
+                    Object value = resultSet.getObject(i);
+                    row.add(value instanceof Number ? (Object) ((Number) value).longValue() : value);
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+}
@@ -0,0 +1,31 @@
+package org.apache.calcite.adapter.restapi.rest.snapshot;
+
+import org.apache.calcite.adapter.restapi.rest.page.ColumnarPage;
+import org.apache.calcite.adapter.restapi.rest.page.PageLayout;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Enumerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotDataTest {
+
+    @Test
+    void expiredCopyStaysReadableUntilItsEnumeratorsClose() {
+        ColumnarPage page = new ColumnarPage(PageLayout.empty(), Long.MAX_VALUE);
+        page.append(new Object[0]);
+        SnapshotData data = new SnapshotData(List.of(page), new int[0], -1);
+        Enumerable<Object[]> scan = data.scan(List.of(), null);
+
+        Enumerator<Object[]> reading = scan.enumerator();
+        data.expire();
+        assertTrue(reading.moveNext());
+        reading.close();
+
+        assertThrows(IllegalStateException.class, scan::enumerator);
+    }
+
+}
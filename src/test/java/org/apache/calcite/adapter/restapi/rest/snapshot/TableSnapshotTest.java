@@ -0,0 +1,47 @@
+package org.apache.calcite.adapter.restapi.rest.snapshot;
+
+import org.apache.calcite.adapter.restapi.model.Property;
+import org.apache.calcite.adapter.restapi.model.Snapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TableSnapshotTest {
+
+    @Test
+    void copyIsLoadedWithTheSnapshotPropertiesOnly() {
+        Property token = new Property();
+        token.setKey("jwtToken");
+        token.setValue("service-account");
+        Snapshot declared = new Snapshot();
+        declared.setProperties(List.of(token));
+
+        AtomicReference<Properties> loadedWith = new AtomicReference<>();
+        TableSnapshot snapshot = new TableSnapshot("users", declared, (properties, previous) -> {
+            loadedWith.set(properties);
+            return new SnapshotData(List.of(), new int[0], -1);
+        });
+        snapshot.get();
+
+        assertEquals("service-account", loadedWith.get().getProperty("jwtToken"));
+        assertEquals(1, loadedWith.get().size());
+    }
+
+    @Test
+    void copyWithoutSnapshotPropertiesIsLoadedWithoutConnectionProperties() {
+        AtomicReference<Properties> loadedWith = new AtomicReference<>();
+        TableSnapshot snapshot = new TableSnapshot("users", new Snapshot(), (properties, previous) -> {
+            loadedWith.set(properties);
+            return new SnapshotData(List.of(), new int[0], -1);
+        });
+        snapshot.get();
+
+        assertTrue(loadedWith.get().isEmpty());
+    }
+
+}